@@ -38,7 +38,6 @@ public class Config {
     public static int       DB_BATCH_SIZE;
     public static int       SIMOBJECT_MAP_UPDATE_FREQUENCY_SECONDS;
     public static boolean   ENABLE_LOG_ROUTEHISTORY;
-    public static int       SIMOBJECT_ROUTEHISTORY_LOG_FREQUENCY_SECONDS;
     public static boolean   ENABLE_POSTPROCESSING;
 
     // ASSIGNMENT-STRATEGY CONFIG
@@ -48,7 +47,6 @@ public class Config {
     public static int       REQUEST_BUFFER_SECONDS;
     public static boolean   REPEATED_ASSIGNMENT;
     public static boolean   PRINT_JSPRIT_SOLUTION_INFO;
-    public static int       MAX_POSITION_AGE_SECONDS;
     public static int       VEHICLE_PICKUP_DROPOFF_DELAY_SECONDS;
     public static int       PICKUP_DROPOFF_DURATION_PER_PERSON_SECONDS;
     public static double    MAX_IN_VEH_TIME_ELONGATION_FACTOR;
@@ -57,11 +55,29 @@ public class Config {
     public static boolean   ENABLE_ALONSO_TRAVEL_DELAY_MODE;
     public static int       USER_ALONSO_MAX_DELAY_SECONDS;
     public static String    VEHICLE_SEARCH_MODE;
+    public static String    VRP_SOLVER;
+    public static int       INSERTION_JSPRIT_FALLBACK_MAX_STOPS;
+    public static boolean   ENABLE_JSPRIT_WARM_START;
+    public static boolean   ENABLE_JSPRIT_REDUCED_STRATEGIES;
+    public static int       JSPRIT_TERMINATION_ITERATIONS;
+    public static boolean   ENABLE_FEASIBILITY_PRECHECK;
+    public static double    MAX_NETWORK_SPEED_KMH;
+    public static boolean   ENABLE_EVALUATION_MEMO;
+    public static boolean   ENABLE_DIRECT_ASSIGNMENT;
+    public static boolean   ENABLE_LOWER_BOUND_PRUNING;
+    public static int       PRUNING_CHUNK_SIZE;
+    public static boolean   ENABLE_ADAPTIVE_SEARCH;
+    public static int       ADAPTIVE_TIME_BUDGET_MS;
+    public static int       ASSIGNMENT_DEADLINE_MS;
+    public static int       RTV_MAX_TRIP_SIZE;
+    public static int       PARTITION_SIZE_KM;
+    public static int       ASSIGNMENT_THREADS;
 
     // REBALANCING CONFIG
     public static boolean   ENABLE_REBALANCING;
     public static String    REBALANCING_MANAGER_TYPE;
     public static String    REBALANCING_MAP_PATH;
+    public static int       REBALANCING_TARGET_POOL_SIZE;
     public static boolean   LOG_REBALANCING;
     public static String    REBALANCING_LOG_PATH;
 
@@ -117,10 +133,8 @@ public class Config {
             DB_BATCH_SIZE = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "db_batch_size"));
             SIMOBJECT_MAP_UPDATE_FREQUENCY_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "simobject_map_update_frequency_seconds"));
             ENABLE_LOG_ROUTEHISTORY = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_log_routehistory"));
-            SIMOBJECT_ROUTEHISTORY_LOG_FREQUENCY_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "simobject_routehistory_log_frequency_seconds"));
             ASSIGNMENT_STRATEGY = UtilXML.getChildStringValueForElement(rootElement, "assignment_strategy");
             REQUEST_BUFFER_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "request_buffer_seconds"));
-            MAX_POSITION_AGE_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "max_position_age_seconds"));
             VEHICLE_PICKUP_DROPOFF_DELAY_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "vehicle_pickup_dropoff_delay_seconds"));
             PICKUP_DROPOFF_DURATION_PER_PERSON_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "pickup_dropoff_duration_per_person_seconds"));
             MAX_IN_VEH_TIME_ELONGATION_FACTOR = Double.parseDouble(UtilXML.getChildStringValueForElement(rootElement, "user_max_in_veh_time_elongation_factor"));
@@ -142,6 +156,7 @@ public class Config {
             USER_ALONSO_MAX_DELAY_SECONDS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "user_alonso-mora_max_delay_seconds"));
             REBALANCING_MANAGER_TYPE = UtilXML.getChildStringValueForElement(rootElement, "rebalancing_manager_type");
             REBALANCING_MAP_PATH = UtilXML.getChildStringValueForElement(rootElement, "rebalancing_map_path");
+            REBALANCING_TARGET_POOL_SIZE = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "rebalancing_target_pool_size"));
             WRITE_DURATION_GRID_TO_CSV = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "write_duration_grid_to_csv"));
             USE_GRID_VALIDITY_AREA = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "use_grid_validity_area"));
             ENABLE_GRIDROUTER_WARNINGS = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_gridrouter_warnings"));
@@ -149,6 +164,23 @@ public class Config {
             VEHICLE_FILTER_LIST_SIZE = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "vehicle_filter_list_size"));
             JSPRIT_MAX_ITERATIONS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "jsprit_max_iterations"));
             VEHICLE_SEARCH_MODE = UtilXML.getChildStringValueForElement(rootElement, "vehicle_search_mode");
+            VRP_SOLVER = UtilXML.getChildStringValueForElement(rootElement, "vrp_solver");
+            INSERTION_JSPRIT_FALLBACK_MAX_STOPS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "insertion_jsprit_fallback_max_stops"));
+            ENABLE_JSPRIT_WARM_START = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_jsprit_warm_start"));
+            ENABLE_JSPRIT_REDUCED_STRATEGIES = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_jsprit_reduced_strategies"));
+            JSPRIT_TERMINATION_ITERATIONS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "jsprit_termination_iterations"));
+            ENABLE_FEASIBILITY_PRECHECK = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_feasibility_precheck"));
+            MAX_NETWORK_SPEED_KMH = Double.parseDouble(UtilXML.getChildStringValueForElement(rootElement, "max_network_speed_kmh"));
+            ENABLE_EVALUATION_MEMO = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_evaluation_memo"));
+            ENABLE_DIRECT_ASSIGNMENT = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_direct_assignment"));
+            ENABLE_LOWER_BOUND_PRUNING = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_lower_bound_pruning"));
+            PRUNING_CHUNK_SIZE = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "pruning_chunk_size"));
+            ENABLE_ADAPTIVE_SEARCH = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "enable_adaptive_search"));
+            ADAPTIVE_TIME_BUDGET_MS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "adaptive_time_budget_ms"));
+            ASSIGNMENT_DEADLINE_MS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "assignment_deadline_ms"));
+            RTV_MAX_TRIP_SIZE = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "rtv_max_trip_size"));
+            PARTITION_SIZE_KM = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "partition_size_km"));
+            ASSIGNMENT_THREADS = Integer.parseInt(UtilXML.getChildStringValueForElement(rootElement, "assignment_threads"));
             LOG_REBALANCING = Boolean.parseBoolean(UtilXML.getChildStringValueForElement(rootElement, "log_rebalancing"));
             REBALANCING_LOG_PATH = UtilXML.getChildStringValueForElement(rootElement, "rebalancing_log_path");
 
@@ -2,8 +2,14 @@ package de.tum.ftm.agentsim.ts;
 
 import de.tum.ftm.agentsim.ts.events.*;
 import de.tum.ftm.agentsim.ts.assignmentStrategy.AssignmentStrategyInterface;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.batchMatchingAssignment.ParallelBMA;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.batchMatchingAssignment.SequentialBMA;
 import de.tum.ftm.agentsim.ts.assignmentStrategy.shortestRouteAssignment.ParallelSRA;
 import de.tum.ftm.agentsim.ts.assignmentStrategy.shortestRouteAssignment.SequentialSRA;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.rtvAssignment.ParallelRTV;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.rtvAssignment.SequentialRTV;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.optimisedPartitionAssignment.ParallelOPA;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.optimisedPartitionAssignment.SequentialOPA;
 import de.tum.ftm.agentsim.ts.assignmentStrategy.closestVehicleAssignment.ParallelCVA;
 import de.tum.ftm.agentsim.ts.assignmentStrategy.closestVehicleAssignment.SequentialCVA;
 import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
@@ -94,10 +100,10 @@ public class Scenario {
         Logger.info("{} persons loaded", simObjectController.getUsers().size());
 
         Logger.info("Adding requests to Task List...");
-        PriorityQueue<Event> userRequests = simObjectController.getRequestsForTaskList();
-        simulationEventQueue.addAll(userRequests);
-        Logger.info("{} requests added to Task List", userRequests.size());
-        totalRequestsCnt = userRequests.size();
+        Event_UserRequest firstRequest = simObjectController.getFirstRequestEvent();
+        if (firstRequest != null) simulationEventQueue.add(firstRequest);
+        totalRequestsCnt = simObjectController.getRequestStore().size();
+        Logger.info("{} requests added to Task List", totalRequestsCnt);
 
         Logger.info("Loading vehicles...");
         simObjectController.loadVehiclesFromCSV(Config.FLEET_INPUT_FILE);
@@ -117,6 +123,24 @@ public class Scenario {
             case "PSRA":
                 assignmentStrategy = new ParallelSRA(this);
                 break;
+            case "SBMA":
+                assignmentStrategy = new SequentialBMA(this);
+                break;
+            case "PBMA":
+                assignmentStrategy = new ParallelBMA(this);
+                break;
+            case "SRTV":
+                assignmentStrategy = new SequentialRTV(this);
+                break;
+            case "PRTV":
+                assignmentStrategy = new ParallelRTV(this);
+                break;
+            case "SOPA":
+                assignmentStrategy = new SequentialOPA(this);
+                break;
+            case "POPA":
+                assignmentStrategy = new ParallelOPA(this);
+                break;
             default:
                 throw new RuntimeException("Assignment Strategy not recognized!");
         }
@@ -174,7 +198,9 @@ public class Scenario {
                         e.action();
 
                     } else if (e instanceof Event_UserRequest) {
-                        // Update progressbar, if any user-request was skipped because it was not within the simulation-time
+                        // Continue with the next request and update progressbar, if any user-request was skipped
+                        // because it was not within the simulation-time
+                        ((Event_UserRequest) e).scheduleNextRequest();
                         totalRequestsCnt -= 1;
                         pb.maxHint(totalRequestsCnt);
                     }
@@ -215,10 +241,6 @@ public class Scenario {
         // Add first event for status logging of SimObjects to event-queue
         Event_LogSimObjectStatus.simObjectController = simObjectController;
         simulationEventQueue.add(new Event_LogSimObjectStatus(new SimTime(SimTime.now())));
-
-        // Add first event for logging of SimObject Route History to event-queue
-        Event_LogSimObjectRouteHistory.simObjectController = simObjectController;
-        simulationEventQueue.add(new Event_LogSimObjectRouteHistory(new SimTime(SimTime.now())));
     }
 
     /**
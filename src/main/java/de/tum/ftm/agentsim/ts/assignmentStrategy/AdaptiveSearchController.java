@@ -0,0 +1,155 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import org.pmw.tinylog.Logger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Adapts the number of candidate vehicles per request and the number of jSprit-iterations per VRP after each
+ * processing of the request buffer (tick). The values from the config-file are used as upper limits.
+ * Two observations are used to determine the values which are actually required:
+ * - Candidate rank: The rank of the vehicle (in the order of the VehicleListProvider), to which a request was
+ *   assigned. The candidate list size covers the ranks of most of the assignments.
+ * - Last improving iteration: The jSprit-iteration, in which the best solution was found. The iteration budget
+ *   covers the improving iterations of most of the VRPs.
+ * Observations are weighted down after each tick, so that the controller follows the current demand. If the
+ * processing of the request buffer exceeds the configured wall-time budget, both values are reduced. If the
+ * processing takes less than half of the budget, the values are increased towards the required values.
+ *
+ * @author Manfred Klöppel
+ */
+public class AdaptiveSearchController {
+
+    private static final double COVERAGE = 0.95;      // Share of observations, which are covered by the values
+    private static final int MARGIN = 2;              // Additional candidates/iterations on top of the covered ones
+    private static final int MIN_CANDIDATES = 3;
+    private static final int MIN_ITERATIONS = 2;
+
+    private AssignmentStrategyInterface.AssignmentStatistics statistics;
+    private volatile int candidateListSize;
+    private volatile int jspritIterations;
+    private AtomicLongArray winningRanks;                 // Histogram of the candidate ranks of the assignments
+    private AtomicLongArray lastImprovingIterations;      // Histogram of the last improving jSprit-iterations
+    private long tickStartNanos;
+
+    public AdaptiveSearchController(AssignmentStrategyInterface.AssignmentStatistics statistics) {
+        this.statistics = statistics;
+        this.candidateListSize = Config.VEHICLE_FILTER_LIST_SIZE;
+        this.jspritIterations = Config.JSPRIT_MAX_ITERATIONS;
+        this.winningRanks = new AtomicLongArray(Math.max(1, Config.VEHICLE_FILTER_LIST_SIZE));
+        this.lastImprovingIterations = new AtomicLongArray(Math.max(1, Config.JSPRIT_MAX_ITERATIONS + 1));
+    }
+
+
+    /**
+     * Has to be called before the request buffer is processed
+     */
+    public void startTick() {
+        tickStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Has to be called after the request buffer was processed. Adapts the candidate list size and the jSprit-iterations
+     * for the next tick.
+     */
+    public void endTick() {
+        if (!Config.ENABLE_ADAPTIVE_SEARCH) return;
+        long elapsedMS = (System.nanoTime() - tickStartNanos) / 1_000_000;
+
+        // The minimum values must not exceed the limits from the config-file
+        int minCandidates = Math.min(MIN_CANDIDATES, Config.VEHICLE_FILTER_LIST_SIZE);
+        int minIterations = Math.min(MIN_ITERATIONS, Config.JSPRIT_MAX_ITERATIONS);
+
+        int requiredCandidates = calcRequiredValue(winningRanks, candidateListSize, minCandidates, Config.VEHICLE_FILTER_LIST_SIZE);
+        int requiredIterations = calcRequiredValue(lastImprovingIterations, jspritIterations, minIterations, Config.JSPRIT_MAX_ITERATIONS);
+
+        candidateListSize = adaptValue(candidateListSize, requiredCandidates, minCandidates, elapsedMS);
+        jspritIterations = adaptValue(jspritIterations, requiredIterations, minIterations, elapsedMS);
+
+        // Weight down the observations of the past ticks
+        decay(winningRanks);
+        decay(lastImprovingIterations);
+
+        statistics.setAdaptiveCandidateListSize(candidateListSize);
+        statistics.setAdaptiveJspritIterations(jspritIterations);
+        Logger.trace("Adaptive search: {} ms, {} candidates, {} jSprit-iterations", elapsedMS, candidateListSize, jspritIterations);
+    }
+
+
+    /**
+     * Stores the rank of the vehicle, to which a request was assigned
+     *
+     * @param rank Rank of the vehicle in the candidate list (0 = first vehicle)
+     */
+    public void recordWinningRank(int rank) {
+        winningRanks.incrementAndGet(Math.max(0, Math.min(winningRanks.length() - 1, rank)));
+    }
+
+    /**
+     * Stores the jSprit-iteration, in which the best solution of a VRP was found
+     *
+     * @param iteration Last improving iteration (0 = initial solution)
+     */
+    public void recordLastImprovingIteration(int iteration) {
+        lastImprovingIterations.incrementAndGet(Math.max(0, Math.min(lastImprovingIterations.length() - 1, iteration)));
+    }
+
+    /**
+     * @return Number of candidate vehicles, which should be evaluated per request
+     */
+    public int getCandidateListSize() {
+        return Config.ENABLE_ADAPTIVE_SEARCH ? candidateListSize : Config.VEHICLE_FILTER_LIST_SIZE;
+    }
+
+    /**
+     * @return Maximum number of jSprit-iterations per VRP
+     */
+    public int getJspritIterations() {
+        return Config.ENABLE_ADAPTIVE_SEARCH ? jspritIterations : Config.JSPRIT_MAX_ITERATIONS;
+    }
+
+
+    /**
+     * Determines the value, which covers the configured share of the observations
+     *
+     * @return Required value, or the current value, if no observations are available
+     */
+    private int calcRequiredValue(AtomicLongArray histogram, int currentValue, int minValue, int maxValue) {
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) total += histogram.get(i);
+        if (total == 0) return currentValue;
+
+        long covered = 0;
+        int index = 0;
+        while (index < histogram.length() - 1) {
+            covered += histogram.get(index);
+            if (covered >= COVERAGE * total) break;
+            index++;
+        }
+        return Math.max(minValue, Math.min(maxValue, index + 1 + MARGIN));
+    }
+
+    /**
+     * Adapts a value according to the required value and the wall-time budget
+     *
+     * @return Adapted value
+     */
+    private int adaptValue(int currentValue, int requiredValue, int minValue, long elapsedMS) {
+        if (Config.ADAPTIVE_TIME_BUDGET_MS > 0 && elapsedMS > Config.ADAPTIVE_TIME_BUDGET_MS) {
+            // Budget exceeded, reduce the search effort
+            return Math.max(minValue, Math.min(requiredValue, currentValue * 3 / 4));
+        } else if (currentValue > requiredValue) {
+            // Additional effort does not improve the results
+            return requiredValue;
+        } else if (Config.ADAPTIVE_TIME_BUDGET_MS <= 0 || elapsedMS < Config.ADAPTIVE_TIME_BUDGET_MS / 2) {
+            // Budget available, increase the search effort towards the required value
+            return Math.min(requiredValue, currentValue * 5 / 4 + 1);
+        }
+        return currentValue;
+    }
+
+    private void decay(AtomicLongArray histogram) {
+        for (int i = 0; i < histogram.length(); i++) histogram.set(i, histogram.get(i) / 2);
+    }
+}
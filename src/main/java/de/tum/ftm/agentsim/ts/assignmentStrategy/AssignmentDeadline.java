@@ -0,0 +1,69 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.simobjects.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Wall-clock deadline for one processing of the request buffer (anytime assignment). If a deadline is configured,
+ * the requests are processed in the order of their expiry (latest pickup time), so that the requests which cannot
+ * wait for the next processing of the request buffer are assigned first. When the deadline is exceeded, the
+ * assignments calculated so far are committed and the remaining requests are deferred to the next processing of the
+ * request buffer. Deferred requests are re-added to the request buffer unless they exceed the maximum waiting time.
+ * The deadline is only applied by CVA and SRA, which process the requests one by one. BMA, RTV and OPA match all
+ * requests of the buffer jointly and ignore the deadline.
+ *
+ * @author Manfred Klöppel
+ */
+public class AssignmentDeadline {
+
+    private long startNanos;
+    private long deadlineMS;
+
+    /**
+     * Starts the deadline
+     *
+     * @param deadlineMS Wall-clock deadline in milliseconds, 0 = no deadline
+     */
+    public AssignmentDeadline(long deadlineMS) {
+        this.startNanos = System.nanoTime();
+        this.deadlineMS = deadlineMS;
+    }
+
+
+    /**
+     * @return true, if a deadline is configured
+     */
+    public boolean isEnabled() {
+        return deadlineMS > 0;
+    }
+
+    /**
+     * @return true, if a deadline is configured and the deadline is exceeded
+     */
+    public boolean isExceeded() {
+        return deadlineMS > 0 && getElapsedMillis() >= deadlineMS;
+    }
+
+    /**
+     * @return Wall-clock time since the start of the deadline in milliseconds
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Orders the requests for the processing. If a deadline is configured, the requests are ordered by ascending
+     * latest pickup time, else the order of the collection is kept.
+     *
+     * @param requests Requests of the request buffer
+     * @return Ordered list of the requests
+     */
+    public ArrayList<User.TripRequest> orderRequests(Collection<User.TripRequest> requests) {
+        ArrayList<User.TripRequest> orderedRequests = new ArrayList<>(requests);
+        if (isEnabled()) orderedRequests.sort(Comparator.comparingLong(User.TripRequest::calcTripPickupLatestMillis));
+        return orderedRequests;
+    }
+}
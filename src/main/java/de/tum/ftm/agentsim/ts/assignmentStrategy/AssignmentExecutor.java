@@ -0,0 +1,93 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import org.pmw.tinylog.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dedicated executor for the parallel assignment strategies. Tasks are executed in a separate ForkJoinPool, therefore
+ * all parallel streams created within a task (e.g. over the requests and, nested, over the vehicles of each request)
+ * use the work-stealing threads of this pool instead of the common pool, which is shared with other parts of the
+ * simulation. The number of threads can be configured in the config-file (0 = number of available processors).
+ * For each stage, the number of executions, the time the task waited in the queue and the run time are recorded.
+ *
+ * @author Manfred Klöppel
+ */
+public class AssignmentExecutor {
+
+    private ForkJoinPool pool;
+    private final Map<String, StageMetrics> stageMetrics = new LinkedHashMap<>();
+
+    // Singleton instance
+    private static AssignmentExecutor INSTANCE;
+
+    private AssignmentExecutor() {
+        int parallelism = Config.ASSIGNMENT_THREADS > 0 ? Config.ASSIGNMENT_THREADS : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism);
+        Logger.info("Assignment Executor started with {} threads", parallelism);
+    }
+
+    public static synchronized AssignmentExecutor getInstance() {
+        if (INSTANCE == null) INSTANCE = new AssignmentExecutor();
+        return INSTANCE;
+    }
+
+
+    /**
+     * Executes a task in the pool of the executor and waits until the task is completed
+     *
+     * @param stage Name of the stage, which is used for the metrics
+     * @param task  Task, which should be executed
+     */
+    public void execute(String stage, Runnable task) {
+        StageMetrics metrics = getStageMetrics(stage);
+        long submitTime = System.nanoTime();
+
+        pool.submit(() -> {
+            long startTime = System.nanoTime();
+            metrics.queueWaitNanos.addAndGet(startTime - submitTime);
+            try {
+                task.run();
+            } finally {
+                metrics.runNanos.addAndGet(System.nanoTime() - startTime);
+                metrics.executions.incrementAndGet();
+            }
+        }).join();
+    }
+
+    private StageMetrics getStageMetrics(String stage) {
+        synchronized (stageMetrics) {
+            return stageMetrics.computeIfAbsent(stage, k -> new StageMetrics());
+        }
+    }
+
+
+    /**
+     * @return Map with the metrics of all stages
+     */
+    public Map<String, Long> getStageMetricsMap() {
+        Map<String, Long> metricsMap = new LinkedHashMap<>();
+        synchronized (stageMetrics) {
+            stageMetrics.forEach((stage, metrics) -> {
+                metricsMap.put(stage + " Executions", metrics.executions.get());
+                metricsMap.put(stage + " Queue Wait [ms]", metrics.queueWaitNanos.get() / 1_000_000);
+                metricsMap.put(stage + " Run Time [ms]", metrics.runNanos.get() / 1_000_000);
+            });
+        }
+        return metricsMap;
+    }
+
+
+    /**
+     * Helper class to store the metrics of a stage
+     */
+    private static class StageMetrics {
+        private AtomicLong executions = new AtomicLong(0);
+        private AtomicLong queueWaitNanos = new AtomicLong(0);
+        private AtomicLong runNanos = new AtomicLong(0);
+    }
+}
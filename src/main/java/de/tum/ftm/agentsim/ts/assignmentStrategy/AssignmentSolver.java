@@ -0,0 +1,247 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.insertionSolver.SingleRequestInsertionSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.jspritSolver.SingleRequestJSpritSolver;
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+
+import java.util.Collection;
+
+/**
+ * Calculates the route for the assignment of a single new travel-request to a single vehicle. The solver used for
+ * the calculation can be configured via the Config-file:
+ * - JSPRIT: The VRP-Problem is solved with the jSprit-solver
+ * - INSERTION: The exact insertion heuristic is used. If no solution is found, the jSprit-solver is used as
+ *              fallback for vehicles with only a few open stops, as jSprit may also reorder the already planned stops.
+ * The solvers only create a RoutePlan, which is materialized to a complete Route on demand. All evaluations of a
+ * vehicle/request pair read the state of the vehicle only from one immutable schedule of the vehicle, so that the
+ * vehicle can be changed by other threads during the evaluation. The state version of the schedule is stored in the
+ * plan and is used to commit the route to the vehicle.
+ * For vehicles without assigned requests, the plan is created directly (direct assignment), as the pickup followed by
+ * the drop-off of the new request is the only possible stop sequence.
+ * If configured, vehicle/request pairs which are infeasible according to lower bounds of the travel durations are
+ * rejected by the FeasibilityPreCheck before the solver is called, and the results of the evaluations are stored in
+ * an EvaluationMemo, so that unchanged vehicle/request pairs are not evaluated again. The number of jSprit-iterations
+ * is determined by the AdaptiveSearchController.
+ *
+ * @author Manfred Klöppel
+ */
+public class AssignmentSolver {
+
+    private AssignmentStrategyInterface.AssignmentStatistics statistics;
+    private EvaluationMemo evaluationMemo = new EvaluationMemo();
+    private AdaptiveSearchController searchController;
+
+    public AssignmentSolver(AssignmentStrategyInterface.AssignmentStatistics statistics) {
+        this.statistics = statistics;
+        this.searchController = new AdaptiveSearchController(statistics);
+    }
+
+    /**
+     * @return Controller of the candidate list size and the jSprit-iterations
+     */
+    public AdaptiveSearchController getSearchController() {
+        return searchController;
+    }
+
+    /**
+     * This method tries to assign a travel-request to a vehicle using the configured solver. Only the plan with the
+     * stop sequence and the estimated distance and duration is created, which is evaluated on the current schedule of
+     * the vehicle. Use materializePlan() to create the complete Route.
+     *
+     * @param veh        Vehicle
+     * @param newRequest New travel-request
+     * @return plan, if a solution was found, otherwise null
+     */
+    public RoutePlan makeAssignmentPlan(Vehicle veh, User.TripRequest newRequest) {
+        VehicleSchedule schedule = veh.getSchedule();
+        if (!Config.ENABLE_EVALUATION_MEMO) return evaluateAssignmentPlan(schedule, newRequest);
+
+        // Reuse the result of a previous evaluation, if the vehicle did not change in the meantime
+        EvaluationMemo.MemoEntry memoEntry = evaluationMemo.lookup(newRequest, schedule);
+        if (memoEntry != null) {
+            statistics.incEvaluationMemoHits(1);
+            return memoEntry.getPlan();
+        }
+
+        RoutePlan plan = evaluateAssignmentPlan(schedule, newRequest);
+        evaluationMemo.store(newRequest, schedule, plan);
+        return plan;
+    }
+
+    /**
+     * Calculates the lower bound of the extra VMT of the assignment of a travel-request to a vehicle, which holds
+     * for the plans of the configured solver.
+     *
+     * @param schedule   Schedule of the vehicle
+     * @param newRequest New travel-request
+     * @return Lower bound of the extra VMT in km, negative infinity, if no lower bound exists
+     */
+    public double calcExtraDistanceLowerBoundKM(VehicleSchedule schedule, User.TripRequest newRequest) {
+        return ExtraDistanceLowerBound.calcLowerBoundKM(schedule, newRequest, isStopOrderKept(schedule));
+    }
+
+    /**
+     * Removes all evaluation results from the memo, which do not belong to the provided requests. Should be called
+     * after each processing of the request buffer with the requests remaining in the buffer.
+     *
+     * @param remainingRequests Requests, which will be processed again
+     */
+    public void retainEvaluationMemo(Collection<User.TripRequest> remainingRequests) {
+        evaluationMemo.retainRequests(remainingRequests);
+    }
+
+    /**
+     * Evaluates the assignment of a travel-request to a vehicle using the feasibility pre-check and the configured
+     * solver.
+     *
+     * @param schedule   Schedule of the vehicle
+     * @param newRequest New travel-request
+     * @return plan, if a solution was found, otherwise null
+     */
+    private RoutePlan evaluateAssignmentPlan(VehicleSchedule schedule, User.TripRequest newRequest) {
+        // Reject infeasible vehicle/request pairs before any VRP is built
+        if (Config.ENABLE_FEASIBILITY_PRECHECK) {
+            statistics.incPreCheckTotalCalls(1);
+            if (!FeasibilityPreCheck.isPossiblyFeasible(schedule, newRequest, isStopOrderKept(schedule))) {
+                statistics.incPreCheckRejections(1);
+                return null;
+            }
+        }
+
+        // Fast path for empty vehicles, no VRP needs to be solved
+        if (isDirectAssignment(schedule)) return makeDirectAssignmentPlan(schedule, newRequest);
+
+        switch (Config.VRP_SOLVER) {
+            case "JSPRIT":
+                return makejSpritAssignmentPlan(schedule, newRequest);
+            case "INSERTION":
+                return makeInsertionAssignmentPlan(schedule, newRequest);
+            default:
+                throw new RuntimeException("Invalid VRP-Solver selected!");
+        }
+    }
+
+    /**
+     * Creates the complete Route of a plan. The validity of the route is checked according to the time limits
+     * for picking-up/dropping-off of all requests on the route.
+     *
+     * @param plan Plan created by makeAssignmentPlan()
+     * @return valid route, if the plan could be materialized, otherwise null
+     */
+    public Route materializePlan(RoutePlan plan) {
+        Route newRoute = plan.materialize();
+        if (newRoute != null) {
+            switch (plan.getOrigin()) {
+                case DIRECT:
+                    statistics.incDirectAssignmentValidRouteCalls(1);
+                    break;
+                case INSERTION:
+                    statistics.incInsertionValidRouteCalls(1);
+                    break;
+                case JSPRIT:
+                    statistics.incJspritValidRouteCalls(1);
+                    break;
+                case JSPRIT_FALLBACK:
+                    statistics.incInsertionJspritFallbackValidRouteCalls(1);
+                    break;
+            }
+        }
+        return newRoute;
+    }
+
+    /**
+     * In case of the assignment of a travel-request to an empty vehicle, the plan is created directly. The only
+     * possible stop sequence (pickup and drop-off of the new request) is evaluated with the same time limits as
+     * used by the solvers.
+     *
+     * @param schedule   Schedule of a vehicle without assigned requests
+     * @param newRequest New travel-request
+     * @return plan, if the time limits are met, otherwise null
+     */
+    private RoutePlan makeDirectAssignmentPlan(VehicleSchedule schedule, User.TripRequest newRequest) {
+        statistics.incDirectAssignmentTotalCalls(1);
+        RoutePlan plan = new SingleRequestInsertionSolver().solve(schedule, newRequest);
+        if (plan != null) plan.setOrigin(RoutePlan.Origin.DIRECT);
+        return plan;
+    }
+
+    /**
+     * This method tries to assign a travel-request to a vehicle using the jSprit solver.
+     *
+     * @param schedule   Schedule of the vehicle
+     * @param newRequest New travel-request
+     * @return plan, if a solution was found, otherwise null
+     */
+    private RoutePlan makejSpritAssignmentPlan(VehicleSchedule schedule, User.TripRequest newRequest) {
+        SingleRequestJSpritSolver solver = new SingleRequestJSpritSolver();
+
+        VehicleRoutingProblem vrp = solver.buildVRP(schedule, newRequest);
+        VehicleRoutingProblemSolution bestSolution = solver.solveVRP(vrp, searchController.getJspritIterations());
+        statistics.incJspritTotalCalls(1);
+
+        RoutePlan plan = null;
+        // If a solution is found, create the plan of the solution
+        if (bestSolution != null) {
+            plan = solver.makeRoutePlanFromSolution(bestSolution, schedule, newRequest);
+            statistics.incJspritValidCalls(1);
+            searchController.recordLastImprovingIteration(solver.getLastImprovingIteration());
+
+            // Plot jSprit-solution, if configured
+            if (Config.PRINT_JSPRIT_SOLUTION_INFO) {
+                solver.plotSolution(vrp, bestSolution);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * This method tries to assign a travel-request to a vehicle using the insertion heuristic. If no solution
+     * is found and the vehicle has not more open stops than configured, the jSprit solver is used as fallback.
+     *
+     * @param schedule   Schedule of the vehicle
+     * @param newRequest New travel-request
+     * @return plan, if a solution was found, otherwise null
+     */
+    private RoutePlan makeInsertionAssignmentPlan(VehicleSchedule schedule, User.TripRequest newRequest) {
+        SingleRequestInsertionSolver solver = new SingleRequestInsertionSolver();
+
+        RoutePlan plan = solver.solve(schedule, newRequest);
+        statistics.incInsertionTotalCalls(1);
+        if (plan != null) statistics.incInsertionValidCalls(1);
+
+        // Use jSprit as fallback for vehicles with few open stops
+        if (plan == null) {
+            int openStops = schedule.getOpenStopCount();
+            if (openStops > 0 && openStops <= Config.INSERTION_JSPRIT_FALLBACK_MAX_STOPS) {
+                statistics.incInsertionJspritFallbackCalls(1);
+                plan = makejSpritAssignmentPlan(schedule, newRequest);
+                if (plan != null) plan.setOrigin(RoutePlan.Origin.JSPRIT_FALLBACK);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return true, if the direct assignment is enabled and the vehicle has no assigned requests
+     */
+    private boolean isDirectAssignment(VehicleSchedule schedule) {
+        return Config.ENABLE_DIRECT_ASSIGNMENT && schedule.getRequests().isEmpty();
+    }
+
+    /**
+     * @return true, if the configured solver keeps the order of the stops already planned for the vehicle
+     */
+    private boolean isStopOrderKept(VehicleSchedule schedule) {
+        if (!Config.VRP_SOLVER.equals("INSERTION")) return false;
+
+        // If the jSprit-fallback might be used, the planned stops might be reordered
+        int openStops = schedule.getOpenStopCount();
+        return !(openStops > 0 && openStops <= Config.INSERTION_JSPRIT_FALLBACK_MAX_STOPS);
+    }
+}
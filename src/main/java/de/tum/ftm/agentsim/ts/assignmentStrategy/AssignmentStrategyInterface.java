@@ -2,6 +2,8 @@ package de.tum.ftm.agentsim.ts.assignmentStrategy;
 
 import de.tum.ftm.agentsim.ts.simobjects.User;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -44,6 +46,25 @@ public interface AssignmentStrategyInterface {
         private AtomicLong jspritValidRouteCalls = new AtomicLong(0);
         private AtomicLong directAssignmentTotalCalls = new AtomicLong(0);
         private AtomicLong directAssignmentValidRouteCalls = new AtomicLong(0);
+        private AtomicLong insertionTotalCalls = new AtomicLong(0);
+        private AtomicLong insertionValidCalls = new AtomicLong(0);
+        private AtomicLong insertionValidRouteCalls = new AtomicLong(0);
+        private AtomicLong insertionJspritFallbackCalls = new AtomicLong(0);
+        private AtomicLong insertionJspritFallbackValidRouteCalls = new AtomicLong(0);
+        private AtomicLong preCheckTotalCalls = new AtomicLong(0);
+        private AtomicLong preCheckRejections = new AtomicLong(0);
+        private AtomicLong evaluationMemoHits = new AtomicLong(0);
+        private AtomicLong rtvFeasibleTrips = new AtomicLong(0);
+        private AtomicLong rtvAssignedSharedTrips = new AtomicLong(0);
+        private AtomicLong commitConflicts = new AtomicLong(0);
+        private AtomicLong pruningTotalCandidates = new AtomicLong(0);
+        private AtomicLong prunedCandidates = new AtomicLong(0);
+        private AtomicLong adaptiveCandidateListSize = new AtomicLong(0);
+        private AtomicLong adaptiveJspritIterations = new AtomicLong(0);
+        private AtomicLong deferredRequests = new AtomicLong(0);
+        private long[] requestLatencies = new long[1024];      // Guarded by requestLatencyLock
+        private int requestLatencyCount = 0;
+        private final Object requestLatencyLock = new Object();
         private AtomicInteger successfulAssignmentOnFirstTry = new AtomicInteger(0);
         private AtomicInteger successfulAssignmentOnSecondTry = new AtomicInteger(0);
         private AtomicInteger totalSecondTryAssignments = new AtomicInteger(0);
@@ -88,6 +109,178 @@ public interface AssignmentStrategyInterface {
             this.directAssignmentValidRouteCalls.addAndGet(increment);
         }
 
+        public AtomicLong getInsertionTotalCalls() {
+            return insertionTotalCalls;
+        }
+
+        public void incInsertionTotalCalls(long increment) {
+            this.insertionTotalCalls.addAndGet(increment);
+        }
+
+        public AtomicLong getInsertionValidCalls() {
+            return insertionValidCalls;
+        }
+
+        public void incInsertionValidCalls(long increment) {
+            this.insertionValidCalls.addAndGet(increment);
+        }
+
+        public AtomicLong getInsertionValidRouteCalls() {
+            return insertionValidRouteCalls;
+        }
+
+        public void incInsertionValidRouteCalls(long increment) {
+            this.insertionValidRouteCalls.addAndGet(increment);
+        }
+
+        public AtomicLong getInsertionJspritFallbackCalls() {
+            return insertionJspritFallbackCalls;
+        }
+
+        public void incInsertionJspritFallbackCalls(long increment) {
+            this.insertionJspritFallbackCalls.addAndGet(increment);
+        }
+
+        public AtomicLong getInsertionJspritFallbackValidRouteCalls() {
+            return insertionJspritFallbackValidRouteCalls;
+        }
+
+        public void incInsertionJspritFallbackValidRouteCalls(long increment) {
+            this.insertionJspritFallbackValidRouteCalls.addAndGet(increment);
+        }
+
+        public AtomicLong getPreCheckTotalCalls() {
+            return preCheckTotalCalls;
+        }
+
+        public void incPreCheckTotalCalls(long increment) {
+            this.preCheckTotalCalls.addAndGet(increment);
+        }
+
+        public AtomicLong getPreCheckRejections() {
+            return preCheckRejections;
+        }
+
+        public void incPreCheckRejections(long increment) {
+            this.preCheckRejections.addAndGet(increment);
+        }
+
+        public AtomicLong getEvaluationMemoHits() {
+            return evaluationMemoHits;
+        }
+
+        public void incEvaluationMemoHits(long increment) {
+            this.evaluationMemoHits.addAndGet(increment);
+        }
+
+        public AtomicLong getRtvFeasibleTrips() {
+            return rtvFeasibleTrips;
+        }
+
+        public void incRtvFeasibleTrips(long increment) {
+            this.rtvFeasibleTrips.addAndGet(increment);
+        }
+
+        public AtomicLong getRtvAssignedSharedTrips() {
+            return rtvAssignedSharedTrips;
+        }
+
+        public void incRtvAssignedSharedTrips(long increment) {
+            this.rtvAssignedSharedTrips.addAndGet(increment);
+        }
+
+        public AtomicLong getCommitConflicts() {
+            return commitConflicts;
+        }
+
+        public void incCommitConflicts(long increment) {
+            this.commitConflicts.addAndGet(increment);
+        }
+
+        public AtomicLong getPruningTotalCandidates() {
+            return pruningTotalCandidates;
+        }
+
+        public void incPruningTotalCandidates(long increment) {
+            this.pruningTotalCandidates.addAndGet(increment);
+        }
+
+        public AtomicLong getPrunedCandidates() {
+            return prunedCandidates;
+        }
+
+        public void incPrunedCandidates(long increment) {
+            this.prunedCandidates.addAndGet(increment);
+        }
+
+        public AtomicLong getAdaptiveCandidateListSize() {
+            return adaptiveCandidateListSize;
+        }
+
+        public void setAdaptiveCandidateListSize(long value) {
+            this.adaptiveCandidateListSize.set(value);
+        }
+
+        public AtomicLong getAdaptiveJspritIterations() {
+            return adaptiveJspritIterations;
+        }
+
+        public void setAdaptiveJspritIterations(long value) {
+            this.adaptiveJspritIterations.set(value);
+        }
+
+        public AtomicLong getDeferredRequests() {
+            return deferredRequests;
+        }
+
+        public void incDeferredRequests(long increment) {
+            this.deferredRequests.addAndGet(increment);
+        }
+
+        /**
+         * Stores the latency of a request, i.e. the wall-clock time of the processing of the request
+         *
+         * @param latencyMS Latency in milliseconds
+         */
+        public void addRequestLatency(long latencyMS) {
+            synchronized (requestLatencyLock) {
+                if (requestLatencyCount == requestLatencies.length) {
+                    requestLatencies = Arrays.copyOf(requestLatencies, requestLatencies.length * 2);
+                }
+                requestLatencies[requestLatencyCount++] = latencyMS;
+            }
+        }
+
+        /**
+         * @param percentile Percentile between 0 and 100
+         * @return Percentile of the latencies of the requests in milliseconds
+         */
+        public long getRequestLatencyPercentile(double percentile) {
+            synchronized (requestLatencyLock) {
+                if (requestLatencyCount == 0) return 0;
+                long[] sortedLatencies = Arrays.copyOf(requestLatencies, requestLatencyCount);
+                Arrays.sort(sortedLatencies);
+                int index = (int) Math.ceil(percentile / 100 * requestLatencyCount) - 1;
+                return sortedLatencies[Math.max(0, Math.min(requestLatencyCount - 1, index))];
+            }
+        }
+
+        /**
+         * @return Share of vehicle/request pairs rejected by the feasibility pre-check in percent
+         */
+        public long getPreCheckRejectionRate() {
+            long totalCalls = preCheckTotalCalls.get();
+            return totalCalls > 0 ? Math.round(100.0 * preCheckRejections.get() / totalCalls) : 0;
+        }
+
+        /**
+         * @return Share of candidate vehicles pruned by the lower bound of the extra VMT in percent
+         */
+        public long getPruningRate() {
+            long totalCandidates = pruningTotalCandidates.get();
+            return totalCandidates > 0 ? Math.round(100.0 * prunedCandidates.get() / totalCandidates) : 0;
+        }
+
         public AtomicInteger getSuccessfulAssignmentOnFirstTry() {
             return successfulAssignmentOnFirstTry;
         }
@@ -111,5 +304,43 @@ public interface AssignmentStrategyInterface {
         public void incTotalSecondTryAssignments(int increment) {
             this.totalSecondTryAssignments.addAndGet(increment);
         }
+
+        /**
+         * @return Map with all assignment statistics
+         */
+        public Map<String, Long> getStatisticsMap() {
+            Map<String, Long> counterMap = new LinkedHashMap<>();
+            counterMap.put("Total JSprit Calls", jspritTotalCalls.get());
+            counterMap.put("JSprit Calls with valid Solution", jspritValidCalls.get());
+            counterMap.put("JSprit Calls with valid Route", jspritValidRouteCalls.get());
+            counterMap.put("Total Direct Assignment Calls", directAssignmentTotalCalls.get());
+            counterMap.put("Direct Assignment Calls with valid Route", directAssignmentValidRouteCalls.get());
+            counterMap.put("Total Insertion Calls", insertionTotalCalls.get());
+            counterMap.put("Insertion Calls with valid Solution", insertionValidCalls.get());
+            counterMap.put("Insertion Calls with valid Route", insertionValidRouteCalls.get());
+            counterMap.put("Insertion Calls with JSprit Fallback", insertionJspritFallbackCalls.get());
+            counterMap.put("JSprit Fallback Calls with valid Route", insertionJspritFallbackValidRouteCalls.get());
+            counterMap.put("Total Pre-Check Calls", preCheckTotalCalls.get());
+            counterMap.put("Pre-Check Rejections", preCheckRejections.get());
+            counterMap.put("Pre-Check Rejection Rate [%]", getPreCheckRejectionRate());
+            counterMap.put("Evaluation Memo Hits", evaluationMemoHits.get());
+            counterMap.put("RTV feasible Trips", rtvFeasibleTrips.get());
+            counterMap.put("RTV assigned shared Trips", rtvAssignedSharedTrips.get());
+            counterMap.put("Assignment Commit Conflicts", commitConflicts.get());
+            counterMap.put("Total Pruning Candidates", pruningTotalCandidates.get());
+            counterMap.put("Pruned Candidates", prunedCandidates.get());
+            counterMap.put("Pruning Rate [%]", getPruningRate());
+            counterMap.put("Adaptive Candidate List Size", adaptiveCandidateListSize.get());
+            counterMap.put("Adaptive jSprit Iterations", adaptiveJspritIterations.get());
+            counterMap.put("Deferred Requests", deferredRequests.get());
+            counterMap.put("Request Latency p50 [ms]", getRequestLatencyPercentile(50));
+            counterMap.put("Request Latency p95 [ms]", getRequestLatencyPercentile(95));
+            counterMap.put("Request Latency max [ms]", getRequestLatencyPercentile(100));
+            counterMap.put("Successful Assignment on first try", (long) successfulAssignmentOnFirstTry.get());
+            counterMap.put("Successful Assignment on second try", (long) successfulAssignmentOnSecondTry.get());
+            counterMap.put("Total second try assignments", (long) totalSecondTryAssignments.get());
+
+            return counterMap;
+        }
     }
 }
@@ -0,0 +1,194 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.Scenario;
+import de.tum.ftm.agentsim.ts.log.DBLog;
+import de.tum.ftm.agentsim.ts.log.DBTableEntry;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectStatus;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+import org.pmw.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static de.tum.ftm.agentsim.ts.simobjects.User.TripRequest.Status.FAILED;
+
+/**
+ * Base class of the assignment strategies, which collect the requests in a request buffer and process the buffer at
+ * every "ProcessRequestBuffer"-Event. Requests which could not be assigned are re-added to the request buffer, if
+ * they have not exceeded the maximum waiting time at the next processing, else they are logged as failed requests.
+ * Requests which were deferred because the assignment deadline was exceeded are re-added in the same way, also if
+ * repeated assignment is disabled, as no assignment was tried for them.
+ *
+ * @author Manfred Klöppel
+ */
+public abstract class BufferedAssignmentStrategy implements AssignmentStrategyInterface {
+
+    protected Scenario scenario;
+    protected ArrayList<User.TripRequest> requestBuffer;
+    protected AssignmentStatistics statistics = new AssignmentStatistics();
+
+    protected BufferedAssignmentStrategy(Scenario scenario) {
+        this.scenario = scenario;
+        requestBuffer = new ArrayList<>();
+    }
+
+    /**
+     * Requests are added to a buffer, which will be processed at every "ProcessRequestBuffer"-Event
+     *
+     * @param userRequest is a request with a request time
+     */
+    @Override
+    public void processNewRequest(User.TripRequest userRequest) {
+        requestBuffer.add(userRequest);
+        Logger.trace("Added RequestID {} to RequestBuffer", userRequest.getRequestID());
+    }
+
+    /**
+     * Replaces the content of the request buffer with the requests, which could not be assigned. Requests which have
+     * not exceeded the maximum waiting time at the next processing are re-added to the request buffer, if repeated
+     * assignment is enabled, else they are logged as failed requests.
+     *
+     * @param unassignedRequests Requests, which could not be assigned
+     */
+    protected void requeueUnassignedRequests(Collection<User.TripRequest> unassignedRequests) {
+        requeueUnassignedRequests(unassignedRequests, Collections.emptyList());
+    }
+
+    /**
+     * Replaces the content of the request buffer with the requests, which could not be assigned, and the requests,
+     * which were deferred to the next processing. Unassigned requests are handled as in
+     * requeueUnassignedRequests(Collection). Deferred requests are re-added to the request buffer independent of the
+     * repeated assignment, unless they exceed the maximum waiting time at the next processing.
+     *
+     * @param unassignedRequests Requests, which could not be assigned
+     * @param deferredRequests   Requests, for which no assignment was tried
+     */
+    protected void requeueUnassignedRequests(Collection<User.TripRequest> unassignedRequests,
+                                             Collection<User.TripRequest> deferredRequests) {
+        ArrayList<User.TripRequest> requests = new ArrayList<>(unassignedRequests);
+        ArrayList<User.TripRequest> deferred = new ArrayList<>(deferredRequests);
+        requestBuffer.clear();
+        for (User.TripRequest request : requests) {
+            if (!Config.REPEATED_ASSIGNMENT || isExpiredAtNextProcessing(request)) {
+                logFailedBooking(request);
+            } else {
+                requestBuffer.add(request);
+            }
+        }
+        for (User.TripRequest request : deferred) {
+            if (isExpiredAtNextProcessing(request)) {
+                logFailedBooking(request);
+            } else {
+                requestBuffer.add(request);
+            }
+        }
+    }
+
+    /**
+     * @return true, if the request exceeds the maximum waiting time before the next processing of the request buffer
+     */
+    protected boolean isExpiredAtNextProcessing(User.TripRequest request) {
+        SimTime latestAssignment = new SimTime(request.getRequestStart(), Config.MAX_WAITING_TIME_SECONDS * 1000);
+        SimTime nextAssignment = new SimTime(SimTime.now(), Config.REQUEST_BUFFER_SECONDS * 1000);
+        return latestAssignment.isLessOrEqualThan(nextAssignment);
+    }
+
+    /**
+     * Log a failed travel-request
+     */
+    protected void logFailedBooking(User.TripRequest failedRequest) {
+        failedRequest.travelRequestStatus = FAILED;
+        failedRequest.getUser().setStatus(SimObjectStatus.USER_IDLE);
+        DBLog.dbTableTrips.addLogEntry(new DBTableEntry.Builder()
+                .bookingID(failedRequest.getRequestID())
+                .personID(failedRequest.getUser().getId())
+                .additionalPassengers(failedRequest.getRequestAdditionalPersons())
+                .origStartTime(failedRequest.getRequestStart())
+                .origStopTime(failedRequest.getRequestEnd())
+                .origStartPosition(failedRequest.getOriginalRequestOrigin())
+                .origStopPosition(failedRequest.getOriginalRequestDestination())
+                .origDistanceKM(failedRequest.getRequestDistance())
+                .origDurationMIN(failedRequest.getRequestDuration())
+                .status(failedRequest.travelRequestStatus.toString())
+                .bookingWasShared(false)
+                .build());
+        scenario.incFailedRequestsCnt();
+    }
+
+    /**
+     * Processes the requests in the order of the list until the deadline is exceeded and records the processing time
+     * of each request as its latency. All requests are processed in one stream. Each element of the stream takes the
+     * next request of the list, so that parallel strategies also start the requests in the order of the list without
+     * waiting for each other. The deadline is checked by the worker before a request is started, requests which are
+     * started after the deadline was exceeded are skipped and returned.
+     * Has to be called within executeStage().
+     *
+     * @param orderedRequests Requests in the order of their processing (see AssignmentDeadline.orderRequests())
+     * @param deadline        Deadline of the processing of the request buffer
+     * @param action          Processing of a single request
+     * @return Requests, which were not processed before the deadline was exceeded
+     */
+    protected List<User.TripRequest> processRequestsWithinDeadline(List<User.TripRequest> orderedRequests,
+                                                                   AssignmentDeadline deadline,
+                                                                   Consumer<User.TripRequest> action) {
+        AtomicInteger nextRequest = new AtomicInteger(0);
+        List<User.TripRequest> deferredRequests = Collections.synchronizedList(new ArrayList<>());
+
+        createStream(orderedRequests).forEach(ignored -> {
+            User.TripRequest request = orderedRequests.get(nextRequest.getAndIncrement());
+            if (deadline.isExceeded()) {
+                deferredRequests.add(request);
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            action.accept(request);
+            statistics.addRequestLatency((System.nanoTime() - startNanos) / 1_000_000);
+        });
+
+        statistics.incDeferredRequests(deferredRequests.size());
+        return new ArrayList<>(deferredRequests);
+    }
+
+    /**
+     * Specifies on how to create a stream on a collection. Can specify a parallel or sequential stream.
+     */
+    public abstract <T> Stream<T> createStream(Collection<T> collection);
+
+    /**
+     * Executes a stage of the assignment. Parallel strategies execute the stage in the AssignmentExecutor, so that all
+     * parallel streams of the stage use the threads of the executor. Sequential strategies execute the stage in the
+     * current thread.
+     */
+    public void executeStage(String stage, Runnable task) {
+        if (isParallel()) {
+            AssignmentExecutor.getInstance().execute(stage, task);
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * @return true, if the sub-class creates parallel streams
+     */
+    private boolean isParallel() {
+        return createStream(Collections.emptyList()).isParallel();
+    }
+
+    /**
+     * @return Map with assignment statistics, including the metrics of the AssignmentExecutor for parallel strategies
+     */
+    public Map<String, Long> getAssignmentStatistics() {
+        Map<String, Long> statisticsMap = statistics.getStatisticsMap();
+        if (isParallel()) statisticsMap.putAll(AssignmentExecutor.getInstance().getStageMetricsMap());
+        return statisticsMap;
+    }
+}
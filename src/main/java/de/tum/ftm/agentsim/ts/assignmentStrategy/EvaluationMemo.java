@@ -0,0 +1,119 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memo of the evaluation results (plans) of vehicle/request pairs. The results are stored per request, vehicle and
+ * state version of the vehicle schedule, on which the evaluation was done. As the schedule of a vehicle only changes
+ * with its state version, a stored result is valid, as long as the state version of the vehicle did not change:
+ * - Feasible results: A plan starts at the simulation time of its evaluation, unless the vehicle is at a stop. At a
+ *   later simulation time, the plan and all its stops are delayed to the current time. The delayed plan is only used,
+ *   if the latest times of all stops are still kept (RoutePlan.delayToCurrentTime()), else the pair is evaluated
+ *   again.
+ * - Infeasible results (null): A later start of the schedule only delays the stops, so the pair stays infeasible.
+ * Results of evaluations, which failed with an exception (e.g. a routing error), are not stored.
+ *
+ * @author Manfred Klöppel
+ */
+public class EvaluationMemo {
+
+    private ConcurrentHashMap<MemoKey, MemoEntry> memo = new ConcurrentHashMap<>();
+
+
+    /**
+     * Returns the stored result of a vehicle/request pair, if it is still valid
+     *
+     * @param request  Travel-request
+     * @param schedule Current schedule of the vehicle
+     * @return Valid memo entry, or null, if no valid result is stored
+     */
+    public MemoEntry lookup(User.TripRequest request, VehicleSchedule schedule) {
+        MemoEntry entry = memo.get(new MemoKey(request, schedule));
+        if (entry == null || entry.plan == null) return entry;
+
+        RoutePlan plan = entry.plan.delayToCurrentTime();
+        if (plan == null) return null;
+        return (plan == entry.plan) ? entry : new MemoEntry(plan);
+    }
+
+    /**
+     * Stores the evaluation result of a vehicle/request pair
+     *
+     * @param request  Travel-request
+     * @param schedule Schedule of the vehicle, on which the evaluation was done
+     * @param plan     Result of the evaluation, null if the pair is infeasible
+     */
+    public void store(User.TripRequest request, VehicleSchedule schedule, RoutePlan plan) {
+        memo.put(new MemoKey(request, schedule), new MemoEntry(plan));
+    }
+
+    /**
+     * Removes the results of all requests, which are not contained in the provided collection (e.g. requests, which
+     * were assigned or failed), and the results of outdated state versions of the vehicles
+     *
+     * @param requests Requests, whose results should be kept
+     */
+    public void retainRequests(Collection<User.TripRequest> requests) {
+        Set<Long> requestIDs = new HashSet<>();
+        requests.forEach(request -> requestIDs.add(request.getRequestID()));
+        memo.keySet().removeIf(key -> !requestIDs.contains(key.requestID) ||
+                key.schedule.getVehicle().getStateVersion() != key.schedule.getStateVersion());
+    }
+
+
+    /**
+     * Key of a result: request, vehicle and state version of the vehicle schedule
+     */
+    private static class MemoKey {
+        private long requestID;
+        private long vehicleID;
+        private long stateVersion;
+        private VehicleSchedule schedule;
+
+        MemoKey(User.TripRequest request, VehicleSchedule schedule) {
+            this.requestID = request.getRequestID();
+            this.vehicleID = schedule.getVehicleId();
+            this.stateVersion = schedule.getStateVersion();
+            this.schedule = schedule;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof MemoKey)) return false;
+            MemoKey other = (MemoKey) obj;
+            return requestID == other.requestID && vehicleID == other.vehicleID && stateVersion == other.stateVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(requestID);
+            result = 31 * result + Long.hashCode(vehicleID);
+            return 31 * result + Long.hashCode(stateVersion);
+        }
+    }
+
+    /**
+     * Evaluation result of a vehicle/request pair
+     */
+    public static class MemoEntry {
+        private RoutePlan plan;
+
+        MemoEntry(RoutePlan plan) {
+            this.plan = plan;
+        }
+
+        /**
+         * @return Plan of the pair, or null, if the pair is infeasible
+         */
+        public RoutePlan getPlan() {
+            return plan;
+        }
+    }
+}
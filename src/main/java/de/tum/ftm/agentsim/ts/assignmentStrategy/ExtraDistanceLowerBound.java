@@ -0,0 +1,101 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
+import de.tum.ftm.agentsim.ts.routing.RoutingException;
+import de.tum.ftm.agentsim.ts.routing.RoutingLowerBound;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.Position;
+
+/**
+ * Cheap lower bound of the extra VMT of the assignment of a travel-request to a vehicle, which can be used to order
+ * and prune the candidate vehicles before any VRP is built. The bound is calculated from the lower bounds of the
+ * travel distances (RoutingLowerBound) between the current vehicle position, the open stops of the schedule and the
+ * pickup/drop-off locations:
+ * - Empty vehicle: The vehicle has to drive to the pickup location and from there to the drop-off location
+ * - Vehicle with open stops, if the solver keeps the order of the planned stops: The pickup and the drop-off location
+ *   each need a detour between two consecutive stops or have to be appended after the last stop. The larger of the
+ *   two minimal detours is a lower bound of the total detour, as the routed distances are shortest path distances.
+ *   The detour between two stops is the lower bound of the distance via the location minus the routed distance
+ *   between the two stops. The routed distance is only available from the CityGrid, without the CityGrid a detour of
+ *   zero is assumed between two stops.
+ * - Vehicle with open stops, if the solver may reorder the planned stops: The reordering can shorten the route, so
+ *   that no lower bound exists and the vehicle is never pruned.
+ *
+ * @author Manfred Klöppel
+ */
+public class ExtraDistanceLowerBound {
+
+    private static CityGridRouter gridRouter = CityGridRouter.getInstance();
+
+    private ExtraDistanceLowerBound() {}
+
+
+    /**
+     * Calculates the lower bound of the extra VMT of the assignment of a new travel-request to a vehicle
+     *
+     * @param schedule      Schedule of the vehicle
+     * @param request       New travel-request
+     * @param keepStopOrder True, if the solver keeps the order of the stops already planned for the vehicle
+     * @return Lower bound of the extra VMT in km, negative infinity, if no lower bound exists
+     */
+    public static double calcLowerBoundKM(VehicleSchedule schedule, User.TripRequest request, boolean keepStopOrder) {
+        Position origin = request.getOriginalRequestOrigin();
+        Position destination = request.getOriginalRequestDestination();
+
+        Position vehiclePosition = schedule.getPosition();
+        double lowerBoundM;
+        if (schedule.getStopCount() == 0) {
+            lowerBoundM = RoutingLowerBound.calcDistanceM(vehiclePosition, origin) +
+                    RoutingLowerBound.calcDistanceM(origin, destination);
+        } else if (keepStopOrder) {
+            lowerBoundM = Math.max(
+                    calcMinDetourM(vehiclePosition, schedule, origin),
+                    calcMinDetourM(vehiclePosition, schedule, destination));
+        } else {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return lowerBoundM / 1000;
+    }
+
+
+    /**
+     * Calculates the lower bound of the minimal detour to visit a position between two consecutive stops of the
+     * schedule or after the last stop
+     *
+     * @return Minimal detour in meters
+     */
+    private static double calcMinDetourM(Position vehiclePosition, VehicleSchedule schedule, Position position) {
+        double minDetourM = Double.MAX_VALUE;
+        for (int i = 0; i <= schedule.getStopCount() && minDetourM > 0; i++) {
+            Position prevPosition = (i == 0) ? vehiclePosition : schedule.getStopPosition(i - 1);
+            double toPositionM = RoutingLowerBound.calcDistanceM(prevPosition, position);
+
+            if (i == schedule.getStopCount()) {
+                minDetourM = Math.min(minDetourM, toPositionM);
+            } else {
+                Position nextPosition = schedule.getStopPosition(i);
+                double detourM = toPositionM + RoutingLowerBound.calcDistanceM(position, nextPosition) -
+                        routedDistanceM(prevPosition, nextPosition);
+                minDetourM = Math.min(minDetourM, Math.max(0, detourM));
+            }
+        }
+        return minDetourM;
+    }
+
+
+    /**
+     * @return Routed distance between two positions from the CityGrid in meters, or infinity, if no distance is
+     * available
+     */
+    private static double routedDistanceM(Position from, Position to) {
+        if (from.equals(to)) return 0;
+        if (!Config.USE_GRID_ROUTER) return Double.POSITIVE_INFINITY;
+        try {
+            return gridRouter.calculateGridDistance(from, to);
+        } catch (RoutingException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.routing.RoutingLowerBound;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+
+/**
+ * Cheap feasibility check for a vehicle/request pair, which is applied before any VRP is built. The check is
+ * based on the schedule of the vehicle (arrival times and forward time slack of all open stops), the capacity
+ * of the vehicle and lower bounds of the travel durations (RoutingLowerBound). As the travel durations of a feasible
+ * route are not shorter than the lower bounds, only pairs without a feasible route are rejected and the assignment
+ * results are the same as without the pre-check.
+ *
+ * The following checks are done:
+ * - Capacity: The persons of the request fit into the vehicle
+ * - Pickup: The pickup location can be reached from the current vehicle position before the latest pickup time
+ * - Drop-off: In Alonso-Mora mode, the direct trip can be completed before the latest drop-off time
+ * - Insertion: If the order of the planned stops is kept by the solver, a position exists, where the pickup can be
+ *              inserted without exceeding the capacity, the latest pickup time and the forward time slack of the
+ *              following stops
+ *
+ * @author Manfred Klöppel
+ */
+public class FeasibilityPreCheck {
+
+    private FeasibilityPreCheck() {}
+
+
+    /**
+     * Checks if a feasible route might exist for the assignment of a new travel-request to a vehicle.
+     *
+     * @param schedule      Schedule of the vehicle
+     * @param request       New travel-request
+     * @param keepStopOrder True, if the solver keeps the order of the stops already planned for the vehicle
+     * @return false, if the pair is infeasible, else true
+     */
+    public static boolean isPossiblyFeasible(VehicleSchedule schedule, User.TripRequest request, boolean keepStopOrder) {
+        // Capacity check
+        int persons = request.getTotalPersons();
+        if (persons > schedule.getCapacity()) return false;
+
+        Position origin = request.getOriginalRequestOrigin();
+        Position destination = request.getOriginalRequestDestination();
+        long pickupLatestMillis = request.calcTripPickupLatestMillis();
+        long serviceDurationMS = new RoutePlan.PlannedStop(RouteStep.StepType.PICKUP, request).getServiceDurationMS();
+
+        // Pickup check: The vehicle has to travel from its current position to the pickup location
+        long startTimeMillis = Math.max(SimTime.now().getTimeMillis(), schedule.getStartTimeMillis());
+        Position vehiclePosition = schedule.getPosition();
+        long earliestPickupMillis = startTimeMillis + RoutingLowerBound.calcDurationMS(vehiclePosition, origin);
+        if (earliestPickupMillis > pickupLatestMillis) return false;
+
+        // Drop-off check: In Alonso-Mora mode the latest drop-off time does not depend on the pickup time
+        if (Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE) {
+            long earliestDropoffMillis = earliestPickupMillis + serviceDurationMS + RoutingLowerBound.calcDurationMS(origin, destination);
+            if (earliestDropoffMillis > request.calcTripDropoffLatestMillis(earliestPickupMillis)) return false;
+        }
+
+        if (!keepStopOrder || schedule.getStopCount() == 0) return true;
+
+        // Insertion check: Try to insert the pickup before each of the planned stops or at the end of the schedule
+        for (int i = 0; i <= schedule.getStopCount(); i++) {
+            if (schedule.getLoadBeforeStop(i) + persons > schedule.getCapacity()) continue;
+
+            Position prevPosition = (i == 0) ? vehiclePosition : schedule.getStopPosition(i - 1);
+            long prevDepartureMillis = (i == 0) ? startTimeMillis : schedule.getDepartureMillis(i - 1);
+
+            long toPickupMS = RoutingLowerBound.calcDurationMS(prevPosition, origin);
+            if (prevDepartureMillis + toPickupMS > pickupLatestMillis) continue;
+
+            // Pickup at the end of the schedule does not delay any planned stop
+            if (i == schedule.getStopCount()) return true;
+
+            // Minimum delay of the following stops due to the detour to the pickup location
+            long plannedLegMS = schedule.getArrivalMillis(i) - prevDepartureMillis;
+            long minDetourMS = toPickupMS + serviceDurationMS +
+                    RoutingLowerBound.calcDurationMS(origin, schedule.getStopPosition(i)) - plannedLegMS;
+            if (minDetourMS <= schedule.getForwardSlackMS(i)) return true;
+        }
+        return false;
+    }
+}
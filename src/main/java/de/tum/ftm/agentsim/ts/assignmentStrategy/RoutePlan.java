@@ -0,0 +1,403 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepEnroute;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepStationary;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+import org.pmw.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Lightweight representation of a planned vehicle route. A RoutePlan only contains the ordered sequence of
+ * pickup/drop-off stops and the estimated distance and duration of the sequence. The complete Route (including the
+ * routed tracks of all RouteStepEnroutes) is only created when the plan is materialized.
+ * A plan is created on the schedule of a vehicle and only reads the state of the vehicle from this schedule. The state
+ * version of the schedule is used to commit the materialized route to the vehicle.
+ * The origin of a plan identifies the solver, which created the stop sequence.
+ *
+ * @author Manfred Klöppel
+ */
+public class RoutePlan {
+
+    private Vehicle vehicle;
+    private VehicleSchedule schedule;                   // Schedule of the vehicle, on which the plan is based
+    private int capacity;
+    private ArrayList<User.TripRequest> newRequests;    // Requests of this plan, which are not yet assigned to the vehicle
+    private ArrayList<PlannedStop> stops;                // Ordered sequence of pickups/drop-offs
+    private Origin origin;
+
+    // Start conditions of the plan
+    private Position startPosition;
+    private long startTimeMillis;
+    private int startLoad;                              // Number of persons on-board at the start of the plan
+
+    // Estimated values of the plan
+    private double distanceM;
+    private long durationMS;
+    private double cost;
+    private double baseDistanceM;                       // Estimated distance of the stop sequence without the new requests
+    private long timeSlackMS;                           // Delay of the start, which keeps the latest times of all stops
+
+
+    private RoutePlan(Vehicle vehicle, VehicleSchedule schedule, int capacity, Position startPosition,
+                      long startTimeMillis, int startLoad) {
+        this.vehicle = vehicle;
+        this.schedule = schedule;
+        this.capacity = capacity;
+        this.startPosition = startPosition;
+        this.startTimeMillis = startTimeMillis;
+        this.startLoad = startLoad;
+        this.newRequests = new ArrayList<>();
+        this.stops = new ArrayList<>();
+    }
+
+    /**
+     * Creates a new plan from a base plan with a new stop sequence, which includes the stops of an additional request
+     *
+     * @param basePlan   Plan, which the new request was inserted to
+     * @param stops      New stop sequence
+     * @param newRequest Request, which was inserted
+     * @param distanceM  Estimated distance of the new stop sequence in meters
+     * @param durationMS Estimated duration of the new stop sequence in milliseconds
+     * @param cost       Cost of the new stop sequence
+     */
+    public RoutePlan(RoutePlan basePlan, ArrayList<PlannedStop> stops, User.TripRequest newRequest,
+                     double distanceM, long durationMS, double cost) {
+        this(basePlan.vehicle, basePlan.schedule, basePlan.capacity, basePlan.startPosition, basePlan.startTimeMillis,
+                basePlan.startLoad);
+        this.newRequests.addAll(basePlan.newRequests);
+        this.newRequests.add(newRequest);
+        this.stops = stops;
+        this.distanceM = distanceM;
+        this.durationMS = durationMS;
+        this.cost = cost;
+        this.baseDistanceM = basePlan.newRequests.isEmpty() ? basePlan.distanceM : basePlan.baseDistanceM;
+        this.origin = Origin.INSERTION;
+    }
+
+    /**
+     * Creates a new plan for the schedule of a vehicle with a stop sequence determined by the jSprit-solver, which
+     * includes the stops of a new request
+     *
+     * @param schedule      Schedule of the vehicle of the plan
+     * @param stops         Stop sequence
+     * @param newRequest    Request, which was inserted
+     * @param distanceM     Estimated distance of the stop sequence in meters
+     * @param durationMS    Estimated duration of the stop sequence in milliseconds
+     * @param cost          Cost of the stop sequence
+     * @param baseDistanceM Estimated distance of the current stop sequence of the vehicle in meters
+     */
+    public RoutePlan(VehicleSchedule schedule, ArrayList<PlannedStop> stops, User.TripRequest newRequest,
+                     double distanceM, long durationMS, double cost, double baseDistanceM) {
+        this(schedule.getVehicle(), schedule, schedule.getCapacity(), schedule.getPosition().copyPosition(),
+                calcStartTimeMillis(schedule), schedule.getStartLoad());
+        this.newRequests.add(newRequest);
+        this.stops = stops;
+        this.distanceM = distanceM;
+        this.durationMS = durationMS;
+        this.cost = cost;
+        this.baseDistanceM = baseDistanceM;
+        this.origin = Origin.JSPRIT;
+    }
+
+
+    /**
+     * Creates the plan of the schedule of a vehicle, which contains all open pickups/drop-offs of the requests
+     * already assigned to the vehicle in the order of the current route. If the vehicle is currently at a
+     * pickup/drop-off, the plan starts after the current RouteStep is completed.
+     *
+     * @param schedule Schedule of the vehicle of which the plan is created
+     * @return Plan of the vehicle, or null, if the current route of the vehicle does not match its assigned requests
+     */
+    public static RoutePlan createFromSchedule(VehicleSchedule schedule) {
+        RoutePlan plan = new RoutePlan(schedule.getVehicle(), schedule, schedule.getCapacity(),
+                schedule.getPosition().copyPosition(), calcStartTimeMillis(schedule), schedule.getStartLoad());
+
+        // Add all open stops in the order of the current route
+        for (int k = 0; k < schedule.getStopCount(); k++) {
+            User.TripRequest request = schedule.getStopRequest(k);
+            if (request == null) return null;
+
+            plan.stops.add(new PlannedStop(schedule.getStopType(k), request));
+        }
+
+        return plan.stops.size() == schedule.getOpenStopCount() ? plan : null;
+    }
+
+    /**
+     * Creates an empty plan of a virtual vehicle, which has the same capacity as the provided vehicle, but starts
+     * empty at the provided position and time. Can be used to check if requests can be shared in the same vehicle.
+     * A virtual plan must not be materialized.
+     *
+     * @param vehicle         Vehicle, which provides the capacity of the virtual vehicle
+     * @param startPosition   Start position of the virtual vehicle
+     * @param startTimeMillis Start time of the virtual vehicle
+     * @return Empty plan of the virtual vehicle
+     */
+    public static RoutePlan createVirtual(Vehicle vehicle, Position startPosition, long startTimeMillis) {
+        return new RoutePlan(vehicle, null, vehicle.getCapacity(), startPosition, startTimeMillis, 0);
+    }
+
+    /**
+     * If current RouteStep is not interruptible (e.g. Pickup/Dropoff), a plan starts after current RouteStep finished
+     *
+     * @return Start time of a plan for the schedule in milliseconds
+     */
+    private static long calcStartTimeMillis(VehicleSchedule schedule) {
+        return schedule.isStartAfterCurrentStep() ? schedule.getStartTimeMillis() : SimTime.now().getTimeMillis();
+    }
+
+
+    /**
+     * Creates the complete Route of the plan. The validity of the route is checked according to the time limits
+     * for picking-up/dropping-off of all requests on the route.
+     *
+     * @return Null, if no valid route can be created, else the route is returned
+     */
+    public Route materialize() {
+        try {
+            // Create a temporary map which holds a copy of all requests
+            HashMap<Long, User.TripRequest> tempRequestMap = new HashMap<>();
+            if (schedule != null) {
+                schedule.getRequests().forEach(request -> tempRequestMap.put(request.getRequestID(), new User.TripRequest(request)));
+            }
+            for (User.TripRequest newRequest : newRequests) {
+                User.TripRequest tempUserRequest = new User.TripRequest(newRequest);
+                tempUserRequest.setBookingPickupLatest(vehicle, true);
+                tempRequestMap.put(tempUserRequest.getRequestID(), tempUserRequest);
+            }
+
+            Route route = new Route(new SimTime(startTimeMillis));
+
+            // Previous stop position is the start position of the plan
+            Position prevStopPosition = startPosition.copyPosition();
+            RouteStep.StepType prevStepType = RouteStep.StepType.ENROUTE;
+
+            for (PlannedStop stop : stops) {
+                Position stopPosition = stop.getPosition();
+
+                // Append RouteStepEnroute for Route from previous stop to current stop. If the leg was already routed
+                // by the solver, no additional routing is required
+                // If distance is less than 50 m, no route is added, instead it is assumed that the two actions happen at the same point
+                RouteStepEnroute rste = (stop.getLegTrack() != null) ?
+                        new RouteStepEnroute(stop.getLegTrack(), RouteStep.StepType.ENROUTE) :
+                        new RouteStepEnroute(prevStopPosition, stopPosition, RouteStep.StepType.ENROUTE);
+                if (!(rste.getDistanceM() < 50 && !(prevStepType == RouteStep.StepType.ENROUTE))) {
+                    route.appendRouteStep(rste, true);
+                }
+                // Replace stop position with actual position on road
+                stopPosition = rste.getEndPosition().copyPosition();
+
+                // Append RouteStepStationary to Route
+                RouteStepStationary rsts = new RouteStepStationary(
+                        SimTime.now(), stop.getServiceDurationMS(),
+                        stop.getStepType(), stopPosition, stop.getRequest().getRequestID());
+                route.appendRouteStep(rsts, true);
+
+                // Verify timestamps of last added RouteStepStationary
+                User.TripRequest currentRequest = tempRequestMap.get(rsts.getRequestID());
+                switch (rsts.getStepType()) {
+                    case PICKUP:
+                        if (rsts.getStartTime().isGreaterThan(currentRequest.getTripPickupLatest())) {
+                            return null;
+                        }
+                        if (!currentRequest.wasPickedUp()) currentRequest.pickup(vehicle.getId(), rsts.getEndTime(), stopPosition, true);
+                        break;
+                    case DROPOFF:
+                        if (rsts.getStartTime().isGreaterThan(currentRequest.getTripDropoffLatest())) {
+                            return null;
+                        }
+                        break;
+                }
+
+                prevStopPosition = stopPosition;
+                prevStepType = stop.getStepType();
+            }
+
+            return route;
+        } catch (IOException e) {
+            Logger.error(e);
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the plan for an evaluation on the same schedule of the vehicle at the current simulation time. The
+     * start of a plan, which starts at the simulation time of its evaluation, is delayed to the current simulation
+     * time together with all stops. The delayed plan is only returned, if the delay does not exceed the time slack of
+     * the plan, i.e. the latest pickup/drop-off times of all stops are still kept.
+     *
+     * @return Plan starting at the current start time of the schedule, or null, if the time slack is exceeded
+     */
+    public RoutePlan delayToCurrentTime() {
+        long delayMS = calcStartTimeMillis(schedule) - startTimeMillis;
+        if (delayMS == 0) return this;
+        if (delayMS > timeSlackMS) return null;
+
+        RoutePlan plan = new RoutePlan(vehicle, schedule, capacity, startPosition, startTimeMillis + delayMS, startLoad);
+        plan.newRequests.addAll(newRequests);
+        plan.stops = stops;
+        plan.origin = origin;
+        plan.distanceM = distanceM;
+        plan.durationMS = durationMS;
+        plan.cost = cost;
+        plan.baseDistanceM = baseDistanceM;
+        plan.timeSlackMS = timeSlackMS - delayMS;
+        return plan;
+    }
+
+    /**
+     * Calculates the time, by which the arrival at a stop can be delayed without exceeding the latest time of the
+     * stop. Only the latest times, which do not move with the start of the plan, are considered: The latest pickup
+     * time, the latest drop-off time of requests already on-board and, in Alonso-Mora mode, the latest drop-off time
+     * of all requests. Other drop-offs are delayed together with their pickup.
+     *
+     * @param stop          Stop of a plan
+     * @param arrivalMillis Estimated arrival time at the stop
+     * @return Time slack of the stop in milliseconds
+     */
+    public static long calcStopSlackMS(PlannedStop stop, long arrivalMillis) {
+        User.TripRequest request = stop.getRequest();
+        if (stop.getStepType() == RouteStep.StepType.PICKUP) {
+            return request.calcTripPickupLatestMillis() - arrivalMillis;
+        } else if (request.wasPickedUp()) {
+            return request.getTripDropoffLatest().getTimeMillis() - arrivalMillis;
+        } else if (Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE) {
+            return request.calcTripDropoffLatestMillis(arrivalMillis) - arrivalMillis;
+        }
+        return Long.MAX_VALUE;
+    }
+
+
+    /**
+     * Sets the estimated values of the plan, e.g. after the evaluation of the stop sequence by a solver
+     */
+    public void setEstimates(double distanceM, long durationMS, double cost) {
+        this.distanceM = distanceM;
+        this.durationMS = durationMS;
+        this.cost = cost;
+    }
+
+
+    // --- GETTER & SETTERS
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+    public int getCapacity() {
+        return capacity;
+    }
+    public long getStateVersion() {
+        return schedule.getStateVersion();
+    }
+    public List<User.TripRequest> getNewRequests() {
+        return Collections.unmodifiableList(newRequests);
+    }
+    public List<PlannedStop> getStops() {
+        return Collections.unmodifiableList(stops);
+    }
+    public Position getStartPosition() {
+        return startPosition;
+    }
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+    public int getStartLoad() {
+        return startLoad;
+    }
+    public double getDistanceM() {
+        return distanceM;
+    }
+    public double getDistanceKM() {
+        return distanceM / 1000;
+    }
+    public long getDurationMS() {
+        return durationMS;
+    }
+    public double getCost() {
+        return cost;
+    }
+    public double getBaseDistanceM() {
+        return baseDistanceM;
+    }
+    public double getExtraDistanceKM() {
+        return (distanceM - baseDistanceM) / 1000;
+    }
+    public long getTimeSlackMS() {
+        return timeSlackMS;
+    }
+    public void setTimeSlackMS(long timeSlackMS) {
+        this.timeSlackMS = timeSlackMS;
+    }
+    public Origin getOrigin() {
+        return origin;
+    }
+    public void setOrigin(Origin origin) {
+        this.origin = origin;
+    }
+
+
+    /**
+     * Solver, which created the stop sequence of a plan
+     */
+    public enum Origin {
+        DIRECT,             // Direct assignment to an empty vehicle
+        INSERTION,          // Insertion heuristic
+        JSPRIT,             // jSprit-solver
+        JSPRIT_FALLBACK     // jSprit-solver as fallback of the insertion heuristic
+    }
+
+
+    /**
+     * A single pickup or drop-off of a plan
+     */
+    public static class PlannedStop {
+        private RouteStep.StepType stepType;
+        private User.TripRequest request;
+        private long serviceDurationMS;
+        private RouteStepEnroute.EnrouteTrack legTrack;     // Routed track from the previous stop, if available
+
+        public PlannedStop(RouteStep.StepType stepType, User.TripRequest request) {
+            // Duration for pickup/dropoff in milliseconds
+            this(stepType, request, (Config.VEHICLE_PICKUP_DROPOFF_DELAY_SECONDS +
+                    Config.PICKUP_DROPOFF_DURATION_PER_PERSON_SECONDS * request.getTotalPersons()) * 1000, null);
+        }
+
+        public PlannedStop(RouteStep.StepType stepType, User.TripRequest request, long serviceDurationMS,
+                           RouteStepEnroute.EnrouteTrack legTrack) {
+            assert (stepType == RouteStep.StepType.PICKUP || stepType == RouteStep.StepType.DROPOFF): "PlannedStop must be PICKUP or DROPOFF";
+            this.stepType = stepType;
+            this.request = request;
+            this.serviceDurationMS = serviceDurationMS;
+            this.legTrack = legTrack;
+        }
+
+        public Position getPosition() {
+            return stepType == RouteStep.StepType.PICKUP ?
+                    request.getOriginalRequestOrigin() : request.getOriginalRequestDestination();
+        }
+        public RouteStep.StepType getStepType() {
+            return stepType;
+        }
+        public User.TripRequest getRequest() {
+            return request;
+        }
+        public long getServiceDurationMS() {
+            return serviceDurationMS;
+        }
+        public RouteStepEnroute.EnrouteTrack getLegTrack() {
+            return legTrack;
+        }
+    }
+}
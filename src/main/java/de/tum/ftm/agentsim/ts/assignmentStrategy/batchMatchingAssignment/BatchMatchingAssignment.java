@@ -0,0 +1,217 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.batchMatchingAssignment;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.Scenario;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.BufferedAssignmentStrategy;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.AssignmentSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.VehicleListProvider;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.VehicleListProviderBuilder;
+import de.tum.ftm.agentsim.ts.routing.RoutingException;
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import org.pmw.tinylog.Logger;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * This assignment strategy processes all requests of the request buffer together. For each request all surrounding
+ * vehicles are searched and the plans for the assignment of the request to each of these vehicles are calculated.
+ * The extra VMT of the plans form a request x vehicle cost matrix, which is solved in one shot as linear assignment
+ * problem (each vehicle receives at most one request per buffer cycle). The matching maximizes the number of assigned
+ * requests and minimizes the total extra VMT.
+ * The calculation of the cost matrix can be done in parallel, only the assignment of the matched plans to the
+ * vehicles is done sequentially. If a matched plan cannot be materialized to a valid route, the next best plan of the
+ * request with a vehicle which was not matched in this cycle is used.
+ * The assignment deadline is not applied, as the matching requires the candidate plans of all requests.
+ *
+ * @author Manfred Klöppel
+ */
+public abstract class BatchMatchingAssignment extends BufferedAssignmentStrategy {
+
+    private AssignmentSolver assignmentSolver = new AssignmentSolver(statistics);
+
+    BatchMatchingAssignment(Scenario scenario) {
+        super(scenario);
+    }
+
+    /**
+     * Processes all requests in the request buffer if request buffer is not empty and logs failed travel-requests
+     */
+    public void processRequestBuffer() {
+        Logger.trace("Processing RequestBuffer");
+        if (requestBuffer.size() > 0) {
+            assignmentSolver.getSearchController().startTick();
+
+            // Delegate decision whether to use parallel or sequential stream to sub-class, calculate the candidate
+            // plans of all requests
+            List<RequestCandidates> allCandidates = new ArrayList<>();
+            executeStage("Candidate Calculation", () -> allCandidates.addAll(createStream(requestBuffer)
+                    .map(this::calculateCandidates)
+                    .collect(Collectors.toList())));
+
+            // Match requests to vehicles and assign the matched plans. Request which cannot be assigned are returned
+            ArrayList<User.TripRequest> assignmentResults = assignMatchedPlans(allCandidates);
+
+            // Re-Add requests to the request buffer which have not exceeded the maximum waiting time, else log as failed request
+            requeueUnassignedRequests(assignmentResults);
+
+            // Keep only the evaluation results of requests, which are processed again
+            assignmentSolver.retainEvaluationMemo(requestBuffer);
+
+            // Adapt the search effort for the next processing of the request buffer
+            assignmentSolver.getSearchController().endTick();
+        }
+    }
+
+    /**
+     * This method calculates the plans of all possible vehicle-assignments for a request.
+     *
+     * @param newRequest New travel-request, which should be assigned
+     * @return Request with all candidate plans
+     */
+    private RequestCandidates calculateCandidates(User.TripRequest newRequest) {
+        RequestCandidates candidates = new RequestCandidates(newRequest);
+
+        Logger.trace("Processing RequestID {}", newRequest.getRequestID());
+
+        // Get list of available vehicles using a VehicleListProvider according to Config
+        VehicleListProvider vehicleListProvider = VehicleListProviderBuilder.getVehicleListProvider(newRequest);
+        ArrayList<Vehicle> vehicleList = vehicleListProvider.getVehicleList(false);
+        Logger.trace("{} vehicles available after filter", vehicleList.size());
+
+        // Only the closest vehicles according to the adaptive candidate list size are evaluated. The rank of each
+        // vehicle in the list of the VehicleListProvider is stored for the adaptation of the candidate list size
+        int candidateListSize = assignmentSolver.getSearchController().getCandidateListSize();
+        if (vehicleList.size() > candidateListSize) vehicleList = new ArrayList<>(vehicleList.subList(0, candidateListSize));
+
+        // Calculate possible plans for selected vehicles
+        for (int rank = 0; rank < vehicleList.size(); rank++) {
+            Vehicle veh = vehicleList.get(rank);
+            candidates.ranks.put(veh, rank);
+            try {
+                RoutePlan newPlan = assignmentSolver.makeAssignmentPlan(veh, newRequest);
+                if (newPlan != null) candidates.plans.put(veh, newPlan);
+            } catch (Exception e) {
+                Logger.error(e);
+                Logger.error("Assignment Error because of Jsprit/Routing");
+                Logger.error("Vehicle {}, Request {}", veh.getId(), newRequest.getRequestID());
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Builds the request x vehicle cost matrix from the candidate plans, solves the assignment problem and assigns
+     * the matched plans to the vehicles.
+     *
+     * @param allCandidates Candidate plans of all requests
+     * @return List with all TravelRequests which could not be assigned
+     */
+    private ArrayList<User.TripRequest> assignMatchedPlans(List<RequestCandidates> allCandidates) {
+        ArrayList<User.TripRequest> returnList = new ArrayList<>();
+
+        // Index all vehicles which are candidate for any request
+        HashMap<Vehicle, Integer> vehicleIndexes = new HashMap<>();
+        ArrayList<Vehicle> vehicles = new ArrayList<>();
+        for (RequestCandidates candidates : allCandidates) {
+            for (Vehicle veh : candidates.plans.keySet()) {
+                if (!vehicleIndexes.containsKey(veh)) {
+                    vehicleIndexes.put(veh, vehicles.size());
+                    vehicles.add(veh);
+                }
+            }
+        }
+
+        // Build cost matrix with the extra VMT of each plan
+        double[][] costMatrix = new double[allCandidates.size()][vehicles.size()];
+        for (int i = 0; i < allCandidates.size(); i++) {
+            Arrays.fill(costMatrix[i], Double.POSITIVE_INFINITY);
+            for (Map.Entry<Vehicle, RoutePlan> entry : allCandidates.get(i).plans.entrySet()) {
+                costMatrix[i][vehicleIndexes.get(entry.getKey())] = entry.getValue().getExtraDistanceKM();
+            }
+        }
+
+        int[] matchedVehicles = HungarianSolver.solve(costMatrix);
+
+        // Vehicles which are matched to a request in this cycle
+        Set<Vehicle> unavailableVehicles = new HashSet<>();
+        for (int matchedVehicle : matchedVehicles) {
+            if (matchedVehicle >= 0) unavailableVehicles.add(vehicles.get(matchedVehicle));
+        }
+
+        // Commit phase: assign the matched plans to the vehicles
+        for (int i = 0; i < allCandidates.size(); i++) {
+            RequestCandidates candidates = allCandidates.get(i);
+            boolean requestIsAssigned = false;
+
+            if (matchedVehicles[i] >= 0) {
+                Vehicle veh = vehicles.get(matchedVehicles[i]);
+                requestIsAssigned = assignPlanToVehicle(veh, candidates);
+            }
+
+            // Try the remaining plans of vehicles, which are not matched in this cycle, ordered by extra VMT
+            if (!requestIsAssigned) {
+                List<Map.Entry<Vehicle, RoutePlan>> remainingPlans = candidates.plans.entrySet().stream()
+                        .filter(entry -> !unavailableVehicles.contains(entry.getKey()))
+                        .sorted(Comparator.comparingDouble(entry -> entry.getValue().getExtraDistanceKM()))
+                        .collect(Collectors.toList());
+                for (Map.Entry<Vehicle, RoutePlan> entry : remainingPlans) {
+                    requestIsAssigned = assignPlanToVehicle(entry.getKey(), candidates);
+                    if (requestIsAssigned) {
+                        unavailableVehicles.add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+
+            if (!requestIsAssigned) {
+                Logger.trace("No route was assigned for request {}", candidates.travelRequest.getRequestID());
+                returnList.add(candidates.travelRequest);
+            }
+        }
+        return returnList;
+    }
+
+    /**
+     * Materializes the plan to a complete Route and assigns the route to the vehicle
+     * @return true, if the request was assigned, else returns false
+     */
+    private boolean assignPlanToVehicle(Vehicle veh, RequestCandidates candidates) {
+        RoutePlan plan = candidates.plans.get(veh);
+        User.TripRequest travelRequest = candidates.travelRequest;
+        try {
+            Route route = assignmentSolver.materializePlan(plan);
+            if (route == null) {
+                Logger.trace("Plan of request {} for vehicle {} is not valid", travelRequest.getRequestID(), veh.getId());
+                return false;
+            }
+
+            veh.updateRoute(route);
+            veh.addRequestToVehicle(travelRequest);
+            assignmentSolver.getSearchController().recordWinningRank(candidates.ranks.get(veh));
+            Logger.trace("Request {} assigned to vehicle {} with extra VMT {}", travelRequest.getRequestID(), veh.getId(), plan.getExtraDistanceKM());
+
+            // Request was assigned
+            return true;
+        } catch (RoutingException e) {
+            Logger.error("Could not assign route to Vehicle {}, Request {}", veh.getId(), travelRequest.getRequestID());
+        }
+        return false;
+    }
+
+    /**
+     * Helper class to store a request with the plans for all candidate vehicles
+     */
+    private static class RequestCandidates {
+        private User.TripRequest travelRequest;
+        private HashMap<Vehicle, RoutePlan> plans = new HashMap<>();
+        private HashMap<Vehicle, Integer> ranks = new HashMap<>();      // Rank of the vehicles in the candidate list
+
+        RequestCandidates(User.TripRequest travelRequest) {
+            this.travelRequest = travelRequest;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.batchMatchingAssignment;
+
+import java.util.Arrays;
+
+/**
+ * Solver for the linear assignment problem (min-cost bipartite matching) using the Hungarian method with potentials.
+ * The cost matrix may be rectangular. Pairs which must not be matched are marked with Double.POSITIVE_INFINITY.
+ * The solver maximizes the number of matched pairs first and minimizes the total cost of the matched pairs second.
+ * Complexity is O(n^2 * m) with n = min(rows, columns) and m = max(rows, columns).
+ *
+ * @author Manfred Klöppel
+ */
+public class HungarianSolver {
+
+    private HungarianSolver() {}
+
+
+    /**
+     * Solves the assignment problem for the provided cost matrix
+     *
+     * @param costMatrix Cost matrix [rows][columns], infeasible pairs are Double.POSITIVE_INFINITY
+     * @return Array with the matched column for each row, or -1, if the row is not matched
+     */
+    public static int[] solve(double[][] costMatrix) {
+        int rows = costMatrix.length;
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        if (rows == 0 || costMatrix[0].length == 0) return result;
+        int columns = costMatrix[0].length;
+
+        // Replace infeasible pairs with a cost higher than any feasible matching, so that the number of feasible
+        // matched pairs is maximized first
+        double maxAbsCost = 0;
+        for (double[] row : costMatrix) {
+            for (double cost : row) {
+                if (!Double.isInfinite(cost)) maxAbsCost = Math.max(maxAbsCost, Math.abs(cost));
+            }
+        }
+        double infeasibleCost = (maxAbsCost + 1) * (Math.min(rows, columns) + 1) * 2;
+
+        // The algorithm requires rows <= columns, therefore transpose the matrix if required
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+        double[][] a = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double cost = transposed ? costMatrix[j][i] : costMatrix[i][j];
+                a[i][j] = Double.isInfinite(cost) ? infeasibleCost : cost;
+            }
+        }
+
+        int[] matchedColumns = solveRowsLessOrEqualColumns(a, n, m);
+
+        // Collect the result and remove infeasible pairs
+        for (int i = 0; i < n; i++) {
+            int j = matchedColumns[i];
+            if (j < 0 || a[i][j] >= infeasibleCost) continue;
+            if (transposed) result[j] = i;
+            else result[i] = j;
+        }
+        return result;
+    }
+
+
+    /**
+     * Hungarian method for a cost matrix with n <= m (1-based internal indexing)
+     *
+     * @return Array with the matched column for each row
+     */
+    private static int[] solveRowsLessOrEqualColumns(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];    // Potentials of rows
+        double[] v = new double[m + 1];    // Potentials of columns
+        int[] p = new int[m + 1];          // Row matched to column (0 = unmatched)
+        int[] way = new int[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            double[] minv = new double[m + 1];
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            boolean[] used = new boolean[m + 1];
+
+            // Search augmenting path for row i
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double cur = a[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            // Augment along the path
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] matchedColumns = new int[n];
+        Arrays.fill(matchedColumns, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) matchedColumns[p[j] - 1] = j - 1;
+        }
+        return matchedColumns;
+    }
+}
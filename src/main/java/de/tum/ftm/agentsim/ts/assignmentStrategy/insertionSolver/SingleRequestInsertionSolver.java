@@ -0,0 +1,235 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.insertionSolver;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan.PlannedStop;
+import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
+import de.tum.ftm.agentsim.ts.routing.GraphHopperRouter;
+import de.tum.ftm.agentsim.ts.routing.RoutingInterface;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectRoutable;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import org.pmw.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Exact insertion heuristic for a single vehicle and a single new travel-request. All possible insertion positions
+ * for the pickup and the drop-off of the new request are enumerated, while the order of the stops already planned
+ * for the vehicle is kept. Each stop sequence is checked for capacity, latest pickup, latest drop-off and maximum
+ * in-vehicle time. The feasible stop sequence with the lowest cost is returned.
+ * The cost of a stop sequence is defined as for the jSprit-vehicle (travel time in milliseconds plus distance in meters).
+ *
+ * @author Manfred Klöppel
+ */
+public class SingleRequestInsertionSolver {
+
+    // Router to determine travel durations and distances between stops
+    private RoutingInterface router = Config.USE_GRID_ROUTER ? CityGridRouter.getInstance() : GraphHopperRouter.getInstance();
+
+    // Leg cache of this solver instance to avoid repeated routing between the same positions
+    private HashMap<Position, HashMap<Position, Leg>> legCache = new HashMap<>();
+
+
+    public SingleRequestInsertionSolver() {}
+
+    /**
+     * Creates a solver, which uses the provided router instead of the configured router
+     */
+    public SingleRequestInsertionSolver(RoutingInterface router) {
+        this.router = router;
+    }
+
+
+    /**
+     * Determines the optimal insertion of a new request into the stop sequence of the schedule of a vehicle
+     *
+     * @param schedule   Schedule of the vehicle, which the new travel-request should be assigned to
+     * @param newRequest The new travel-request
+     * @return Plan with the optimal insertion, or null, if no feasible insertion exists
+     */
+    public RoutePlan solve(VehicleSchedule schedule, User.TripRequest newRequest) {
+        RoutePlan basePlan = RoutePlan.createFromSchedule(schedule);
+        if (basePlan == null) {
+            Logger.trace("Insertion: Route of vehicle {} does not match its requests", schedule.getVehicleId());
+            return null;
+        }
+
+        // Estimate the current stop sequence of the vehicle to determine the extra distance of the insertion. If the
+        // current stop sequence violates a constraint, no insertion can be feasible, as additional stops only delay
+        // the following stops
+        Evaluation baseEvaluation = evaluate(basePlan, basePlan.getStops());
+        if (baseEvaluation == null) {
+            Logger.trace("Insertion: Current stops of vehicle {} cannot be evaluated", schedule.getVehicleId());
+            return null;
+        }
+        basePlan.setEstimates(baseEvaluation.distanceM, baseEvaluation.durationMS, baseEvaluation.cost);
+        return insertRequest(basePlan, newRequest);
+    }
+
+
+    /**
+     * Determines the optimal insertion of a new request into the stop sequence of an existing plan
+     *
+     * @param basePlan   Plan, which the new request should be inserted to
+     * @param newRequest The new travel-request
+     * @return Plan with the optimal insertion, or null, if no feasible insertion exists
+     */
+    public RoutePlan insertRequest(RoutePlan basePlan, User.TripRequest newRequest) {
+        if (newRequest.getTotalPersons() > basePlan.getCapacity()) return null;
+
+        List<PlannedStop> stops = basePlan.getStops();
+        int stopCount = stops.size();
+
+        PlannedStop pickup = new PlannedStop(RouteStep.StepType.PICKUP, newRequest);
+        PlannedStop dropoff = new PlannedStop(RouteStep.StepType.DROPOFF, newRequest);
+
+        ArrayList<PlannedStop> bestSequence = null;
+        Evaluation bestEvaluation = null;
+
+        // Enumerate all insertion positions: pickup before stop i, drop-off before stop j (j >= i)
+        for (int i = 0; i <= stopCount; i++) {
+            for (int j = i; j <= stopCount; j++) {
+                ArrayList<PlannedStop> sequence = new ArrayList<>(stopCount + 2);
+                for (int k = 0; k <= stopCount; k++) {
+                    if (k == i) sequence.add(pickup);
+                    if (k == j) sequence.add(dropoff);
+                    if (k < stopCount) sequence.add(stops.get(k));
+                }
+
+                Evaluation evaluation = evaluate(basePlan, sequence);
+                if (evaluation != null && (bestEvaluation == null || evaluation.cost < bestEvaluation.cost)) {
+                    bestEvaluation = evaluation;
+                    bestSequence = sequence;
+                }
+            }
+        }
+
+        if (bestSequence == null) {
+            Logger.trace("Insertion: No solution found!");
+            return null;
+        }
+        RoutePlan plan = new RoutePlan(basePlan, bestSequence, newRequest,
+                bestEvaluation.distanceM, bestEvaluation.durationMS, bestEvaluation.cost);
+        plan.setTimeSlackMS(bestEvaluation.timeSlackMS);
+        return plan;
+    }
+
+
+    /**
+     * Simulates a stop sequence starting from the start conditions of a plan and checks all constraints
+     *
+     * @param basePlan Plan, which provides the start conditions
+     * @param sequence Stop sequence, which should be evaluated
+     * @return Evaluation of the sequence, or null, if any constraint is violated
+     */
+    private Evaluation evaluate(RoutePlan basePlan, List<PlannedStop> sequence) {
+        long time = basePlan.getStartTimeMillis();
+        Position position = basePlan.getStartPosition();
+        int load = basePlan.getStartLoad();
+        int capacity = basePlan.getCapacity();
+
+        double distanceM = 0;
+        long travelTimeMS = 0;
+        long timeSlackMS = Long.MAX_VALUE;
+
+        // Departure times of requests which are picked up within this sequence
+        HashMap<Long, Long> departures = new HashMap<>();
+
+        for (PlannedStop stop : sequence) {
+            Leg leg = getLeg(position, stop.getPosition());
+            if (leg == null) return null;
+
+            time += leg.durationMS;
+            travelTimeMS += leg.durationMS;
+            distanceM += leg.distanceM;
+            timeSlackMS = Math.min(timeSlackMS, RoutePlan.calcStopSlackMS(stop, time));
+
+            User.TripRequest request = stop.getRequest();
+            if (stop.getStepType() == RouteStep.StepType.PICKUP) {
+                if (time > request.calcTripPickupLatestMillis()) return null;
+
+                time += stop.getServiceDurationMS();
+                load += request.getTotalPersons();
+                if (load > capacity) return null;
+
+                departures.put(request.getRequestID(), time);
+            } else {
+                Long departure = departures.get(request.getRequestID());
+                if (departure != null) {
+                    // Request is picked up within this sequence
+                    if (time - departure > request.calcMaxTimeInVehicleMS()) return null;
+                    if (time > request.calcTripDropoffLatestMillis(departure)) return null;
+                } else {
+                    // Request is already on-board of the vehicle
+                    if (time > request.getTripDropoffLatest().getTimeMillis()) return null;
+                }
+
+                time += stop.getServiceDurationMS();
+                load -= request.getTotalPersons();
+            }
+            position = stop.getPosition();
+        }
+
+        return new Evaluation(travelTimeMS + distanceM, distanceM, time - basePlan.getStartTimeMillis(), timeSlackMS);
+    }
+
+
+    /**
+     * Returns the travel duration and distance between two positions. Results are cached for this solver instance.
+     *
+     * @return Leg between the positions, or null, if no route was found
+     */
+    private Leg getLeg(Position from, Position to) {
+        if (from.equals(to)) return new Leg(0, 0);
+
+        var legsFrom = legCache.computeIfAbsent(from, k -> new HashMap<>());
+        if (legsFrom.containsKey(to)) return legsFrom.get(to);
+
+        Leg leg = null;
+        try {
+            var route = router.calculateRoute(from, to, SimObjectRoutable.Type.CAR, 0);
+            leg = new Leg(route.getDurationMS(), route.getDistanceM());
+        } catch (Exception e) {
+            Logger.error(e);
+            Logger.error("Error while trying to route from {},{} to {},{}", from.getX(), from.getY(), to.getX(), to.getY());
+        }
+        legsFrom.put(to, leg);
+        return leg;
+    }
+
+
+    /**
+     * Travel duration and distance between two positions
+     */
+    private static class Leg {
+        private long durationMS;
+        private double distanceM;
+
+        Leg(long durationMS, double distanceM) {
+            this.durationMS = durationMS;
+            this.distanceM = distanceM;
+        }
+    }
+
+    /**
+     * Result of the evaluation of a stop sequence
+     */
+    private static class Evaluation {
+        private double cost;
+        private double distanceM;
+        private long durationMS;
+        private long timeSlackMS;
+
+        Evaluation(double cost, double distanceM, long durationMS, long timeSlackMS) {
+            this.cost = cost;
+            this.distanceM = distanceM;
+            this.durationMS = durationMS;
+            this.timeSlackMS = timeSlackMS;
+        }
+    }
+}
@@ -3,18 +3,15 @@ package de.tum.ftm.agentsim.ts.assignmentStrategy.jspritSolver;
 import com.graphhopper.jsprit.analysis.toolbox.AlgorithmSearchProgressChartListener;
 import com.graphhopper.jsprit.analysis.toolbox.Plotter;
 import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
-import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
-import com.graphhopper.jsprit.core.algorithm.state.StateId;
-import com.graphhopper.jsprit.core.algorithm.state.StateManager;
-import com.graphhopper.jsprit.core.algorithm.state.UpdateMaxTimeInVehicle;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
-import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
-import com.graphhopper.jsprit.core.problem.constraint.MaxTimeInVehicleConstraint;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.*;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl.Builder;
@@ -25,26 +22,28 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.Solutions;
 import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan;
 import de.tum.ftm.agentsim.ts.routing.GraphHopperRouter;
 import de.tum.ftm.agentsim.ts.routing.RoutingInterface;
-import de.tum.ftm.agentsim.ts.routing.route.Route;
 import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
 import de.tum.ftm.agentsim.ts.routing.route.RouteStepEnroute;
-import de.tum.ftm.agentsim.ts.routing.route.RouteStepStationary;
 import de.tum.ftm.agentsim.ts.simobjects.SimObjectRoutable;
 import de.tum.ftm.agentsim.ts.simobjects.User;
-import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
 import de.tum.ftm.agentsim.ts.utils.Position;
 import de.tum.ftm.agentsim.ts.utils.SimTime;
 import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
 import org.pmw.tinylog.Logger;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class to create and solve a VRP-Problem with a single vehicle and a single new travel-request.
+ * The routed legs between the locations of the VRP are stored in a leg table, so that the route of a solution can be
+ * created without additional routing. A solution is converted to a RoutePlan, which is only materialized to a
+ * complete Route if required. The leg table is filled with the legs of the current route of the vehicle and,
+ * if GraphHopper is used for the cost matrix, with the legs routed during the cost matrix construction.
  *
  * @author Manfred Klöppel, Alexander Schulz
  */
@@ -53,20 +52,57 @@ public class SingleRequestJSpritSolver {
     private AtomicInteger locationIndex = new AtomicInteger(0);
     private final int CAPACITY_INDEX = 0;
 
+    // Router to determine travel durations and distances of the cost matrix
+    private RoutingInterface router = Config.USE_GRID_ROUTER ? CityGridRouter.getInstance() : GraphHopperRouter.getInstance();
+
+    // Leg table of this VRP. Key is the combination of the location-indexes of start and end of the leg
+    private HashMap<Long, RouteStepEnroute.EnrouteTrack> legTable = new HashMap<>();
+    private HashMap<Long, Double> legDistancesM = new HashMap<>();
+
+    // Location-indexes of the stops of the current route of the vehicle in the order of the route
+    private ArrayList<Integer> routeStopLocationIndexes = new ArrayList<>();
+
+    // Location-indexes of the vehicle and of the pickups/drop-offs of all requests (key: request-ID)
+    private int vehicleLocationIndex;
+    private HashMap<Long, Integer> pickupLocationIndexes = new HashMap<>();
+    private HashMap<Long, Integer> dropoffLocationIndexes = new HashMap<>();
+
+    // Jobs of all requests (key: request-ID) and the jobs of the stops of the current route of the vehicle in the
+    // order of the route, which are used for the initial solution (warm start)
+    private HashMap<Long, Job> jobs = new HashMap<>();
+    private ArrayList<RouteStopJob> routeStopJobs = new ArrayList<>();
+
+    // Penalty of the initial solution for the unassigned new request
+    private static final double UNASSIGNED_JOB_PENALTY = 1e9;
+
+    // Iteration of the last solveVRP()-call, in which the best solution was found
+    private int lastImprovingIteration = 0;
+    private double bestIterationCost = Double.MAX_VALUE;
+
+
+    public SingleRequestJSpritSolver() {}
+
+    /**
+     * Creates a solver, which uses the provided router instead of the configured router
+     */
+    public SingleRequestJSpritSolver(RoutingInterface router) {
+        this.router = router;
+    }
+
     /**
      * Method to define/build the VRP problem. The vehicle and requests are replicated with the corresponding jSprit-
      * Objects. A travel-request which is already assigned to the vehicle, but has not yet been picked up is a
      * "Shipment". If the travel-request was already picked up, it is called a "Delivery".
      * During this step also the latest pickup/drop-off times are calculated
      *
-     * @param simVehicle The vehicle, which the new travel-request should be assigned to
+     * @param schedule   Schedule of the vehicle, which the new travel-request should be assigned to
      * @param newRequest The new travel-request
      * @return A jSprit VRP-Problem
      */
-    public VehicleRoutingProblem buildVRP(Vehicle simVehicle, User.TripRequest newRequest) {
+    public VehicleRoutingProblem buildVRP(VehicleSchedule schedule, User.TripRequest newRequest) {
 
         // Create a temporary array which holds a copy of the requests, so that modifications do not alter the original requests
-        ArrayList<User.TripRequest> tempUserRequestList = createTempVehRequestList(simVehicle, newRequest);
+        ArrayList<User.TripRequest> tempUserRequestList = createTempVehRequestList(schedule, newRequest);
 
         // Get all unique stops with the passenger count
         Map<Position, LocationRequestCount> locationMap = createRequestCountAtLocationMap(tempUserRequestList);
@@ -78,23 +114,30 @@ public class SingleRequestJSpritSolver {
         for (User.TripRequest request : tempUserRequestList) {
             if (!request.wasPickedUp()) {
                 // Request, which still needs to be picked up & dropped off -> create a shipment
-                shipmentList.add(makeShipment(request, locationMap));
+                Shipment shipment = makeShipment(request, locationMap);
+                shipmentList.add(shipment);
+                jobs.put(request.getRequestID(), shipment);
 
             } else if (request.wasPickedUp() && !request.wasDroppedOff()) {
                 // Request is onboard of the vehicle -> create a delivery
-                deliveriesList.add(makeDelivery(request, locationMap));
+                Delivery delivery = makeDelivery(request, locationMap);
+                deliveriesList.add(delivery);
+                jobs.put(request.getRequestID(), delivery);
             }
         }
 
         // Setup the Builder for the VRP
         VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
-        vrpBuilder.addVehicle(makeJspritVehicle(simVehicle));
+        vrpBuilder.addVehicle(makeJspritVehicle(schedule));
         vrpBuilder.setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
 
         // Add shipments/deliveries to vrp problem
         vrpBuilder.addAllJobs(shipmentList);
         vrpBuilder.addAllJobs(deliveriesList);
 
+        // Add the legs of the current route of the vehicle to the leg table
+        addRouteLegsToLegTable(schedule);
+
         // Create custom cost matrix, which contains the durations between all requests/pickups/dropoffs
         VehicleRoutingTransportCosts costMatrix = buildCostMatrix(vrpBuilder.build().getAllLocations());
 
@@ -104,17 +147,17 @@ public class SingleRequestJSpritSolver {
 
     /**
      * Creates a temporary list which contains all requests already assigned to a vehicle plus the new request
-     * @param simVehicle current vehicle
+     * @param schedule schedule of the current vehicle
      * @param newUserRequest the new request
      * @return list with all requests
      */
-    private ArrayList<User.TripRequest> createTempVehRequestList(Vehicle simVehicle, User.TripRequest newUserRequest) {
+    private ArrayList<User.TripRequest> createTempVehRequestList(VehicleSchedule schedule, User.TripRequest newUserRequest) {
         // create a temporary array which holds a copy of the requests
-        ArrayList<User.TripRequest> tempUserRequestList = new ArrayList<>(simVehicle.getUserRequestMap().values());
+        ArrayList<User.TripRequest> tempUserRequestList = new ArrayList<>(schedule.getRequests());
 
         // create a temporary copy of the new request
         User.TripRequest tempUserRequest = new User.TripRequest(newUserRequest);
-        tempUserRequest.setBookingPickupLatest(simVehicle, true);
+        tempUserRequest.setBookingPickupLatest(schedule.getVehicle(), true);
         tempUserRequestList.add(tempUserRequest);
         return tempUserRequestList;
     }
@@ -156,6 +199,8 @@ public class SingleRequestJSpritSolver {
     private Shipment makeShipment(User.TripRequest request, Map<Position, LocationRequestCount> locationMap) {
         Location pickupLocation = getLocationFromPosition(request.getOriginalRequestOrigin());
         Location deliveryLocation = getLocationFromPosition(request.getOriginalRequestDestination());
+        pickupLocationIndexes.put(request.getRequestID(), pickupLocation.getIndex());
+        dropoffLocationIndexes.put(request.getRequestID(), deliveryLocation.getIndex());
 
         var shipmentBuilder = Shipment.Builder.newInstance(String.format("%s", request.getRequestID()));
         shipmentBuilder
@@ -165,29 +210,13 @@ public class SingleRequestJSpritSolver {
                 .setPickupTimeWindow(TimeWindow.newInstance(0, request.getTripPickupLatest()
                         .getTimeMillis()-SimTime.now().getTimeMillis()))
                 .setDeliveryLocation(deliveryLocation)
-                .setMaxTimeInVehicle(calcMaxTimeInVehicle(request))
+                .setMaxTimeInVehicle(request.calcMaxTimeInVehicleMS())
                 .setPickupServiceTime(getServiceDuration(locationMap, request.getOriginalRequestOrigin()))
                 .setDeliveryServiceTime(getServiceDuration(locationMap, request.getOriginalRequestDestination()));
 
         return shipmentBuilder.build();
     }
 
-    /**
-     * Helper function to determine the maximum in-vehicle time dependent on the configuration
-     * @param request original TravelRequest
-     * @return Maximum duration of the request in the vehicle in Milliseconds
-     */
-    private long calcMaxTimeInVehicle(User.TripRequest request) {
-        if (Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE) {
-            return (long) (1000 * (request.getRequestDuration() * 60 + Config.USER_ALONSO_MAX_DELAY_SECONDS));
-        } else {
-            long elongationMaxDurationInVehicle = (long) (request.getRequestDuration() * 60 * 1000 * Config.MAX_IN_VEH_TIME_ELONGATION_FACTOR);
-            long acceptableMaxDurationInVehicle = (long) Config.ACCEPTABLE_TIME_IN_VEH_SECONDS * 1000;
-
-            return Math.max(elongationMaxDurationInVehicle, acceptableMaxDurationInVehicle);
-        }
-    }
-
     /**
      * Creates a jSprit-Delivery from a TravelRequest, which has already been picked-up by the vehicle.
      * Sets the time-restrictions for drop-off
@@ -197,6 +226,7 @@ public class SingleRequestJSpritSolver {
      */
     private Delivery makeDelivery(User.TripRequest request, Map<Position, LocationRequestCount> locationMap) {
         Location deliveryLocation = getLocationFromPosition(request.getOriginalRequestDestination());
+        dropoffLocationIndexes.put(request.getRequestID(), deliveryLocation.getIndex());
 
         double timeWindowStart = 0;
         // if request is still boarding, make sure, that delivery timewindows starts only after boarding is completed
@@ -230,37 +260,44 @@ public class SingleRequestJSpritSolver {
     }
 
     /**
-     * Creates a jSprit-Vehicle from the original Vehicle
-     * @param simVehicle Original Vehicle
+     * Creates a jSprit-Vehicle from the schedule of the original Vehicle
+     * @param schedule Schedule of the original Vehicle
      * @return jSprit-Vehicle Object
      */
-    private VehicleImpl makeJspritVehicle(Vehicle simVehicle) {
+    private VehicleImpl makeJspritVehicle(VehicleSchedule schedule) {
         // create the vehicle type
-        VehicleType vehicleType = VehicleTypeImpl.Builder.newInstance("VT " + String.format("%s", simVehicle.getCapacity()))
-                .addCapacityDimension(CAPACITY_INDEX, simVehicle.getCapacity())
+        VehicleType vehicleType = VehicleTypeImpl.Builder.newInstance("VT " + String.format("%s", schedule.getCapacity()))
+                .addCapacityDimension(CAPACITY_INDEX, schedule.getCapacity())
                 .setCostPerTransportTime(1)
                 .setCostPerDistance(1)
                 .setCostPerWaitingTime(0)
                 .setFixedCost(0)
                 .build();
 
-        Location vehicleLocation = getLocationFromPosition(simVehicle.getPosition());
+        Location vehicleLocation = getLocationFromPosition(schedule.getPosition());
+        vehicleLocationIndex = vehicleLocation.getIndex();
 
-        // If the vehicle is currently stationary (RouteStepStationary e.g. during pickup/drop-off cannot be interrupted)
-        // the solution needs to consider this delay until the vehicle can move again
-        long delayMillis = 0;
-        if ((simVehicle.getCurrentRouteStep() != null) && (!simVehicle.getCurrentRouteStep().isInterruptible())) {
-            delayMillis = simVehicle.getCurrentRouteStep().getEndTime().getTimeMillis() - SimTime.now().getTimeMillis();
-        }
-
-        return Builder.newInstance(String.format("Vehicle %s", simVehicle.getId()))
+        return Builder.newInstance(String.format("Vehicle %s", schedule.getVehicleId()))
                 .setStartLocation(vehicleLocation)
                 .setType(vehicleType)
                 .setReturnToDepot(false)
-                .setEarliestStart(delayMillis)
+                .setEarliestStart(getEarliestStartMillis(schedule))
                 .build();
     }
 
+    /**
+     * If the vehicle is currently stationary (RouteStepStationary e.g. during pickup/drop-off cannot be interrupted)
+     * the solution needs to consider this delay until the vehicle can move again
+     * @param schedule Schedule of the original Vehicle
+     * @return Delay in milliseconds until the vehicle can move again
+     */
+    private long getEarliestStartMillis(VehicleSchedule schedule) {
+        if (schedule.isStartAfterCurrentStep()) {
+            return schedule.getStartTimeMillis() - SimTime.now().getTimeMillis();
+        }
+        return 0;
+    }
+
     /**
      * Get a jSprit-Location Object from the original position-object. Each jSprit-Location requires an unique index
      * @param pos original Position-Object
@@ -285,9 +322,46 @@ public class SingleRequestJSpritSolver {
         }
     }
 
+    /**
+     * Adds the legs between the pickups/drop-offs of the current route of the vehicle to the leg table. If the vehicle
+     * is currently at a pickup/drop-off, also the leg from the current position to the next stop is added.
+     * The order of the stops of the current route is stored to estimate the distance of the current route and to build
+     * the initial solution.
+     * @param schedule The schedule of the vehicle of the VRP
+     */
+    private void addRouteLegsToLegTable(VehicleSchedule schedule) {
+        // Start of the first leg is the vehicle location. The schedule only provides the track of the first leg, if
+        // the vehicle is currently not moving
+        Integer prevIndex = vehicleLocationIndex;
+
+        for (int k = 0; k < schedule.getStopCount(); k++) {
+            long requestID = schedule.getStopRequestID(k);
+            boolean isPickup = schedule.getStopType(k) == RouteStep.StepType.PICKUP;
+            Integer index = isPickup ? pickupLocationIndexes.get(requestID) : dropoffLocationIndexes.get(requestID);
+
+            if (index != null) {
+                routeStopLocationIndexes.add(index);
+                routeStopJobs.add(new RouteStopJob(jobs.get(requestID), isPickup));
+            }
+            RouteStepEnroute.EnrouteTrack legTrack = schedule.getLegTrack(k);
+            if (prevIndex != null && index != null && legTrack != null) {
+                legTable.put(makeLegKey(prevIndex, index), legTrack);
+            }
+            prevIndex = index;
+        }
+    }
+
+    /**
+     * @return Key of the leg table for a leg between two locations
+     */
+    private static long makeLegKey(int fromIndex, int toIndex) {
+        return ((long) fromIndex << 32) | (toIndex & 0xFFFFFFFFL);
+    }
+
     /**
      * Creates a custom cost matrix with distances and durations between all stops. The router to calculate
-     * the route information can be configured via the Config-file
+     * the route information can be configured via the Config-file. Legs already in the leg table are not routed
+     * again. If GraphHopper is used, the routed legs are stored to the leg table.
      * @param allLocations All locations from the travel-requests
      * @return Custom cost matrix, which contains the durations between all requests/pickups/dropoffs
      */
@@ -306,11 +380,18 @@ public class SingleRequestJSpritSolver {
                     double distance = Double.MAX_VALUE;
 
                     // Calculate distance and duration
-                    RoutingInterface router = Config.USE_GRID_ROUTER ? CityGridRouter.getInstance() : GraphHopperRouter.getInstance();
+                    long legKey = makeLegKey(fromLocation.getIndex(), toLocation.getIndex());
                     try {
-                        var route = router.calculateRoute(from, to, SimObjectRoutable.Type.CAR, 0);
+                        var route = Config.USE_GRID_ROUTER ? null : legTable.get(legKey);
+                        if (route == null) {
+                            route = router.calculateRoute(from, to, SimObjectRoutable.Type.CAR, 0);
+
+                            // Tracks of the CityGrid only contain start and end point and cannot be used for the route
+                            if (!Config.USE_GRID_ROUTER) legTable.put(legKey, route);
+                        }
                         duration = route.getDurationMS();
                         distance = route.getDistanceM();
+                        legDistancesM.put(legKey, distance);
                     } catch (Exception e) {
                         Logger.error(e);
                         Logger.error("Error while trying to route from {},{} to {},{}", from.getX(), from.getY(), to.getX(), to.getY());
@@ -341,30 +422,45 @@ public class SingleRequestJSpritSolver {
 
 
     /**
-     * Function to solve the VRP
+     * Function to solve the VRP with the maximum number of iterations from the config-file
      * @param vrp Prepared VRP-Problem
      * @return Returns null, if no solution is found, else returns the solution
      */
     public VehicleRoutingProblemSolution solveVRP(VehicleRoutingProblem vrp) {
-        // Add state- and constraint manager, in order for JSprit to allow using the MaxTimeInVehicle constraints
-        StateManager stateManager = new StateManager(vrp);
-        StateId id = stateManager.createStateId("max-time");
-        StateId openJobsId = stateManager.createStateId("open-jobs-id");
-        stateManager.addStateUpdater(new UpdateMaxTimeInVehicle(stateManager, id, vrp.getTransportCosts(),
-                vrp.getActivityCosts(), openJobsId));
+        return solveVRP(vrp, Config.JSPRIT_MAX_ITERATIONS);
+    }
 
-        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
-        constraintManager.addConstraint(new MaxTimeInVehicleConstraint(vrp.getTransportCosts(), vrp.getActivityCosts(),
-                id, stateManager, vrp, openJobsId), ConstraintManager.Priority.CRITICAL);
 
-        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
-                .setStateAndConstraintManager(stateManager, constraintManager).buildAlgorithm();
+    /**
+     * Function to solve the VRP
+     * @param vrp           Prepared VRP-Problem
+     * @param maxIterations Maximum number of jSprit-iterations
+     * @return Returns null, if no solution is found, else returns the solution
+     */
+    public VehicleRoutingProblemSolution solveVRP(VehicleRoutingProblem vrp, int maxIterations) {
+        VehicleRoutingAlgorithm vra = JspritAlgorithmTemplate.getInstance().buildAlgorithm(vrp, maxIterations);
 
         // Plot Solution Scores
         if (Config.PRINT_JSPRIT_SOLUTION_INFO) {
             vra.getAlgorithmListeners().addListener(new AlgorithmSearchProgressChartListener("jsprit_output/sol_progress.png"));
         }
-        vra.setMaxIterations(Config.JSPRIT_MAX_ITERATIONS);
+
+        // Start the search from the current stop sequence of the vehicle
+        if (Config.ENABLE_JSPRIT_WARM_START) {
+            VehicleRoutingProblemSolution initialSolution = makeInitialSolution(vrp);
+            if (initialSolution != null) vra.addInitialSolution(initialSolution);
+        }
+
+        // Track the iteration, in which the best solution was found
+        lastImprovingIteration = 0;
+        bestIterationCost = Double.MAX_VALUE;
+        vra.addListener((IterationEndsListener) (i, problem, iterationSolutions) -> {
+            double cost = Solutions.bestOf(iterationSolutions).getCost();
+            if (cost < bestIterationCost) {
+                bestIterationCost = cost;
+                lastImprovingIteration = i;
+            }
+        });
 
         // Get the solution
         Collection<VehicleRoutingProblemSolution> solutions = vra.searchSolutions();
@@ -381,108 +477,132 @@ public class SingleRequestJSpritSolver {
 
 
     /**
-     * Make a valid Route for a vehicle of a Jsprit-Solution. The validity of the solution is checked according
-     * to the time limits for picking-up/dropping-off of all requests on the route.
+     * Makes the initial solution of the VRP from the current stop sequence of the vehicle. The new request is not
+     * assigned in the initial solution and is inserted by the first iteration of the algorithm.
      *
-     * @param solution Calculated jSprit-Solution
-     * @param vehicle The vehicle, this route should be assigned to
-     * @param newRequest The new TravelRequest
-     * @return Null, if no valid route is found, else the route is returned
+     * @param vrp Prepared VRP-Problem
+     * @return Initial solution, or null, if the current stop sequence does not match the jobs of the VRP
      */
-    public Route makeRouteFromSolution(VehicleRoutingProblemSolution solution, Vehicle vehicle, User.TripRequest newRequest) {
-        try {
-            var routes = solution.getRoutes();
-            var activities = routes.iterator().next().getTourActivities().getActivities();
-            Route route; // New route
-
-            // Create a temporary map which holds a copy of all requests
-            HashMap<Long, User.TripRequest> tempRequestMap = new HashMap<>();
-            vehicle.getUserRequestMap().forEach((key, value) -> tempRequestMap.put(key, new User.TripRequest(value)));
-
-            User.TripRequest tempUserRequest = new User.TripRequest(newRequest);
-            tempUserRequest.setBookingPickupLatest(vehicle, true);
-            tempRequestMap.put(tempUserRequest.getRequestID(), tempUserRequest);
-
-            // Make new route. If current RouteStep is not interruptible (e.g. Pickup/Dropoff), let new route start
-            // after current RouteStep finished
-            if ((vehicle.getCurrentRouteStep() != null) && (!vehicle.getCurrentRouteStep().isInterruptible())) {
-                route = new Route(vehicle.getCurrentRouteStep().getEndTime());
+    private VehicleRoutingProblemSolution makeInitialSolution(VehicleRoutingProblem vrp) {
+        var jspritVehicle = vrp.getVehicles().iterator().next();
+        var routeBuilder = VehicleRoute.Builder.newInstance(jspritVehicle)
+                .setJobActivityFactory(vrp.getJobActivityFactory());
+
+        Set<Job> routedJobs = new HashSet<>();
+        for (RouteStopJob stop : routeStopJobs) {
+            if (stop.job instanceof Shipment) {
+                if (stop.isPickup) routeBuilder.addPickup((Shipment) stop.job);
+                else routeBuilder.addDelivery((Shipment) stop.job);
+            } else if (stop.job instanceof Delivery && !stop.isPickup) {
+                routeBuilder.addDelivery((Delivery) stop.job);
             } else {
-                route = new Route(SimTime.now());
+                return null;
             }
+            routedJobs.add(stop.job);
+        }
 
-            // Previous activity position is the current position of the vehicle
-            Position prevActPosition = vehicle.getPosition().copyPosition();
-            RouteStep.StepType prevStepType = RouteStep.StepType.ENROUTE;
+        // All jobs except the new request need to be part of the current stop sequence
+        List<Job> unassignedJobs = new ArrayList<>();
+        for (Job job : vrp.getJobs().values()) {
+            if (!routedJobs.contains(job)) unassignedJobs.add(job);
+        }
+        if (unassignedJobs.size() != 1) return null;
+
+        VehicleRoute route = routeBuilder.build();
+        double cost = 0;
+        Location prevLocation = route.getStart().getLocation();
+        for (TourActivity act : route.getTourActivities().getActivities()) {
+            cost += vrp.getTransportCosts().getTransportCost(prevLocation, act.getLocation(), 0, null, jspritVehicle);
+            prevLocation = act.getLocation();
+        }
+        return new VehicleRoutingProblemSolution(List.of(route), unassignedJobs, cost + UNASSIGNED_JOB_PENALTY);
+    }
 
-            boolean timeStampsValid = true;  // Check flag, if route is still valid
-            for (TourActivity act : activities) {
-                Position actPosition = new Position(act.getLocation().getCoordinate().getX(), act.getLocation().getCoordinate().getY());
 
-                // Append RouteStepEnroute for Route from previous activity to current activity
-                // If distance is less than 50 m, no route is added, instead it is assumed that the two actions happen at the same point
-                RouteStepEnroute rste = new RouteStepEnroute(prevActPosition, actPosition, RouteStep.StepType.ENROUTE);
-                if (!(rste.getDistanceM() < 50 && !(prevStepType == RouteStep.StepType.ENROUTE))) {
-                    route.appendRouteStep(rste, true);
-                }
-                // Set heading of stop depending on arrival heading of vehicle, replace with actual position on road
-                // if (rste.getEndPosition().getHeading() != null) actPosition.setHeading(rste.getEndPosition().getHeading());
-                actPosition = rste.getEndPosition().copyPosition();
-
-                // Determine if the activity is a pickup or dropoff and get the according request-ID
-                long requestID = 0;
-                RouteStep.StepType stepType = null;
-                ActivityType activityType = ActivityType.valueOf(act.getClass().getSimpleName());
-
-                switch (activityType) {
-                    case DeliverShipment:
-                        requestID = Long.parseLong(((DeliverShipment) act).getJob().getId());
-                        stepType = RouteStep.StepType.DROPOFF;
-                        break;
-                    case DeliverService:
-                        requestID = Long.parseLong(((DeliverService) act).getJob().getId());
-                        stepType = RouteStep.StepType.DROPOFF;
-                        break;
-                    case PickupShipment:
-                        requestID = Long.parseLong(((PickupShipment) act).getJob().getId());
-                        stepType = RouteStep.StepType.PICKUP;
-                        break;
-                }
+    /**
+     * @return Iteration of the last solveVRP()-call, in which the best solution was found
+     */
+    public int getLastImprovingIteration() {
+        return lastImprovingIteration;
+    }
 
-                // Append RouteStepStationary to Route
-                SimTime activityStartTime = new SimTime((long) act.getArrTime());
-                RouteStepStationary rsts = new RouteStepStationary(
-                        activityStartTime, (long) act.getOperationTime(),
-                        stepType, actPosition, requestID);
-                route.appendRouteStep(rsts, true);
-
-                // Verify timestamps of last added RouteStepStationary
-                User.TripRequest currentRequest = tempRequestMap.get(rsts.getRequestID());
-                switch (rsts.getStepType()) {
-                    case PICKUP:
-                        if (rsts.getStartTime().isGreaterThan((tempRequestMap.get(rsts.getRequestID())).getTripPickupLatest())) {
-                            timeStampsValid = false;
-                        }
-                        if (!currentRequest.wasPickedUp()) currentRequest.pickup(vehicle.getId(), rsts.getEndTime(), actPosition,true);
-                        break;
-                    case DROPOFF:
-                        SimTime bookingDropoffLatest = (tempRequestMap.get(rsts.getRequestID())).getTripDropoffLatest();
-                        if (rsts.getStartTime().isGreaterThan(bookingDropoffLatest)) {
-                            timeStampsValid = false;
-                        }
-                        break;
-                }
-                if (!timeStampsValid) return null;
 
-                prevActPosition = actPosition;
-                prevStepType = stepType;
+    /**
+     * Make a RoutePlan for a vehicle of a Jsprit-Solution. The plan contains the stop sequence of the solution and the
+     * legs of the leg table, so that the materialization of the plan does not require additional routing. The validity
+     * of the time limits for picking-up/dropping-off is checked during the materialization of the plan.
+     *
+     * @param solution Calculated jSprit-Solution
+     * @param schedule The schedule of the vehicle, this plan should be assigned to
+     * @param newRequest The new TravelRequest
+     * @return RoutePlan of the solution
+     */
+    public RoutePlan makeRoutePlanFromSolution(VehicleRoutingProblemSolution solution, VehicleSchedule schedule, User.TripRequest newRequest) {
+        var routes = solution.getRoutes();
+        var activities = routes.iterator().next().getTourActivities().getActivities();
+
+        ArrayList<RoutePlan.PlannedStop> stops = new ArrayList<>();
+        double distanceM = 0;
+        long endTimeMillis = 0;
+        long timeSlackMS = Long.MAX_VALUE;
+
+        // Previous activity location is the location of the vehicle
+        int prevActLocationIndex = vehicleLocationIndex;
+        for (TourActivity act : activities) {
+            int actLocationIndex = act.getLocation().getIndex();
+
+            // Determine if the activity is a pickup or dropoff and get the according request-ID
+            long requestID = 0;
+            RouteStep.StepType stepType = null;
+            ActivityType activityType = ActivityType.valueOf(act.getClass().getSimpleName());
+
+            switch (activityType) {
+                case DeliverShipment:
+                    requestID = Long.parseLong(((DeliverShipment) act).getJob().getId());
+                    stepType = RouteStep.StepType.DROPOFF;
+                    break;
+                case DeliverService:
+                    requestID = Long.parseLong(((DeliverService) act).getJob().getId());
+                    stepType = RouteStep.StepType.DROPOFF;
+                    break;
+                case PickupShipment:
+                    requestID = Long.parseLong(((PickupShipment) act).getJob().getId());
+                    stepType = RouteStep.StepType.PICKUP;
+                    break;
             }
+            User.TripRequest request = (requestID == newRequest.getRequestID()) ?
+                    newRequest : schedule.getRequest(requestID);
 
-            return route;
-        } catch (IOException e) {
-            Logger.error(e);
+            // Add the stop with the routed leg from the previous stop, if available
+            long legKey = makeLegKey(prevActLocationIndex, actLocationIndex);
+            RoutePlan.PlannedStop stop = new RoutePlan.PlannedStop(stepType, request, (long) act.getOperationTime(), legTable.get(legKey));
+            stops.add(stop);
+            distanceM += legDistancesM.getOrDefault(legKey, 0.0);
+
+            // Activity times are relative to the current simulation time
+            timeSlackMS = Math.min(timeSlackMS, RoutePlan.calcStopSlackMS(stop, SimTime.now().getTimeMillis() + (long) act.getArrTime()));
+            endTimeMillis = (long) act.getEndTime();
+
+            prevActLocationIndex = actLocationIndex;
         }
-        return null;
+
+        RoutePlan plan = new RoutePlan(schedule, stops, newRequest, distanceM,
+                endTimeMillis - getEarliestStartMillis(schedule), solution.getCost(), calcRouteDistanceM());
+        plan.setTimeSlackMS(timeSlackMS);
+        return plan;
+    }
+
+    /**
+     * @return Estimated distance of the current route of the vehicle in meters, using the distances of the cost matrix
+     */
+    private double calcRouteDistanceM() {
+        double distanceM = 0;
+        int prevIndex = vehicleLocationIndex;
+        for (int index : routeStopLocationIndexes) {
+            distanceM += legDistancesM.getOrDefault(makeLegKey(prevIndex, index), 0.0);
+            prevIndex = index;
+        }
+        return distanceM;
     }
 
     /**
@@ -514,6 +634,19 @@ public class SingleRequestJSpritSolver {
         solution_plotter.plot("jsprit_output/vrp_problem_solution.png", "VRP Problem Solution");
     }
 
+    /**
+     * Helper class to store the job of a stop of the current route of the vehicle
+     */
+    private static class RouteStopJob {
+        private final Job job;
+        private final boolean isPickup;
+
+        RouteStopJob(Job job, boolean isPickup) {
+            this.job = job;
+            this.isPickup = isPickup;
+        }
+    }
+
     private class LocationRequestCount {
         int passengerCount;
         int requestCount;
@@ -0,0 +1,193 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.optimisedPartitionAssignment;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.Scenario;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.BufferedAssignmentStrategy;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.AssignmentSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.VehicleListProvider;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.VehicleListProviderBuilder;
+import de.tum.ftm.agentsim.ts.routing.RoutingException;
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import org.pmw.tinylog.Logger;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * This assignment strategy splits the service area into spatial partitions (see PartitionGrid). Each request is
+ * allocated to the partition of its origin and each vehicle to the partition of its current position. The requests
+ * of each partition are assigned only to the vehicles of the same partition. As the vehicles of the partitions are
+ * disjoint, the partitions can be processed independently of each other without any synchronization of the vehicles.
+ * Within a partition, the requests are processed one after another and each request is assigned to the vehicle with
+ * the lowest extra VMT.
+ * Requests which could not be assigned within their partition (e.g. requests close to the border of a partition) are
+ * processed in a sequential reconciliation pass, which considers the vehicles of all partitions.
+ * The assignment deadline is not applied, all partitions are processed completely.
+ *
+ * @author Manfred Klöppel
+ */
+public abstract class OptimisedPartitionAssignment extends BufferedAssignmentStrategy {
+
+    private PartitionGrid partitionGrid;
+    private AssignmentSolver assignmentSolver = new AssignmentSolver(statistics);
+
+    OptimisedPartitionAssignment(Scenario scenario) {
+        super(scenario);
+        partitionGrid = new PartitionGrid(Config.PARTITION_SIZE_KM);
+        Logger.info("Service area split into {} partitions", partitionGrid.getPartitionCount());
+    }
+
+    /**
+     * Requests are added to a buffer, which will be processed at every "ProcessRequestBuffer"-Event
+     *
+     * @param userRequest is a request with a request time
+     */
+    @Override
+    public void processNewRequest(User.TripRequest userRequest) {
+        userRequest.setPartitionID(partitionGrid.getPartitionID(userRequest.getOriginalRequestOrigin()));
+        requestBuffer.add(userRequest);
+        Logger.trace("Added RequestID {} of partition {} to RequestBuffer", userRequest.getRequestID(), userRequest.getPartitionID());
+    }
+
+    /**
+     * Processes all requests in the request buffer if request buffer is not empty and logs failed travel-requests
+     */
+    public void processRequestBuffer() {
+        Logger.trace("Processing RequestBuffer");
+        if (requestBuffer.size() > 0) {
+            assignmentSolver.getSearchController().startTick();
+
+            // Allocate requests and vehicles to the partitions
+            HashMap<Integer, ArrayList<User.TripRequest>> partitionRequests = new HashMap<>();
+            requestBuffer.forEach(request -> partitionRequests
+                    .computeIfAbsent(request.getPartitionID(), k -> new ArrayList<>()).add(request));
+
+            HashMap<Integer, ArrayList<Vehicle>> partitionVehicles = new HashMap<>();
+            scenario.getSimObjectController().getFleet().values().forEach(veh -> partitionVehicles
+                    .computeIfAbsent(partitionGrid.getPartitionID(veh.getPosition()), k -> new ArrayList<>()).add(veh));
+
+            // Delegate decision whether to use parallel or sequential stream to sub-class. Each partition is processed
+            // by a single thread, requests which cannot be assigned within their partition are returned
+            List<User.TripRequest> unassignedRequests = new ArrayList<>();
+            executeStage("Partition Assignment", () -> unassignedRequests.addAll(createStream(partitionRequests.keySet())
+                    .flatMap(partitionID -> assignRequests(partitionRequests.get(partitionID),
+                            partitionVehicles.getOrDefault(partitionID, new ArrayList<>())).stream())
+                    .collect(Collectors.toList())));
+
+            // Reconciliation pass: Requests are assigned to the vehicles of all partitions
+            Collection<Vehicle> fleet = scenario.getSimObjectController().getFleet().values();
+            ArrayList<User.TripRequest> assignmentResults = assignRequests(unassignedRequests, fleet);
+
+            // Re-Add requests to the request buffer which have not exceeded the maximum waiting time, else log as failed request
+            requeueUnassignedRequests(assignmentResults);
+
+            // Keep only the evaluation results of requests, which are processed again
+            assignmentSolver.retainEvaluationMemo(requestBuffer);
+
+            // Adapt the search effort for the next processing of the request buffer
+            assignmentSolver.getSearchController().endTick();
+        }
+    }
+
+    /**
+     * Assigns the requests one after another to the vehicles of the vehicle pool. Each request is assigned to the
+     * vehicle with the lowest extra VMT.
+     *
+     * @param requests    Requests, which should be assigned
+     * @param vehiclePool Vehicles, which are considered for the assignment
+     * @return List with all TravelRequests which could not be assigned
+     */
+    private ArrayList<User.TripRequest> assignRequests(Collection<User.TripRequest> requests, Collection<Vehicle> vehiclePool) {
+        ArrayList<User.TripRequest> returnList = new ArrayList<>();
+        for (User.TripRequest request : requests) {
+            if (vehiclePool.isEmpty() || !assignRequest(request, vehiclePool)) {
+                Logger.trace("No route was assigned for request {}", request.getRequestID());
+                returnList.add(request);
+            }
+        }
+        return returnList;
+    }
+
+    /**
+     * This method calculates the plans of all possible vehicle-assignments for a request and assigns the request to
+     * the vehicle with the lowest extra VMT.
+     *
+     * @param newRequest  New travel-request, which should be assigned
+     * @param vehiclePool Vehicles, which are considered for the assignment
+     * @return true, if the request was assigned, else returns false
+     */
+    private boolean assignRequest(User.TripRequest newRequest, Collection<Vehicle> vehiclePool) {
+        Logger.trace("Processing RequestID {}", newRequest.getRequestID());
+
+        // Get list of available vehicles of the pool using a VehicleListProvider according to Config
+        VehicleListProvider vehicleListProvider = VehicleListProviderBuilder.getVehicleListProvider(newRequest);
+        ArrayList<Vehicle> vehicleList = vehicleListProvider.getVehicleList(false, vehiclePool);
+        Logger.trace("{} vehicles available after filter", vehicleList.size());
+
+        // Only the closest vehicles according to the adaptive candidate list size are evaluated
+        int candidateListSize = assignmentSolver.getSearchController().getCandidateListSize();
+        if (vehicleList.size() > candidateListSize) vehicleList = new ArrayList<>(vehicleList.subList(0, candidateListSize));
+
+        // Calculate possible plans for selected vehicles
+        HashMap<Vehicle, RoutePlan> plans = new HashMap<>();
+        for (Vehicle veh : vehicleList) {
+            try {
+                RoutePlan newPlan = assignmentSolver.makeAssignmentPlan(veh, newRequest);
+                if (newPlan != null) plans.put(veh, newPlan);
+            } catch (Exception e) {
+                Logger.error(e);
+                Logger.error("Assignment Error because of Jsprit/Routing");
+                Logger.error("Vehicle {}, Request {}", veh.getId(), newRequest.getRequestID());
+            }
+        }
+
+        // Try the plans ordered by extra VMT
+        List<Map.Entry<Vehicle, RoutePlan>> orderedPlans = plans.entrySet().stream()
+                .sorted(Comparator.comparingDouble(entry -> entry.getValue().getExtraDistanceKM()))
+                .collect(Collectors.toList());
+        for (Map.Entry<Vehicle, RoutePlan> entry : orderedPlans) {
+            if (assignPlanToVehicle(entry.getKey(), entry.getValue(), newRequest)) {
+                // The rank of the vehicle in the list of the VehicleListProvider is stored for the adaptation of the
+                // candidate list size
+                assignmentSolver.getSearchController().recordWinningRank(vehicleList.indexOf(entry.getKey()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Materializes the plan to a complete Route and commits the route to the vehicle with a compare-and-set on the
+     * state version of the schedule, on which the plan was calculated. If the state of the vehicle changed in the
+     * meantime, the plan is re-evaluated once on the new schedule of the vehicle.
+     * @return true, if the request was assigned, else returns false
+     */
+    private boolean assignPlanToVehicle(Vehicle veh, RoutePlan plan, User.TripRequest travelRequest) {
+        try {
+            for (int attempt = 0; attempt < 2 && plan != null; attempt++) {
+                Route route = assignmentSolver.materializePlan(plan);
+                if (route == null) {
+                    Logger.trace("Plan of request {} for vehicle {} is not valid", travelRequest.getRequestID(), veh.getId());
+                    return false;
+                }
+
+                if (veh.commitAssignment(plan.getStateVersion(), route, travelRequest)) {
+                    Logger.trace("Request {} assigned to vehicle {} with extra VMT {}", travelRequest.getRequestID(), veh.getId(), plan.getExtraDistanceKM());
+
+                    // Request was assigned
+                    return true;
+                }
+
+                statistics.incCommitConflicts(1);
+                Logger.trace("State of vehicle {} changed during assignment of request {}", veh.getId(), travelRequest.getRequestID());
+                plan = assignmentSolver.makeAssignmentPlan(veh, travelRequest);
+            }
+        } catch (RoutingException e) {
+            Logger.error("Could not assign route to Vehicle {}, Request {}", veh.getId(), travelRequest.getRequestID());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.optimisedPartitionAssignment;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.utils.Position;
+
+/**
+ * Splits the service area into square spatial partitions. The service area is the area of the duration grid, which is
+ * defined in the config-file (top-left point, minimum width and height). Positions outside of the service area are
+ * allocated to the closest partition at the border.
+ *
+ * @author Manfred Klöppel
+ */
+public class PartitionGrid {
+
+    private static final double EARTH_RADIUS = 6378.137; //km
+
+    private double gridLeftLon, gridTopLat;
+    private double deltaLat, deltaLon;
+    private int gridWidthPartitions, gridHeightPartitions;
+
+    /**
+     * Creates the partition grid from the config-file
+     *
+     * @param partitionSizeKM Edge length of a partition in km
+     */
+    public PartitionGrid(int partitionSizeKM) {
+        this.gridLeftLon = Config.GRID_TOP_LEFT_LONGITUDE;
+        this.gridTopLat = Config.GRID_TOP_LEFT_LATITUDE;
+        this.deltaLat = (partitionSizeKM / EARTH_RADIUS) * (180 / Math.PI);
+        this.deltaLon = (partitionSizeKM / EARTH_RADIUS) * (180 / Math.PI) / Math.cos(gridTopLat * Math.PI / 180);
+
+        this.gridWidthPartitions = Math.max(1, (int) Math.ceil((double) Config.GRID_MIN_WIDTH_KM / partitionSizeKM));
+        this.gridHeightPartitions = Math.max(1, (int) Math.ceil((double) Config.GRID_MIN_HEIGHT_KM / partitionSizeKM));
+    }
+
+    /**
+     * Returns the ID of the partition, which contains the position
+     *
+     * @param position Position
+     * @return ID of the partition
+     */
+    public int getPartitionID(Position position) {
+        int x = (int) Math.floor((position.getLon() - gridLeftLon) / deltaLon);
+        int y = (int) Math.floor((gridTopLat - position.getLat()) / deltaLat);
+
+        x = Math.max(0, Math.min(gridWidthPartitions - 1, x));
+        y = Math.max(0, Math.min(gridHeightPartitions - 1, y));
+        return y * gridWidthPartitions + x;
+    }
+
+    /**
+     * @return Total number of partitions
+     */
+    public int getPartitionCount() {
+        return gridWidthPartitions * gridHeightPartitions;
+    }
+}
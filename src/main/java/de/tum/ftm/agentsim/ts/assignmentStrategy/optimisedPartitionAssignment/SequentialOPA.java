@@ -0,0 +1,31 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.optimisedPartitionAssignment;
+
+import de.tum.ftm.agentsim.ts.Scenario;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Delegation-Pattern: This class returns a sequential stream of the partitions for sequential processing
+ *
+ * @author Manfred Klöppel
+ */
+public class SequentialOPA extends OptimisedPartitionAssignment {
+
+	public SequentialOPA(Scenario scenario) {
+		super(scenario);
+	}
+
+	/**
+	 * Create a sequential stream.
+	 */
+	@Override
+	public <T> Stream<T> createStream(Collection<T> collection) {
+		return collection.stream();
+	}
+
+	@Override
+	public String getStrategyType() {
+		return "Sequential Optimised Partition Assignment";
+	}
+}
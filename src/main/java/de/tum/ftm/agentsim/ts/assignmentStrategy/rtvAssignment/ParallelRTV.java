@@ -0,0 +1,31 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.rtvAssignment;
+
+import de.tum.ftm.agentsim.ts.Scenario;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Delegation-Pattern: This class returns a parallel stream of the requests for parallel processing
+ *
+ * @author Manfred Klöppel
+ */
+public class ParallelRTV extends RTVAssignment {
+
+    public ParallelRTV(Scenario scenario) {
+        super(scenario);
+    }
+
+    /**
+     * Create a parallel stream.
+     */
+    @Override
+    public <T> Stream<T> createStream(Collection<T> collection) {
+        return collection.parallelStream();
+    }
+
+    @Override
+    public String getStrategyType() {
+        return "Parallel RTV Assignment";
+    }
+}
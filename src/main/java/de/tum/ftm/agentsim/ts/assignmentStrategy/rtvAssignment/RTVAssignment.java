@@ -0,0 +1,392 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.rtvAssignment;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.Scenario;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.AdaptiveSearchController;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.BufferedAssignmentStrategy;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.EvaluationMemo;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.FeasibilityPreCheck;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.insertionSolver.SingleRequestInsertionSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.VehicleListProvider;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.VehicleListProviderBuilder;
+import de.tum.ftm.agentsim.ts.routing.RoutingException;
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+import org.pmw.tinylog.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * This assignment strategy is based on the request-vehicle-trip (RTV) graph of Alonso-Mora et al. All requests of the
+ * request buffer are processed together in the following steps:
+ * 1. RV-Graph: For each request the surrounding vehicles are searched and the insertion of the request into the
+ *    current plan of each vehicle is checked.
+ * 2. RR-Graph: Two requests are shareable, if they can be served together by an empty virtual vehicle starting at
+ *    the origin of one of the requests. Only pairs of requests with a common vehicle in the RV-Graph are checked.
+ * 3. RTV-Graph: For each vehicle, all feasible trips (groups of requests which are served together by the vehicle)
+ *    are enumerated up to the configured maximum trip size. A trip is only checked, if all of its requests are
+ *    pairwise shareable and all of its sub-trips are feasible for the vehicle.
+ * 4. Assignment: The trips are assigned greedily, preferring larger trips and, for trips of equal size, trips with
+ *    less extra VMT. Each vehicle receives at most one trip and each request is assigned at most once.
+ * Steps 1-3 can be done in parallel, only the assignment of the trips to the vehicles is done sequentially.
+ * The insertion heuristic is used to check the feasibility of all trips, as requests are added to the plans of the
+ * trips one by one.
+ * If configured, the results of the RV-edges are stored in an EvaluationMemo, so that the pairs of requests, which
+ * are processed again, and unchanged vehicles are not evaluated again.
+ * The assignment deadline is not applied, as the trips are only known after the RTV-Graph of all requests is built.
+ *
+ * @author Manfred Klöppel
+ */
+public abstract class RTVAssignment extends BufferedAssignmentStrategy {
+
+    // Only the candidate list size is adapted, as the trips are checked with the insertion heuristic
+    private AdaptiveSearchController searchController = new AdaptiveSearchController(statistics);
+    private EvaluationMemo evaluationMemo = new EvaluationMemo();
+
+    RTVAssignment(Scenario scenario) {
+        super(scenario);
+    }
+
+    /**
+     * Processes all requests in the request buffer if request buffer is not empty and logs failed travel-requests
+     */
+    public void processRequestBuffer() {
+        Logger.trace("Processing RequestBuffer");
+        if (requestBuffer.size() > 0) {
+            searchController.startTick();
+            ArrayList<User.TripRequest> requests = new ArrayList<>(requestBuffer);
+            ArrayList<Integer> requestIndexes = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) requestIndexes.add(i);
+
+            // 1. RV-Graph: Plans of all requests for all candidate vehicles (key: vehicle, request-index) and the rank
+            // of each vehicle in the candidate list of the request
+            ConcurrentHashMap<Vehicle, ConcurrentHashMap<Integer, RoutePlan>> rvEdges = new ConcurrentHashMap<>();
+            ConcurrentHashMap<Vehicle, ConcurrentHashMap<Integer, Integer>> candidateRanks = new ConcurrentHashMap<>();
+            executeStage("RV-Graph Calculation", () -> createStream(requestIndexes)
+                    .forEach(i -> addRVEdges(requests.get(i), i, rvEdges, candidateRanks)));
+
+            // Determine the candidate vehicles of each request
+            ArrayList<Set<Vehicle>> requestVehicles = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) requestVehicles.add(new HashSet<>());
+            rvEdges.forEach((veh, plans) -> plans.keySet().forEach(i -> requestVehicles.get(i).add(veh)));
+
+            // 2. RR-Graph: Pairs of shareable requests
+            Set<Long> rrEdges = ConcurrentHashMap.newKeySet();
+            executeStage("RR-Graph Calculation", () -> createStream(requestIndexes)
+                    .forEach(i -> addRREdges(requests, requestVehicles, i, rrEdges)));
+
+            // 3. RTV-Graph: Feasible trips of all vehicles
+            List<Trip> allTrips = new ArrayList<>();
+            executeStage("Trip Enumeration", () -> allTrips.addAll(createStream(rvEdges.keySet())
+                    .flatMap(veh -> enumerateTrips(veh, requests, rvEdges.get(veh), rrEdges).stream())
+                    .collect(Collectors.toList())));
+            statistics.incRtvFeasibleTrips(allTrips.size());
+
+            // 4. Assign trips to vehicles. Request which cannot be assigned are returned
+            ArrayList<User.TripRequest> assignmentResults = assignTrips(allTrips, requests, candidateRanks);
+
+            // Re-Add requests to the request buffer which have not exceeded the maximum waiting time, else log as failed request
+            requeueUnassignedRequests(assignmentResults);
+
+            // Keep only the evaluation results of requests, which are processed again
+            evaluationMemo.retainRequests(requestBuffer);
+
+            // Adapt the search effort for the next processing of the request buffer
+            searchController.endTick();
+        }
+    }
+
+    /**
+     * Checks the insertion of a request into the current plans of all surrounding vehicles and adds the feasible
+     * plans as edges to the RV-Graph
+     *
+     * @param request      Travel-request
+     * @param requestIndex Index of the request
+     * @param rvEdges        RV-Graph
+     * @param candidateRanks Ranks of the vehicles in the candidate lists of the requests
+     */
+    private void addRVEdges(User.TripRequest request, int requestIndex,
+                            ConcurrentHashMap<Vehicle, ConcurrentHashMap<Integer, RoutePlan>> rvEdges,
+                            ConcurrentHashMap<Vehicle, ConcurrentHashMap<Integer, Integer>> candidateRanks) {
+        Logger.trace("Processing RequestID {}", request.getRequestID());
+
+        // Get list of available vehicles using a VehicleListProvider according to Config
+        VehicleListProvider vehicleListProvider = VehicleListProviderBuilder.getVehicleListProvider(request);
+        ArrayList<Vehicle> vehicleList = vehicleListProvider.getVehicleList(false);
+        Logger.trace("{} vehicles available after filter", vehicleList.size());
+
+        // Only the closest vehicles according to the adaptive candidate list size are checked
+        int candidateListSize = Math.min(vehicleList.size(), searchController.getCandidateListSize());
+
+        for (int rank = 0; rank < candidateListSize; rank++) {
+            Vehicle veh = vehicleList.get(rank);
+            try {
+                VehicleSchedule schedule = veh.getSchedule();
+
+                // Reuse the result of a previous evaluation, if the vehicle did not change in the meantime
+                EvaluationMemo.MemoEntry memoEntry = Config.ENABLE_EVALUATION_MEMO ? evaluationMemo.lookup(request, schedule) : null;
+                RoutePlan plan;
+                if (memoEntry != null) {
+                    statistics.incEvaluationMemoHits(1);
+                    plan = memoEntry.getPlan();
+                } else {
+                    plan = evaluateRVEdge(schedule, request);
+                    if (Config.ENABLE_EVALUATION_MEMO) evaluationMemo.store(request, schedule, plan);
+                }
+
+                if (plan != null) {
+                    rvEdges.computeIfAbsent(veh, k -> new ConcurrentHashMap<>()).put(requestIndex, plan);
+                    candidateRanks.computeIfAbsent(veh, k -> new ConcurrentHashMap<>()).put(requestIndex, rank);
+                }
+            } catch (Exception e) {
+                Logger.error(e);
+                Logger.error("Assignment Error because of Routing");
+                Logger.error("Vehicle {}, Request {}", veh.getId(), request.getRequestID());
+            }
+        }
+    }
+
+    /**
+     * Checks the insertion of a request into the current plan of a vehicle. Infeasible vehicle/request pairs are
+     * rejected by the feasibility pre-check before the insertion is checked.
+     *
+     * @return Plan of the insertion, or null, if the pair is infeasible
+     */
+    private RoutePlan evaluateRVEdge(VehicleSchedule schedule, User.TripRequest request) {
+        if (Config.ENABLE_FEASIBILITY_PRECHECK) {
+            statistics.incPreCheckTotalCalls(1);
+            if (!FeasibilityPreCheck.isPossiblyFeasible(schedule, request, true)) {
+                statistics.incPreCheckRejections(1);
+                return null;
+            }
+        }
+
+        RoutePlan plan = new SingleRequestInsertionSolver().solve(schedule, request);
+        statistics.incInsertionTotalCalls(1);
+        if (plan != null) statistics.incInsertionValidCalls(1);
+        return plan;
+    }
+
+    /**
+     * Checks for all requests with a higher index, if they are shareable with the request and adds the shareable
+     * pairs as edges to the RR-Graph
+     *
+     * @param requests        All requests of the buffer
+     * @param requestVehicles Candidate vehicles of each request
+     * @param i               Index of the request
+     * @param rrEdges         RR-Graph
+     */
+    private void addRREdges(ArrayList<User.TripRequest> requests, ArrayList<Set<Vehicle>> requestVehicles,
+                            int i, Set<Long> rrEdges) {
+        if (requestVehicles.get(i).isEmpty()) return;
+
+        SingleRequestInsertionSolver solver = new SingleRequestInsertionSolver();
+        for (int j = i + 1; j < requests.size(); j++) {
+            // Only requests with a common candidate vehicle can be served together
+            Vehicle commonVehicle = null;
+            for (Vehicle veh : requestVehicles.get(j)) {
+                if (requestVehicles.get(i).contains(veh)) {
+                    commonVehicle = veh;
+                    break;
+                }
+            }
+            if (commonVehicle == null) continue;
+
+            if (isShareable(requests.get(i), requests.get(j), commonVehicle, solver) ||
+                    isShareable(requests.get(j), requests.get(i), commonVehicle, solver)) {
+                rrEdges.add(makeRREdgeKey(i, j));
+            }
+        }
+    }
+
+    /**
+     * Checks if two requests can be served together by an empty virtual vehicle, which starts at the origin of the
+     * first request
+     *
+     * @param first   Request at whose origin the virtual vehicle starts
+     * @param second  Second request
+     * @param vehicle Vehicle, which provides the capacity of the virtual vehicle
+     * @param solver  Insertion solver
+     * @return true, if the requests are shareable
+     */
+    private boolean isShareable(User.TripRequest first, User.TripRequest second, Vehicle vehicle,
+                                SingleRequestInsertionSolver solver) {
+        RoutePlan virtualPlan = RoutePlan.createVirtual(vehicle, first.getOriginalRequestOrigin(),
+                SimTime.now().getTimeMillis());
+        RoutePlan plan = solver.insertRequest(virtualPlan, first);
+        return plan != null && solver.insertRequest(plan, second) != null;
+    }
+
+    /**
+     * @return Key of the RR-Graph for a pair of request-indexes
+     */
+    private static long makeRREdgeKey(int i, int j) {
+        return ((long) Math.min(i, j) << 32) | Math.max(i, j);
+    }
+
+    /**
+     * Enumerates all feasible trips of a vehicle up to the configured maximum trip size. Trips of size k are created
+     * by inserting a request into the plan of a trip of size k-1.
+     *
+     * @param veh          Vehicle
+     * @param requests     All requests of the buffer
+     * @param vehicleEdges Plans of the single requests of the vehicle (RV-Graph)
+     * @param rrEdges      RR-Graph
+     * @return List with all feasible trips of the vehicle
+     */
+    private List<Trip> enumerateTrips(Vehicle veh, ArrayList<User.TripRequest> requests,
+                                      Map<Integer, RoutePlan> vehicleEdges, Set<Long> rrEdges) {
+        ArrayList<Trip> trips = new ArrayList<>();
+        ArrayList<Integer> vehicleRequests = new ArrayList<>(vehicleEdges.keySet());
+        Collections.sort(vehicleRequests);
+
+        // Trips of size 1 are the edges of the RV-Graph
+        HashMap<List<Integer>, RoutePlan> previousLevel = new HashMap<>();
+        for (int i : vehicleRequests) {
+            previousLevel.put(Collections.singletonList(i), vehicleEdges.get(i));
+            trips.add(new Trip(veh, Collections.singletonList(i), vehicleEdges.get(i)));
+        }
+
+        SingleRequestInsertionSolver solver = new SingleRequestInsertionSolver();
+        for (int size = 2; size <= Config.RTV_MAX_TRIP_SIZE && !previousLevel.isEmpty(); size++) {
+            HashMap<List<Integer>, RoutePlan> currentLevel = new HashMap<>();
+
+            for (Map.Entry<List<Integer>, RoutePlan> trip : previousLevel.entrySet()) {
+                List<Integer> tripRequests = trip.getKey();
+                int lastRequest = tripRequests.get(tripRequests.size() - 1);
+
+                for (int i : vehicleRequests) {
+                    // Request-indexes of a trip are sorted to avoid duplicate trips
+                    if (i <= lastRequest) continue;
+                    if (!isTripCandidate(tripRequests, i, previousLevel, rrEdges)) continue;
+
+                    RoutePlan plan = solver.insertRequest(trip.getValue(), requests.get(i));
+                    if (plan != null) {
+                        ArrayList<Integer> newTripRequests = new ArrayList<>(tripRequests);
+                        newTripRequests.add(i);
+                        currentLevel.put(newTripRequests, plan);
+                        trips.add(new Trip(veh, newTripRequests, plan));
+                    }
+                }
+            }
+            previousLevel = currentLevel;
+        }
+        return trips;
+    }
+
+    /**
+     * Checks if a request can extend a trip: The request must be shareable with all requests of the trip and all
+     * sub-trips of the extended trip must be feasible
+     *
+     * @param tripRequests  Request-indexes of the trip
+     * @param newRequest    Index of the new request
+     * @param previousLevel Feasible trips of the size of the trip
+     * @param rrEdges       RR-Graph
+     * @return true, if the extended trip needs to be checked
+     */
+    private boolean isTripCandidate(List<Integer> tripRequests, int newRequest,
+                                    Map<List<Integer>, RoutePlan> previousLevel, Set<Long> rrEdges) {
+        for (int i : tripRequests) {
+            if (!rrEdges.contains(makeRREdgeKey(i, newRequest))) return false;
+        }
+
+        if (tripRequests.size() > 1) {
+            for (int removed = 0; removed < tripRequests.size(); removed++) {
+                ArrayList<Integer> subTrip = new ArrayList<>(tripRequests);
+                subTrip.remove(removed);
+                subTrip.add(newRequest);
+                if (!previousLevel.containsKey(subTrip)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Assigns the trips greedily to the vehicles. Larger trips are preferred, for trips of equal size trips with less
+     * extra VMT are preferred. If a trip cannot be materialized to a valid route, smaller trips of its requests
+     * are still available in the ordered list.
+     *
+     * @param allTrips       All feasible trips
+     * @param requests       All requests of the buffer
+     * @param candidateRanks Ranks of the vehicles in the candidate lists of the requests
+     * @return List with all TravelRequests which could not be assigned
+     */
+    private ArrayList<User.TripRequest> assignTrips(List<Trip> allTrips, ArrayList<User.TripRequest> requests,
+                                                    Map<Vehicle, ConcurrentHashMap<Integer, Integer>> candidateRanks) {
+        allTrips.sort(Comparator.comparingInt((Trip trip) -> -trip.requestIndexes.size())
+                .thenComparingDouble(trip -> trip.plan.getExtraDistanceKM()));
+
+        Set<Vehicle> unavailableVehicles = new HashSet<>();
+        Set<Integer> assignedRequests = new HashSet<>();
+
+        for (Trip trip : allTrips) {
+            if (unavailableVehicles.contains(trip.vehicle)) continue;
+            if (trip.requestIndexes.stream().anyMatch(assignedRequests::contains)) continue;
+
+            if (assignTripToVehicle(trip)) {
+                unavailableVehicles.add(trip.vehicle);
+                assignedRequests.addAll(trip.requestIndexes);
+                trip.requestIndexes.forEach(i -> searchController.recordWinningRank(candidateRanks.get(trip.vehicle).get(i)));
+                if (trip.requestIndexes.size() > 1) statistics.incRtvAssignedSharedTrips(1);
+            }
+        }
+
+        ArrayList<User.TripRequest> returnList = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (!assignedRequests.contains(i)) {
+                Logger.trace("No trip was assigned for request {}", requests.get(i).getRequestID());
+                returnList.add(requests.get(i));
+            }
+        }
+        return returnList;
+    }
+
+    /**
+     * Materializes the plan of the trip to a complete Route and assigns the route and the requests to the vehicle
+     * @return true, if the trip was assigned, else returns false
+     */
+    private boolean assignTripToVehicle(Trip trip) {
+        Vehicle veh = trip.vehicle;
+        try {
+            Route route = trip.plan.materialize();
+            if (route == null) {
+                Logger.trace("Trip plan for vehicle {} is not valid", veh.getId());
+                return false;
+            }
+            statistics.incInsertionValidRouteCalls(1);
+
+            veh.updateRoute(route);
+            for (User.TripRequest request : trip.plan.getNewRequests()) {
+                veh.addRequestToVehicle(request);
+                Logger.trace("Request {} assigned to vehicle {}", request.getRequestID(), veh.getId());
+            }
+
+            // Trip was assigned
+            return true;
+        } catch (RoutingException e) {
+            Logger.error("Could not assign route to Vehicle {}", veh.getId());
+        }
+        return false;
+    }
+
+    /**
+     * Helper class to store a feasible trip of a vehicle
+     */
+    private static class Trip {
+        private Vehicle vehicle;
+        private List<Integer> requestIndexes;
+        private RoutePlan plan;
+
+        Trip(Vehicle vehicle, List<Integer> requestIndexes, RoutePlan plan) {
+            this.vehicle = vehicle;
+            this.requestIndexes = requestIndexes;
+            this.plan = plan;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy.rtvAssignment;
+
+import de.tum.ftm.agentsim.ts.Scenario;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Delegation-Pattern: This class returns a sequential stream of the requests for sequential processing
+ *
+ * @author Manfred Klöppel
+ */
+public class SequentialRTV extends RTVAssignment {
+
+	public SequentialRTV(Scenario scenario) {
+		super(scenario);
+	}
+
+	/**
+	 * Create a sequential stream.
+	 */
+	@Override
+	public <T> Stream<T> createStream(Collection<T> collection) {
+		return collection.stream();
+	}
+
+	@Override
+	public String getStrategyType() {
+		return "Sequential RTV Assignment";
+	}
+}
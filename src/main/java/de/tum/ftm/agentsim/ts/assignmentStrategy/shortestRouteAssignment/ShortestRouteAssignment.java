@@ -1,30 +1,20 @@
 package de.tum.ftm.agentsim.ts.assignmentStrategy.shortestRouteAssignment;
 
 
-import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
-import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import de.tum.ftm.agentsim.ts.Config;
 import de.tum.ftm.agentsim.ts.Scenario;
-import de.tum.ftm.agentsim.ts.log.DBLog;
-import de.tum.ftm.agentsim.ts.log.DBTableEntry;
-import de.tum.ftm.agentsim.ts.assignmentStrategy.AssignmentStrategyInterface;
-import de.tum.ftm.agentsim.ts.assignmentStrategy.jspritSolver.SingleRequestJSpritSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.AssignmentDeadline;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.AssignmentSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.BufferedAssignmentStrategy;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.RoutePlan;
 import de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider.*;
 import de.tum.ftm.agentsim.ts.routing.RoutingException;
 import de.tum.ftm.agentsim.ts.routing.route.Route;
-import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
-import de.tum.ftm.agentsim.ts.routing.route.RouteStepEnroute;
-import de.tum.ftm.agentsim.ts.routing.route.RouteStepStationary;
-import de.tum.ftm.agentsim.ts.simobjects.SimObjectStatus;
 import de.tum.ftm.agentsim.ts.simobjects.User;
 import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
-import de.tum.ftm.agentsim.ts.utils.SimTime;
 import org.pmw.tinylog.Logger;
 
 import java.util.*;
-import java.util.stream.Stream;
-
-import static de.tum.ftm.agentsim.ts.simobjects.User.TripRequest.Status.FAILED;
 
 /**
  * This assignment strategy processes each request individually. For each request all surrounding vehicles
@@ -32,33 +22,21 @@ import static de.tum.ftm.agentsim.ts.simobjects.User.TripRequest.Status.FAILED;
  * trys to assign the request to all available vehicles and determines the incurred additional distance (VMT) for each
  * vehicle. It is tried to assign the request to the vehicle with the least additional VMT. If the request cannot be
  * assigned, the request is tried to be assigned to the vehicle with the next-lowest VMT.
+ * The candidate vehicles are evaluated on RoutePlans (stop sequence, estimated distance and duration). The complete
+ * Route is only materialized for the vehicle the request is actually assigned to.
  * An assignment can fail, if no suitable solution is found by the jSprit-solver or because no suitable route
  * could be established from a valid jSprit solution.
  * @author Manfred Klöppel
  */
-public abstract class ShortestRouteAssignment implements AssignmentStrategyInterface {
+public abstract class ShortestRouteAssignment extends BufferedAssignmentStrategy {
 
-    private Scenario scenario;
-    private LinkedList<User.TripRequest> requestBuffer;
-    private AssignmentStatistics statistics = new AssignmentStatistics();
+    private AssignmentSolver assignmentSolver = new AssignmentSolver(statistics);
 
     // Set to store all requests with the calculated routes, Ordered by the extra-VMT of the calculated routes
     private TreeSet<RequestRoutes> allRequestRoutes = new TreeSet<>();
 
     ShortestRouteAssignment(Scenario scenario) {
-        this.scenario = scenario;
-        requestBuffer = new LinkedList<>();
-    }
-
-    /**
-     * Requests are added to a buffer, which will be processed at every "ProcessRequestBuffer"-Event
-     *
-     * @param userRequest is a request with a request time
-     */
-    @Override
-    public void processNewRequest(User.TripRequest userRequest) {
-        requestBuffer.add(userRequest);
-        Logger.trace("Added RequestID {} to RequestBuffer", userRequest.getRequestID());
+        super(scenario);
     }
 
     /**
@@ -68,32 +46,31 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
         Logger.trace("Processing RequestBuffer");
         int bufferSize = requestBuffer.size();
         if (requestBuffer.size() > 0) {
-            // Update vehicle positions
-            scenario.getSimObjectController().updateFleetPositions(true);
+            AssignmentDeadline deadline = new AssignmentDeadline(Config.ASSIGNMENT_DEADLINE_MS);
+            assignmentSolver.getSearchController().startTick();
 
             // Set to store all requests with the calculated routes, Ordered by the extra-VMT of the calculated routes
             allRequestRoutes.clear();
 
             // Delegate decision whether to use parallel or sequential stream to sub-class, calculate possible vehicle routes
-            var requestStream = createStream(requestBuffer);
-            requestStream.forEach(request -> addVehicleRoutesToList(calculateVehicleRoutes(request)));
+            // Requests which are not processed before the deadline is exceeded are deferred to the next processing
+            List<User.TripRequest> orderedRequests = deadline.orderRequests(requestBuffer);
+            List<User.TripRequest> deferredRequests = new ArrayList<>();
+            executeStage("Route Calculation", () -> deferredRequests.addAll(processRequestsWithinDeadline(orderedRequests,
+                    deadline, request -> addVehicleRoutesToList(calculateVehicleRoutes(request)))));
 
             // Assign the "best" route of each request to a vehicle. Request which cannot be assigned are returned
             ArrayList<User.TripRequest> assignmentResults = determineBestRouteToVehicleAssignment(allRequestRoutes);
 
             // Re-Add requests to the request buffer which have not exceeded the maximum waiting time, else log as failed request
-            requestBuffer.clear();
-            assignmentResults.forEach(request -> {
-                        SimTime latestAssignment = new SimTime(request.getRequestStart(), Config.MAX_WAITING_TIME_SECONDS * 1000);
-                        SimTime nextAssignment = new SimTime(SimTime.now(), Config.REQUEST_BUFFER_SECONDS * 1000);
-
-                        if (latestAssignment.isLessOrEqualThan(nextAssignment) || !Config.REPEATED_ASSIGNMENT) {
-                            logFailedBooking(request);
-                        } else {
-                            requestBuffer.add(request);
-                        }
-                    });
+            requeueUnassignedRequests(assignmentResults, deferredRequests);
             allRequestRoutes.clear();
+
+            // Keep only the evaluation results of requests, which are processed again
+            assignmentSolver.retainEvaluationMemo(requestBuffer);
+
+            // Adapt the search effort for the next processing of the request buffer
+            assignmentSolver.getSearchController().endTick();
         }
     }
 
@@ -116,36 +93,41 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
             RequestRoutes bestVMTRequest = allRequestRoutes.pollFirst(); // pollFirst() removes entry from set
             assert bestVMTRequest != null;
 
-            VehicleRoutePair bestVehicleRoute = bestVMTRequest.getBestVehicleRoutePair();
+            // Pruned vehicles might incur a lower extra VMT than the remaining plans, e.g. after the best vehicles
+            // were assigned to other requests
+            evaluatePrunedVehicles(bestVMTRequest);
+
+            VehiclePlanPair bestVehiclePlan = bestVMTRequest.getBestVehiclePlanPair();
 
             boolean requestIsAssigned = false;
-            if (bestVehicleRoute != null) {
-                Vehicle veh = bestVehicleRoute.getVehicle();
+            if (bestVehiclePlan != null) {
+                Vehicle veh = bestVehiclePlan.getVehicle();
                 if (!unavailableVehicles.contains(veh)) {
-                    requestIsAssigned = assignRouteToVehicle(veh, bestVehicleRoute, bestVMTRequest.getTravelRequest());
+                    requestIsAssigned = assignPlanToVehicle(veh, bestVehiclePlan, bestVMTRequest.getTravelRequest());
                     if (requestIsAssigned) unavailableVehicles.add(veh);
                 } else {
-                    // recalculate the route for the vehicle where another request had been assigned to in the meantime
+                    // recalculate the plan for the vehicle where another request had been assigned to in the meantime
                     Logger.trace("Trying to make a new route for request {} on vehicle {}", bestVMTRequest.getTravelRequest().getRequestID(), veh.getId());
-                    Route updatedRoute = makejSpritAssignmentRoute(veh, bestVMTRequest.getTravelRequest());
+                    RoutePlan updatedPlan = assignmentSolver.makeAssignmentPlan(veh, bestVMTRequest.getTravelRequest());
 
-                    if (updatedRoute != null) {
+                    if (updatedPlan != null) {
                         // calculate new extraVMT
-                        double originalRouteDistanceM = (bestVehicleRoute.getRoute().getRouteDistanceKM() - bestVehicleRoute.extraVMT);
-                        double newVMT = updatedRoute.getRouteDistanceKM() - originalRouteDistanceM;
+                        double newVMT = updatedPlan.getExtraDistanceKM();
 
-                        if (newVMT <= bestVMTRequest.getLowestVMT()) {
-                            requestIsAssigned = assignRouteToVehicle(
+                        if (newVMT <= Math.min(bestVMTRequest.getLowestVMT(), bestVMTRequest.getLowestPrunedBound())) {
+                            requestIsAssigned = assignPlanToVehicle(
                                     veh,
-                                    new VehicleRoutePair(veh, updatedRoute, newVMT),
+                                    new VehiclePlanPair(veh, updatedPlan, newVMT),
                                     bestVMTRequest.getTravelRequest()
                             );
                         } else {
-                            bestVMTRequest.addVehicleRoutePair(new VehicleRoutePair(veh, updatedRoute, newVMT));
+                            bestVMTRequest.addVehiclePlanPair(new VehiclePlanPair(veh, updatedPlan, newVMT));
                         }
                     }
                 }
-                if (!requestIsAssigned) {
+                if (requestIsAssigned) {
+                    assignmentSolver.getSearchController().recordWinningRank(bestVMTRequest.getCandidateRank(veh));
+                } else {
                     // error during assignment (e.g. vehicle is not available), re-add the request to the resultSet
                     allRequestRoutes.add(bestVMTRequest);
                 }
@@ -158,11 +140,21 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
         return returnList;
     }
 
-    private boolean assignRouteToVehicle(Vehicle veh, VehicleRoutePair bestVehicleRoute, User.TripRequest travelRequest) {
+    /**
+     * Materializes the plan to a complete Route and assigns the route to the vehicle
+     * @return true, if the request was assigned, else returns false
+     */
+    private boolean assignPlanToVehicle(Vehicle veh, VehiclePlanPair bestVehiclePlan, User.TripRequest travelRequest) {
         try {
-            veh.updateRoute(bestVehicleRoute.getRoute());
+            Route route = assignmentSolver.materializePlan(bestVehiclePlan.getPlan());
+            if (route == null) {
+                Logger.trace("Plan of request {} for vehicle {} is not valid", travelRequest.getRequestID(), veh.getId());
+                return false;
+            }
+
+            veh.updateRoute(route);
             veh.addRequestToVehicle(travelRequest);
-            Logger.trace("Request {} assigned to vehicle {} with extra VMT {}", travelRequest.getRequestID(), veh.getId(), bestVehicleRoute.extraVMT);
+            Logger.trace("Request {} assigned to vehicle {} with extra VMT {}", travelRequest.getRequestID(), veh.getId(), bestVehiclePlan.extraVMT);
 
             // Request was assigned
             return true;
@@ -173,29 +165,7 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
     }
 
     /**
-     * Log a failed travel-request
-     */
-    private void logFailedBooking(User.TripRequest failedRequest) {
-        failedRequest.travelRequestStatus = FAILED;
-        failedRequest.getUser().setStatus(SimObjectStatus.USER_IDLE);
-        DBLog.dbTableTrips.addLogEntry(new DBTableEntry.Builder()
-                .bookingID(failedRequest.getRequestID())
-                .personID(failedRequest.getUser().getId())
-                .additionalPassengers(failedRequest.getRequestAdditionalPersons())
-                .origStartTime(failedRequest.getRequestStart())
-                .origStopTime(failedRequest.getRequestEnd())
-                .origStartPosition(failedRequest.getOriginalRequestOrigin())
-                .origStopPosition(failedRequest.getOriginalRequestDestination())
-                .origDistanceKM(failedRequest.getRequestDistance())
-                .origDurationMIN(failedRequest.getRequestDuration())
-                .status(failedRequest.travelRequestStatus.toString())
-                .bookingWasShared(false)
-                .build());
-        scenario.incFailedRequestsCnt();
-    }
-
-    /**
-     * This method calculates all possible vehicle-assignments for a request.
+     * This method calculates the plans of all possible vehicle-assignments for a request.
      *
      * @param newRequest       New travel-request, which should be assigned
      * @return true, if the request was assigned, else returns false
@@ -210,139 +180,149 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
         ArrayList<Vehicle> vehicleList = vehicleListProvider.getVehicleList(false);
         Logger.trace("{} vehicles available after filter", vehicleList.size());
 
-        // Calculate possible routes for selected vehicles
-        vehicleList.forEach(veh -> {
-            Logger.trace("Processing vehicle {}", veh.getId());
-
-            // Store current length of vehicle route to compare it later
-            double currentRouteLength = veh.getRemainingRouteDistanceKM();
-
-            try {
-                // If vehicle has no open requests, calculate route directly, else use jSprit for solving
-                Route newRoute = makejSpritAssignmentRoute(veh, newRequest);
+        // Only the closest vehicles according to the adaptive candidate list size are evaluated. The rank of each
+        // vehicle in the list of the VehicleListProvider is stored for the adaptation of the candidate list size
+        int candidateListSize = assignmentSolver.getSearchController().getCandidateListSize();
+        if (vehicleList.size() > candidateListSize) vehicleList = new ArrayList<>(vehicleList.subList(0, candidateListSize));
+        for (int rank = 0; rank < vehicleList.size(); rank++) requestRoutes.setCandidateRank(vehicleList.get(rank), rank);
+
+        // Order the vehicles by the lower bound of the extra VMT, so that promising vehicles are evaluated first
+        if (Config.ENABLE_LOWER_BOUND_PRUNING) {
+            vehicleList.forEach(veh -> requestRoutes.setLowerBound(veh,
+                    assignmentSolver.calcExtraDistanceLowerBoundKM(veh.getSchedule(), newRequest)));
+            vehicleList.sort(Comparator.comparingDouble(requestRoutes::getLowerBound));
+            statistics.incPruningTotalCandidates(vehicleList.size());
+        }
 
-                // If a valid route was calculated, evaluate extra distance and store the result
-                if (newRoute != null) {
-                    double VMTDifference = newRoute.getRouteDistanceKM() - currentRouteLength;
-                    requestRoutes.addVehicleRoutePair(new VehicleRoutePair(veh, newRoute, VMTDifference));
-                }
-            } catch (Exception e) {
-                Logger.error(e);
-                Logger.error("Assignment Error because of Jsprit/Routing");
-                Logger.error("Vehicle {}, Request {}", veh.getId(), newRequest.getRequestID());
+        // Calculate possible plans for selected vehicles in chunks, for parallel strategies nested in the parallel
+        // request stream. Evaluation stops, if the lower bound exceeds the lowest extra VMT found so far. The pruned
+        // vehicles are kept as fallback for the assignment
+        int chunkSize = Config.ENABLE_LOWER_BOUND_PRUNING ? Math.max(1, Config.PRUNING_CHUNK_SIZE) : Math.max(1, vehicleList.size());
+        for (int chunkStart = 0; chunkStart < vehicleList.size(); chunkStart += chunkSize) {
+            if (requestRoutes.isPruned(vehicleList.get(chunkStart))) {
+                statistics.incPrunedCandidates(vehicleList.size() - chunkStart);
+                vehicleList.subList(chunkStart, vehicleList.size()).forEach(requestRoutes::addPrunedVehicle);
+                break;
             }
-        });
+
+            List<Vehicle> chunk = vehicleList.subList(chunkStart, Math.min(chunkStart + chunkSize, vehicleList.size()));
+            createStream(chunk).forEach(veh -> evaluateVehicle(veh, requestRoutes));
+        }
 
         // Request could not be assigned
         return requestRoutes;
     }
 
     /**
-     * This method tries to assign a travel-request to a vehicle using the jSprit solver.
-     * It the assignment succeeds, a valid route is returned, else null is returned
-     *
-     * @param veh Idle vehicle
-     * @param newRequest New travel-request
-     * @return valid route, if assignment was successful, otherwise null
+     * Calculates the plan for the assignment of a request to a vehicle and stores the plan, unless the vehicle can
+     * be pruned because of its lower bound
      */
-    private Route makejSpritAssignmentRoute(Vehicle veh, User.TripRequest newRequest) {
-        SingleRequestJSpritSolver solver = new SingleRequestJSpritSolver();
-
-        VehicleRoutingProblem vrp = solver.buildVRP(veh, newRequest);
-        VehicleRoutingProblemSolution bestSolution = solver.solveVRP(vrp);
-        statistics.incJspritTotalCalls(1);
-
-        Route newRoute = null;
-        // If a solution is found, try to create a valid route
-        if (bestSolution != null) {
-            newRoute = solver.makeRouteFromSolution(bestSolution, veh, newRequest);
+    private void evaluateVehicle(Vehicle veh, RequestRoutes requestRoutes) {
+        Logger.trace("Processing vehicle {}", veh.getId());
+
+        // The lowest extra VMT might have been improved by another vehicle of the same chunk
+        if (requestRoutes.isPruned(veh)) {
+            statistics.incPrunedCandidates(1);
+            requestRoutes.addPrunedVehicle(veh);
+            return;
+        }
 
-            statistics.incJspritValidCalls(1);
-            if (newRoute != null) statistics.incJspritValidRouteCalls(1);
+        addVehiclePlan(veh, requestRoutes);
+    }
 
-            // Plot jSprit-solution, if configured
-            if (Config.PRINT_JSPRIT_SOLUTION_INFO) {
-                solver.plotSolution(vrp, bestSolution);
-            }
+    /**
+     * Evaluates the pruned vehicles of a request, whose lower bound does not exceed the lowest extra VMT of the
+     * stored plans, and stores their plans
+     */
+    private void evaluatePrunedVehicles(RequestRoutes requestRoutes) {
+        Vehicle veh;
+        while ((veh = requestRoutes.pollPrunedVehicle()) != null) {
+            Logger.trace("Evaluating pruned vehicle {} for request {}", veh.getId(), requestRoutes.getTravelRequest().getRequestID());
+            addVehiclePlan(veh, requestRoutes);
         }
-        return newRoute;
     }
 
     /**
-     * In case of the attempt to assign a travel-request to an empty vehicle, a direct assignment is tried.
-     * It the assignment succeeds, a valid route is returned, else null is returned
-     *
-     * @param vehicle Idle vehicle
-     * @param request New travel-request
-     * @return valid route, if assignment was successful, otherwise null
+     * Calculates the plan for the assignment of a request to a vehicle and stores the plan
      */
-    private Route makeDirectAssignmentRoute(Vehicle vehicle, User.TripRequest request) {
-        statistics.incDirectAssignmentTotalCalls(1);
-
+    private void addVehiclePlan(Vehicle veh, RequestRoutes requestRoutes) {
+        User.TripRequest newRequest = requestRoutes.getTravelRequest();
         try {
-            // Create copy of the original request to avoid alteration of the original request in case this assignment fails
-            User.TripRequest tempUserRequest = new User.TripRequest(request);
-            tempUserRequest.setBookingPickupLatest(vehicle, true);
-
-            // Make new route. If current RouteStep is not interruptible (e.g. Pickup/Dropoff),
-            // let new route start after current RouteStep finished
-            Route route;
-            if ((vehicle.getCurrentRouteStep() != null) && (!vehicle.getCurrentRouteStep().isInterruptible())) {
-                route = new Route(vehicle.getCurrentRouteStep().getEndTime());
-            } else {
-                route = new Route(SimTime.now());
+            // Calculate the plan using the configured solver
+            RoutePlan newPlan = assignmentSolver.makeAssignmentPlan(veh, newRequest);
+
+            // If a plan was calculated, evaluate extra distance and store the result
+            if (newPlan != null) {
+                double VMTDifference = newPlan.getExtraDistanceKM();
+                requestRoutes.addVehiclePlanPair(new VehiclePlanPair(veh, newPlan, VMTDifference));
             }
+        } catch (Exception e) {
+            Logger.error(e);
+            Logger.error("Assignment Error because of Jsprit/Routing");
+            Logger.error("Vehicle {}, Request {}", veh.getId(), newRequest.getRequestID());
+        }
+    }
 
-            // Calculate duration for pickup/dropoff in milliseconds
-            long pickupDropoffDuration = (Config.VEHICLE_PICKUP_DROPOFF_DELAY_SECONDS +
-                    Config.PICKUP_DROPOFF_DURATION_PER_PERSON_SECONDS * tempUserRequest.getTotalPersons()) * 1000;
+    private static class RequestRoutes implements Comparable<RequestRoutes> {
+        private volatile double lowestVMT = Double.MAX_VALUE;
+        private User.TripRequest travelRequest;
+        private TreeSet<VehiclePlanPair> vehiclePlans = new TreeSet<>();
+        private HashMap<Vehicle, Integer> candidateRanks = new HashMap<>();
+        private HashMap<Vehicle, Double> lowerBounds = new HashMap<>();
+        private PriorityQueue<Vehicle> prunedVehicles = new PriorityQueue<>(Comparator.comparingDouble(this::getLowerBound));
+
+        RequestRoutes(User.TripRequest travelRequest) {
+            this.travelRequest = travelRequest;
+        }
 
-            // Make RouteStepEnroute for the RouteStep to pickup the request
-            route.appendRouteStep(new RouteStepEnroute(vehicle.getPosition(), tempUserRequest.getOriginalRequestOrigin(), RouteStep.StepType.ENROUTE), true);
+        void setCandidateRank(Vehicle vehicle, int rank) {
+            candidateRanks.put(vehicle, rank);
+        }
 
-            // Make sure that vehicle arrives at tempUserRequest before "latest pickup time"
-            if (route.getRouteEndTime().isLessThan(tempUserRequest.getTripPickupLatest())) {
-                // Make the Pickup-RouteStepStationary
-                route.appendRouteStep(new RouteStepStationary(SimTime.now(), pickupDropoffDuration,
-                        RouteStep.StepType.PICKUP, route.getRouteDestination(), tempUserRequest.getRequestID()), true);
+        int getCandidateRank(Vehicle vehicle) {
+            return candidateRanks.getOrDefault(vehicle, 0);
+        }
 
-                // Make the RouteStepEnroute to the drop-off point
-                route.appendRouteStep(new RouteStepEnroute(route.getRouteDestination(), tempUserRequest.getOriginalRequestDestination(), RouteStep.StepType.ENROUTE), true);
+        void setLowerBound(Vehicle vehicle, double lowerBound) {
+            lowerBounds.put(vehicle, lowerBound);
+        }
 
-                // Make the Drop-off-RouteStepStationary
-                route.appendRouteStep(new RouteStepStationary(SimTime.now(), pickupDropoffDuration,
-                        RouteStep.StepType.DROPOFF, route.getRouteDestination(), tempUserRequest.getRequestID()), true);
+        double getLowerBound(Vehicle vehicle) {
+            return lowerBounds.getOrDefault(vehicle, Double.NEGATIVE_INFINITY);
+        }
 
-                // Return the valid route
-                statistics.incDirectAssignmentValidRouteCalls(1);
-                return route;
-            } else {
-                throw new RoutingException("Route violates pickup-time constraint");
-            }
-        } catch (RoutingException re) {
-            return null;
+        /**
+         * @return true, if the lower bound of the vehicle exceeds the lowest extra VMT found so far
+         */
+        boolean isPruned(Vehicle vehicle) {
+            return getLowerBound(vehicle) > lowestVMT;
         }
-    }
 
-    /**
-     * Specifies on how to create a stream on a collection. Can specify a parallel or sequential stream.
-     */
-    public abstract <T> Stream<T> createStream(Collection<T> collection);
+        synchronized void addPrunedVehicle(Vehicle vehicle) {
+            prunedVehicles.add(vehicle);
+        }
 
-    private static class RequestRoutes implements Comparable<RequestRoutes> {
-        private double lowestVMT = Double.MAX_VALUE;
-        private User.TripRequest travelRequest;
-        private TreeSet<VehicleRoutePair> vehicleRoutes = new TreeSet<>();
+        /**
+         * @return Lowest lower bound of the pruned vehicles, or Double.MAX_VALUE, if no vehicle was pruned
+         */
+        synchronized double getLowestPrunedBound() {
+            return prunedVehicles.isEmpty() ? Double.MAX_VALUE : getLowerBound(prunedVehicles.peek());
+        }
 
-        RequestRoutes(User.TripRequest travelRequest) {
-            this.travelRequest = travelRequest;
+        /**
+         * Removes the pruned vehicle with the lowest lower bound, if the lower bound does not exceed the lowest extra
+         * VMT of the stored plans
+         * @return Pruned vehicle, or null, if there is no such vehicle
+         */
+        synchronized Vehicle pollPrunedVehicle() {
+            return getLowestPrunedBound() <= lowestVMT ? prunedVehicles.poll() : null;
         }
 
-        synchronized void addVehicleRoutePair(VehicleRoutePair vehicleRoutePair) {
-            vehicleRoutes.add(vehicleRoutePair);
+        synchronized void addVehiclePlanPair(VehiclePlanPair vehiclePlanPair) {
+            vehiclePlans.add(vehiclePlanPair);
 
             // Update lowestVMT value
-            lowestVMT = vehicleRoutes.first().extraVMT;
+            lowestVMT = vehiclePlans.first().extraVMT;
         }
 
         public double getLowestVMT() {
@@ -353,11 +333,11 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
             return travelRequest;
         }
 
-        synchronized public VehicleRoutePair getBestVehicleRoutePair() {
-            VehicleRoutePair bestPair = vehicleRoutes.pollFirst();
+        synchronized public VehiclePlanPair getBestVehiclePlanPair() {
+            VehiclePlanPair bestPair = vehiclePlans.pollFirst();
 
-            if (vehicleRoutes.size() == 0) lowestVMT = Double.MAX_VALUE;
-            else lowestVMT = vehicleRoutes.first().extraVMT;
+            if (vehiclePlans.size() == 0) lowestVMT = Double.MAX_VALUE;
+            else lowestVMT = vehiclePlans.first().extraVMT;
 
             return bestPair;
         }
@@ -386,14 +366,14 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
         }
     }
 
-    private static class VehicleRoutePair implements Comparable<VehicleRoutePair> {
+    private static class VehiclePlanPair implements Comparable<VehiclePlanPair> {
         private Vehicle vehicle;
-        private Route route;
+        private RoutePlan plan;
         private double extraVMT;
 
-        VehicleRoutePair(Vehicle vehicle, Route route, double extraVMT) {
+        VehiclePlanPair(Vehicle vehicle, RoutePlan plan, double extraVMT) {
             this.vehicle = vehicle;
-            this.route = route;
+            this.plan = plan;
             this.extraVMT = extraVMT;
         }
 
@@ -401,8 +381,8 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
             return vehicle;
         }
 
-        public Route getRoute() {
-            return route;
+        public RoutePlan getPlan() {
+            return plan;
         }
 
         public double getExtraVMT() {
@@ -422,7 +402,7 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
         }
 
         @Override
-        public int compareTo(VehicleRoutePair o) {
+        public int compareTo(VehiclePlanPair o) {
             if (extraVMT != o.extraVMT) {
                 return Double.compare(extraVMT, o.extraVMT);
             } else if (equals(o)){
@@ -432,21 +412,4 @@ public abstract class ShortestRouteAssignment implements AssignmentStrategyInter
             }
         }
     }
-
-    /**
-     * @return Map with assignment statistics
-     */
-    public Map<String, Long> getAssignmentStatistics() {
-        HashMap<String, Long> counterMap = new LinkedHashMap<>();
-        counterMap.put("Total JSprit Calls", statistics.getJspritTotalCalls().get());
-        counterMap.put("JSprit Calls with valid Solution", statistics.getJspritValidCalls().get());
-        counterMap.put("JSprit Calls with valid Route", statistics.getJspritValidRouteCalls().get());
-        counterMap.put("Total Direct Assignment Calls", statistics.getDirectAssignmentTotalCalls().get());
-        counterMap.put("Direct Assignment Calls with valid Route", statistics.getDirectAssignmentValidRouteCalls().get());
-        counterMap.put("Successful Assignment on first try", (long) statistics.getSuccessfulAssignmentOnFirstTry().get());
-        counterMap.put("Successful Assignment on second try", (long) statistics.getSuccessfulAssignmentOnSecondTry().get());
-        counterMap.put("Total second try assignments", (long) statistics.getTotalSecondTryAssignments().get());
-
-        return counterMap;
-    }
 }
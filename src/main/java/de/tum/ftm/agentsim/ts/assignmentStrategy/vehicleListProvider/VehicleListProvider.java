@@ -2,6 +2,7 @@ package de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider;
 
 import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Interface to define common methods for classes which are used to determine the available vehicles for a
@@ -18,4 +19,14 @@ public interface VehicleListProvider {
      * @return A list of vehicles
      */
     ArrayList<Vehicle> getVehicleList(boolean onlyIdleVehicles);
+
+    /**
+     * Method to return a list of vehicles to which the travel-request could be assigned. Only vehicles of the
+     * provided vehicle pool are considered (e.g. the vehicles of a partition).
+     *
+     * @param onlyIdleVehicles Only return vehicles which are idle
+     * @param vehiclePool      Vehicles, which should be considered
+     * @return A list of vehicles
+     */
+    ArrayList<Vehicle> getVehicleList(boolean onlyIdleVehicles, Collection<Vehicle> vehiclePool);
 }
@@ -2,16 +2,16 @@ package de.tum.ftm.agentsim.ts.assignmentStrategy.vehicleListProvider;
 
 import de.tum.ftm.agentsim.ts.Config;
 import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
+import de.tum.ftm.agentsim.ts.simobjects.FleetStateStore;
 import de.tum.ftm.agentsim.ts.simobjects.SimObjectStatus;
 import de.tum.ftm.agentsim.ts.simobjects.User;
 import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.TreeSet;
 
-import static de.tum.ftm.agentsim.ts.simobjects.SimObject.scenario;
-
 /**
  * Implementation of the VehicleListProvider-Interface. This implementation returns a sorted list of vehicles in the
  * surroundings of the travel-request with following restrictions:
@@ -43,6 +43,26 @@ public class VehicleListProviderIsochrone implements VehicleListProvider {
      */
     @Override
     public ArrayList<Vehicle> getVehicleList(boolean onlyIdleVehicles) {
+        // Pre-filter the fleet on the FleetStateStore, so that the durations are only calculated for vehicles, which
+        // can serve the request
+        FleetStateStore fleetState = FleetStateStore.getInstance();
+        int persons = userRequest.getTotalPersons();
+        ArrayList<Vehicle> vehiclePool = onlyIdleVehicles ?
+                fleetState.filterVehicles(i -> fleetState.hasStatus(i, SimObjectStatus.VEHICLE_IDLE)) :
+                fleetState.filterVehicles(i -> fleetState.hasVacantSeats(i, persons));
+        return getVehicleList(onlyIdleVehicles, vehiclePool);
+    }
+
+    /**
+     * Iteratively searches for vehicles of the vehicle pool around the position of the request. Iteration will
+     * stop, if more vehicles than the maximum list size are found.
+     *
+     * @param onlyIdleVehicles Only return vehicles which are idle
+     * @param vehiclePool      Vehicles, which should be considered
+     * @return List of vehicles
+     */
+    @Override
+    public ArrayList<Vehicle> getVehicleList(boolean onlyIdleVehicles, Collection<Vehicle> vehiclePool) {
 
         // Vehicle list is ordered by ascending travel-duration of the vehicle to the user
         TreeSet<VehicleScore> vehicleList = new TreeSet<>();
@@ -53,7 +73,7 @@ public class VehicleListProviderIsochrone implements VehicleListProvider {
                     * Config.MAX_WAITING_TIME_SECONDS);
 
             if (onlyIdleVehicles) {
-                scenario.getSimObjectController().getFleet().values()
+                vehiclePool
                         .stream()
                         .filter(x -> (x.calculateDurationToPosition(userRequest.getOriginalRequestOrigin(), CityGridRouter.getInstance()) / 1000) <= searchRange
                                 && x.getStatus() == SimObjectStatus.VEHICLE_IDLE)
@@ -62,7 +82,7 @@ public class VehicleListProviderIsochrone implements VehicleListProvider {
                             vehicleList.add(new VehicleScore(vehicle, score));
                         });
             } else {
-                scenario.getSimObjectController().getFleet().values()
+                vehiclePool
                         .stream()
                         .filter(x -> (x.calculateDurationToPosition(userRequest.getOriginalRequestOrigin(), CityGridRouter.getInstance()) / 1000) <= searchRange
                                 && x.hasVacantSeats(userRequest.getTotalPersons()))
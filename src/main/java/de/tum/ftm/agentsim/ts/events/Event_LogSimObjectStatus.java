@@ -3,6 +3,7 @@ package de.tum.ftm.agentsim.ts.events;
 import de.tum.ftm.agentsim.ts.Config;
 import de.tum.ftm.agentsim.ts.log.DBLog;
 import de.tum.ftm.agentsim.ts.log.DBTableEntry;
+import de.tum.ftm.agentsim.ts.simobjects.FleetStateStore;
 import de.tum.ftm.agentsim.ts.simobjects.SimObjectController;
 import de.tum.ftm.agentsim.ts.simobjects.SimObjectStatus;
 import de.tum.ftm.agentsim.ts.simobjects.User;
@@ -46,18 +47,20 @@ public class Event_LogSimObjectStatus extends Event {
     }
 
     /**
-     * Create log-entries for each vehicle
+     * Create log-entries for each vehicle. Status and passengers are read from the FleetStateStore.
      */
     private void logVehicles() {
-        for (Vehicle v : simObjectController.getFleet().values()) {
+        FleetStateStore fleetState = FleetStateStore.getInstance();
+        for (int i = 0; i < fleetState.size(); i++) {
+            Vehicle v = fleetState.getVehicle(i);
             DBLog.dbTableSimObjectStatus.addLogEntry(new DBTableEntry.Builder()
                     .objectID(v.getId())
                     .objectType(v.getClass().getName())
                     .currentTime(SimTime.now())
-                    .status(v.getStatus().toString())
+                    .status(fleetState.getStatus(i).toString())
                     .currentPosition(v.getPosition())
                     .currentRequestsCount(v.getUserRequestMap().size())
-                    .currentPaxCount(v.getPassengers())
+                    .currentPaxCount(fleetState.getPassengers(i))
                     .build());
         }
     }
@@ -8,17 +8,20 @@ import de.tum.ftm.agentsim.ts.utils.SimTime;
 import org.pmw.tinylog.Logger;
 
 /**
- * This event is scheduled whenever a user makes a travel-request.
+ * This event is scheduled whenever a user makes a travel-request. The event only holds the ordinal of the request in
+ * the TripRequestStore, the TripRequest is created when the event is executed. Each event schedules the event of the
+ * next request, so that only one request-event is in the event-queue at any time.
  * @author Manfred Klöppel
  */
 public class Event_UserRequest extends Event {
 
+    private int requestOrdinal;
     private User.TripRequest userRequest;
     private static int counter = 0;
 
-    public Event_UserRequest(SimTime scheduledTime, User.TripRequest userRequest) {
+    public Event_UserRequest(SimTime scheduledTime, int requestOrdinal) {
         super(scheduledTime);
-        this.userRequest = userRequest;
+        this.requestOrdinal = requestOrdinal;
     }
 
     /**
@@ -26,6 +29,8 @@ public class Event_UserRequest extends Event {
      */
     @Override
     public void action() {
+        scheduleNextRequest();
+        userRequest = scenario.getSimObjectController().activateRequest(requestOrdinal);
         Logger.trace("Request-ID: {}", userRequest.getRequestID());
 
         // Check, that the User is IDLE
@@ -60,8 +65,17 @@ public class Event_UserRequest extends Event {
         }
     }
 
+    /**
+     * Adds the event of the next request to the event-queue
+     */
+    public void scheduleNextRequest() {
+        Event_UserRequest nextRequest = scenario.getSimObjectController().getRequestEvent(requestOrdinal + 1);
+        if (nextRequest != null) scenario.addEvent(nextRequest);
+    }
+
     @Override
     public String toString() {
-        return String.format("%s UserID: %s", this.scheduledTime.toString(), this.userRequest.getUser().getId());
+        return String.format("%s UserID: %s", this.scheduledTime.toString(),
+                scenario.getSimObjectController().getRequestStore().getPersonID(requestOrdinal));
     }
 }
@@ -37,6 +37,7 @@ public class DBLog {
     public static DBTableVehicles           dbTableVehicles;
     public static DBTableSimObjectStatus    dbTableSimObjectStatus;
     public static DBTableRoutes             dbTableRoutes;
+    public static DBTableTripRouteSteps     dbTableTripRouteSteps;
 
     // Array to hold log-tables
     private ArrayList<DBTable> allDBTables = new ArrayList<>();
@@ -93,8 +94,10 @@ public class DBLog {
         dbTableVehicles         = new DBTableVehicles(this);
         dbTableSimObjectStatus  = new DBTableSimObjectStatus(this);
         dbTableRoutes           = new DBTableRoutes(this);
+        dbTableTripRouteSteps   = new DBTableTripRouteSteps(this);
 
         allDBTables.add(dbTableRoutes);
+        allDBTables.add(dbTableTripRouteSteps); // view of dbTableTripRouteSteps references dbTableRoutes
         allDBTables.add(dbTableTrips);
         allDBTables.add(dbTableVehicles); // make sure, dbTableRoutes will always be processed before dbTableVehicles
         allDBTables.add(dbTableSimObjectStatus);
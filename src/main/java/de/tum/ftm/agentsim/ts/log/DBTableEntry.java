@@ -62,9 +62,13 @@ public class DBTableEntry {
 
     // DBTableRoutes
     private final Integer routeID;
+    private final Integer routeStepID;
     private final String stepType;
     private final String geomWKT;
 
+    // DBTableTripRouteSteps
+    private final Integer routeStepSequence;
+
     public static class Builder {
 
         // Required Parameters
@@ -105,6 +109,8 @@ public class DBTableEntry {
         private Integer currentRequestsCount        = null;
         private Position currentPosition            = null;
         private Integer routeID                     = null;
+        private Integer routeStepID                 = null;
+        private Integer routeStepSequence           = null;
         private String stepType                     = null;
         private String geomWKT                      = null;
         private Integer servedPassengers            = null;
@@ -282,6 +288,14 @@ public class DBTableEntry {
             this.routeID = routeID;
             return this;
         }
+        public Builder routeStepID(Integer routeStepID) {
+            this.routeStepID = routeStepID;
+            return this;
+        }
+        public Builder routeStepSequence(Integer routeStepSequence) {
+            this.routeStepSequence = routeStepSequence;
+            return this;
+        }
         public Builder stepType(String stepType) {
             this.stepType = stepType;
             return this;
@@ -336,6 +350,8 @@ public class DBTableEntry {
         this.currentRequestsCount = builder.currentRequestsCount;
         this.currentPosition = builder.currentPosition;
         this.routeID = builder.routeID;
+        this.routeStepID = builder.routeStepID;
+        this.routeStepSequence = builder.routeStepSequence;
         this.stepType = builder.stepType;
         this.geomWKT = builder.geomWKT;
         this.bookingWasShared = builder.bookingWasShared;
@@ -502,6 +518,14 @@ public class DBTableEntry {
         return routeID;
     }
 
+    public Integer getRouteStepID() {
+        return routeStepID;
+    }
+
+    public Integer getRouteStepSequence() {
+        return routeStepSequence;
+    }
+
     public String getStepType() {
         return stepType;
     }
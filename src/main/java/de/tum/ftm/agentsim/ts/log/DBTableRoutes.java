@@ -1,5 +1,8 @@
 package de.tum.ftm.agentsim.ts.log;
 
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectRoutable;
 import org.pmw.tinylog.Logger;
 
 import java.sql.PreparedStatement;
@@ -7,8 +10,9 @@ import java.sql.SQLException;
 import java.sql.Statement;
 
 /**
- * This database table contains the information of all routes done by the agents during the simulation.
- * Entries are added whenever the Event "LogSimObjectRouteHistory" occurs.
+ * This database table contains the information of all routes done by the vehicles during the simulation.
+ * Entries are added whenever a routeStep of a vehicle is completed. The routes of the trips reference these entries
+ * by the routeStep-ID (see DBTableTripRouteSteps).
  * @author Manfred Klöppel
  */
 public class DBTableRoutes extends DBTable {
@@ -17,6 +21,29 @@ public class DBTableRoutes extends DBTable {
         super(dbLog);
     }
 
+    /**
+     * Adds a routeStep of the route history of a vehicle or user to the buffer
+     * @param route     Route history, which contains the routeStep
+     * @param simObject Vehicle or user, which travelled the routeStep
+     * @param rs        Completed routeStep
+     */
+    public void addRouteStepEntry(Route route, SimObjectRoutable simObject, RouteStep rs) {
+        addLogEntry(new DBTableEntry.Builder()
+                .routeID(route.getRouteID())
+                .routeStepID(rs.getRouteStepID())
+                .objectID(simObject.getId())
+                .objectType(simObject.getClass().getName())
+                .origStartTime(rs.getStartTime())
+                .origStopTime(rs.getEndTime())
+                .stepType(rs.getStepType().toString())
+                .drivingDurationMIN(((double) rs.getDurationMS()) / 1000 / 60)
+                .drivingDistanceKM(rs.getDistanceM() / 1000)
+                .geomWKT(rs.getWKTFromRouteStep().toString())
+                .currentPaxCount(rs.getPassengerCount())
+                .currentRequestsCount(rs.getRequestCount())
+                .build());
+    }
+
     /**
      * Definition of the database-table
      */
@@ -36,7 +63,8 @@ public class DBTableRoutes extends DBTable {
                     + "request_count INTEGER, " // 8
                     + "duration_min REAL, "     // 9
                     + "distance_km REAL, "      // 10
-                    + "geom_wkt TEXT)");        // 11
+                    + "geom_wkt TEXT, "         // 11
+                    + "route_step_id INTEGER)");// 12
 
             connection.commit();
             stmt.close();
@@ -51,7 +79,7 @@ public class DBTableRoutes extends DBTable {
     @Override
     public void writeBufferToDB() {
         try {
-            PreparedStatement ps = connection.prepareStatement("INSERT INTO log_routes VALUES (?,?,?,?,?,?,?,?,?,?,?)");
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO log_routes VALUES (?,?,?,?,?,?,?,?,?,?,?,?)");
             for (DBTableEntry b : buffer) {
                 ps.setInt(1, b.getRouteID());
                 ps.setString(2, b.getObjectType());
@@ -64,6 +92,7 @@ public class DBTableRoutes extends DBTable {
                 ps.setDouble(9, b.getDrivingDurationMIN());
                 ps.setDouble(10, b.getDrivingDistanceKM());
                 ps.setString(11, b.getGeomWKT());
+                ps.setInt(12, b.getRouteStepID());
                 ps.addBatch();
             }
             ps.executeBatch();
@@ -0,0 +1,104 @@
+package de.tum.ftm.agentsim.ts.log;
+
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import org.pmw.tinylog.Logger;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This database table links the travel-requests to the routeSteps of the vehicles, which were travelled during the
+ * trip. The routeSteps themselves (including their geometry) are only stored once in log_routes. The view
+ * view_trip_routes joins both tables to reconstruct the route of each trip.
+ * Entries are added whenever a trip is completed.
+ * @author Manfred Klöppel
+ */
+public class DBTableTripRouteSteps extends DBTable {
+
+    DBTableTripRouteSteps(DBLog dbLog) {
+        super(dbLog);
+    }
+
+    /**
+     * Adds a routeStep of the route history of a travel-request to the buffer
+     * @param request  Completed travel-request
+     * @param sequence Position of the routeStep in the route history of the travel-request
+     * @param rs       RouteStep, which was travelled during the trip
+     */
+    public void addTripRouteStepEntry(User.TripRequest request, int sequence, RouteStep rs) {
+        addLogEntry(new DBTableEntry.Builder()
+                .bookingID(request.getRequestID())
+                .personID(request.getUser().getId())
+                .routeStepSequence(sequence)
+                .routeStepID(rs.getRouteStepID())
+                .build());
+    }
+
+    /**
+     * Definition of the database-table and the view to reconstruct the routes of the trips
+     */
+    @Override
+    public void initializeTable() {
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.executeUpdate("DROP VIEW IF EXISTS view_trip_routes");
+            stmt.executeUpdate("DROP TABLE IF EXISTS log_trip_route_steps");
+            stmt.executeUpdate("CREATE TABLE log_trip_route_steps ("
+                    + "booking_id INTEGER, "    // 1
+                    + "person_id INTEGER, "     // 2
+                    + "sequence INTEGER, "      // 3
+                    + "route_step_id INTEGER)");// 4
+            stmt.executeUpdate("CREATE VIEW view_trip_routes AS "
+                    + "SELECT t.booking_id, t.person_id, t.sequence, r.* "
+                    + "FROM log_trip_route_steps t JOIN log_routes r ON r.route_step_id = t.route_step_id");
+
+            connection.commit();
+            stmt.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Implementation of the function to write the buffer to the database
+     */
+    @Override
+    public void writeBufferToDB() {
+        try {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO log_trip_route_steps VALUES (?,?,?,?)");
+            for (DBTableEntry b : buffer) {
+                ps.setLong(1, b.getRequestID());
+                ps.setLong(2, b.getPersonID());
+                ps.setInt(3, b.getRouteStepSequence());
+                ps.setInt(4, b.getRouteStepID());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            connection.commit();
+            ps.close();
+            buffer.clear();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Postprocessing database operation after all data was inserted into the database
+     */
+    @Override
+    public void postprocessing() {
+        Logger.info("Postprocessing log_trip_route_steps: Creating db indexes...");
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_route_step_id ON log_routes (route_step_id)");
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_trip_booking_id ON log_trip_route_steps (booking_id, sequence)");
+
+            connection.commit();
+            stmt.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -124,6 +124,44 @@ public class CityGridRouter implements RoutingInterface {
     }
 
 
+    /**
+     * Returns the travel distance between the provided Positions from the CityGrid. No fallback to GraphHopper is used.
+     *
+     * @param from Start point
+     * @param to   End point
+     * @return Travel distance in meters
+     * @throws RoutingException If CityGrid was not loaded or not data was returned from the CityGrid
+     */
+    public double calculateGridDistance(Position from, Position to) throws RoutingException {
+        if (routingGrid != null) {
+            return routingGrid.getDistance(from, to);
+        }
+        else throw new RoutingException("CityGrid not loaded!");
+    }
+
+
+    /**
+     * Returns the length of the diagonal of a grid cell. The values of the CityGrid between two positions are the
+     * values between the centers of their cells, which can be closer to each other by up to this length.
+     *
+     * @return Diagonal of the widest grid cell in meters, zero if the CityGrid is not loaded
+     */
+    public double getCellDiagonalM() {
+        return (routingGrid != null) ? routingGrid.getMaxCellDiagonal() : 0;
+    }
+
+
+    /**
+     * Checks, whether routes from/to the position can be answered by the CityGrid without fallback to GraphHopper
+     *
+     * @param position Position
+     * @return true, if the CityGrid is loaded and the position lies within a valid cell
+     */
+    public boolean isPositionCovered(Position position) {
+        return routingGrid != null && routingGrid.isPositionCovered(position);
+    }
+
+
     /**
      * @return Number of calls of the CityGridRouter
      */
@@ -0,0 +1,43 @@
+package de.tum.ftm.agentsim.ts.routing;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.utils.Position;
+
+/**
+ * Lower bounds of the travel distance and duration of cars between two positions, which are not larger than the
+ * values returned by the router. The bounds are calculated from the straight-line distance between the positions:
+ * - Distance: A route is at least as long as the straight-line distance. The CityGrid only contains values between
+ *   the centers of the grid cells, therefore the diagonal of a grid cell is subtracted, if the CityGrid is used.
+ * - Duration: The distance is travelled with the maximum speed of the road network (max_network_speed_kmh) and
+ *   corrected by the travel time factor of cars.
+ * The distance between a position and the point of the road network, to which the router snaps the position, is
+ * neglected.
+ *
+ * @author Manfred Klöppel
+ */
+public class RoutingLowerBound {
+
+    // The Haversine-distance of a Position uses a larger earth radius than GraphHopper (6371 km)
+    private static final double EARTH_RADIUS_CORRECTION = 6371.0 / 6372.8;
+
+    private RoutingLowerBound() {}
+
+
+    /**
+     * @return Lower bound of the travel distance between two positions in meters
+     */
+    public static double calcDistanceM(Position from, Position to) {
+        if (from.equals(to)) return 0;
+        double distanceM = from.haversineDistance(to) * 1000 * EARTH_RADIUS_CORRECTION;
+        if (Config.USE_GRID_ROUTER) distanceM -= CityGridRouter.getInstance().getCellDiagonalM();
+        return Math.max(0, distanceM);
+    }
+
+
+    /**
+     * @return Lower bound of the travel duration of a car between two positions in milliseconds
+     */
+    public static long calcDurationMS(Position from, Position to) {
+        return (long) (calcDistanceM(from, to) * 3600 / Config.MAX_NETWORK_SPEED_KMH * Config.TRAVEL_TIME_FACTOR_CAR);
+    }
+}
@@ -3,22 +3,36 @@ package de.tum.ftm.agentsim.ts.routing.route;
 import de.tum.ftm.agentsim.ts.utils.Position;
 import de.tum.ftm.agentsim.ts.utils.SimTime;
 
-import java.util.TreeSet;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents a route on which a SimObjectRoutable can travel along.
  * Each route consists of RouteSteps, which can be either stationary or enroute.
+ * The RouteSteps are stored ordered in an array between a head- and a tail-index, so that appending a RouteStep and
+ * removing the first RouteStep is done in constant time. For each RouteStep, the prefix sums of the enroute-distance
+ * and the duration of all RouteSteps up to this RouteStep are stored, so that the remaining distance/duration and the
+ * distance/duration until a RouteStep are determined in constant time.
  *
  * @author Manfred Klöppel
  */
 public class Route {
 
+    private static final int INITIAL_CAPACITY = 8;
+
     // Counter for overall amount of routes
     private static AtomicInteger routeCount = new AtomicInteger(0);
 
-    // List of RouteSteps in this route, ordered
-    private TreeSet<RouteStep> routeSteps = new TreeSet<>();
+    // RouteSteps in this route, ordered. Valid RouteSteps are stored between head (inclusive) and tail (exclusive).
+    private RouteStep[] routeSteps = new RouteStep[INITIAL_CAPACITY];
+    private double[] prefixDistanceM = new double[INITIAL_CAPACITY];  // Enroute-distance up to and including the step
+    private long[] prefixDurationMS = new long[INITIAL_CAPACITY];     // Duration up to and including the step
+    private int head = 0;
+    private int tail = 0;
+    private double removedDistanceM = 0;     // Prefix sums of the RouteSteps before head
+    private long removedDurationMS = 0;
 
     private int routeID;
     private Position routeOrigin;
@@ -44,7 +58,7 @@ public class Route {
      */
 	public Route(RouteStep routeStep) {
 		routeID = makeRouteID();
-		routeSteps.add(routeStep);
+		insertRouteStep(routeStep);
         this.routeStartTime = routeStep.getStartTime();
         this.routeEndTime = routeStep.getEndTime();
         this.routeDurationMS = routeStep.durationMS;
@@ -58,26 +72,78 @@ public class Route {
      *
      * @param routeStep           New routeStep which should be added to the route
      * @param updateRouteStepTime If true, timestamps of routeStep will be adjusted
+     * @return true, if the routeStep was added, false if it was already part of the route
      */
-    public void appendRouteStep(RouteStep routeStep, Boolean updateRouteStepTime) {
+    public boolean appendRouteStep(RouteStep routeStep, Boolean updateRouteStepTime) {
 
         if (updateRouteStepTime) {
             // Update timestamp of new routeStep
             routeStep.updateStartTime(getRouteEndTime());
         }
-        routeSteps.add(routeStep);
+        boolean inserted = insertRouteStep(routeStep);
 
         // Update the start- and end-time of the whole route, and update the durationMS
-        setRouteStartTime(routeSteps.first().getStartTime());
-        setRouteEndTime(routeSteps.last().getEndTime());
+        setRouteStartTime(routeSteps[head].getStartTime());
+        setRouteEndTime(routeSteps[tail - 1].getEndTime());
 
         // Update the start-/and end-point of the route
-        this.routeOrigin = routeSteps.first().getStartPosition();
-        this.routeDestination = routeSteps.last().getEndPosition();
+        this.routeOrigin = routeSteps[head].getStartPosition();
+        this.routeDestination = routeSteps[tail - 1].getEndPosition();
 
         // Update total route distanceM
         this.routeDistanceM += routeStep.getDistanceM();
         this.routeDurationMS += routeStep.getDurationMS();
+        return inserted;
+    }
+
+
+    /**
+     * Inserts a RouteStep at its position in the order of the RouteSteps. RouteSteps are usually appended in order, so
+     * the position is searched from the tail. The prefix sums are updated from the inserted RouteStep onwards. A
+     * RouteStep, which is already part of the route, is not inserted again.
+     *
+     * @param routeStep New routeStep
+     * @return true, if the routeStep was inserted
+     */
+    private boolean insertRouteStep(RouteStep routeStep) {
+        if (tail == routeSteps.length) ensureCapacity();
+
+        int index = tail;
+        while (index > head && routeSteps[index - 1].compareTo(routeStep) >= 0) {
+            if (routeSteps[index - 1].compareTo(routeStep) == 0) return false;
+            index--;
+        }
+        System.arraycopy(routeSteps, index, routeSteps, index + 1, tail - index);
+        routeSteps[index] = routeStep;
+        tail++;
+
+        for (int i = index; i < tail; i++) {
+            double prevDistanceM = (i == head) ? removedDistanceM : prefixDistanceM[i - 1];
+            long prevDurationMS = (i == head) ? removedDurationMS : prefixDurationMS[i - 1];
+            prefixDistanceM[i] = prevDistanceM + (routeSteps[i] instanceof RouteStepEnroute ? routeSteps[i].distanceM : 0);
+            prefixDurationMS[i] = prevDurationMS + routeSteps[i].durationMS;
+        }
+        return true;
+    }
+
+    /**
+     * Provides space for a new RouteStep at the tail. The RouteSteps are moved to the beginning of the array, if enough
+     * space is available before head, else the capacity is doubled.
+     */
+    private void ensureCapacity() {
+        int size = tail - head;
+        if (head < routeSteps.length / 2) {
+            int newCapacity = routeSteps.length * 2;
+            routeSteps = Arrays.copyOf(routeSteps, newCapacity);
+            prefixDistanceM = Arrays.copyOf(prefixDistanceM, newCapacity);
+            prefixDurationMS = Arrays.copyOf(prefixDurationMS, newCapacity);
+        }
+        System.arraycopy(routeSteps, head, routeSteps, 0, size);
+        System.arraycopy(prefixDistanceM, head, prefixDistanceM, 0, size);
+        System.arraycopy(prefixDurationMS, head, prefixDurationMS, 0, size);
+        Arrays.fill(routeSteps, size, tail, null);
+        head = 0;
+        tail = size;
     }
 
 
@@ -89,7 +155,7 @@ public class Route {
         int enrtStepCounter = 0;
 
         StringBuilder wkt = new StringBuilder("MULTILINESTRING(");
-        for (RouteStep rs : routeSteps) {
+        for (RouteStep rs : getRouteSteps()) {
             if (rs instanceof RouteStepEnroute) {
                 StringBuilder linestringWKT = rs.getWKTFromRouteStep().delete(0, 10);
 
@@ -117,17 +183,40 @@ public class Route {
 	}
 
     /**
-     * Calculates the total route distance as sum of all RouteStepEnroutes
-     * @return Total route distance in kilometers
+     * Returns the distance of the remaining route as sum of all RouteStepEnroutes
+     * @return Remaining route distance in kilometers
      */
-    public double calculateRouteDistanceKM() {
-        double distanceSum = 0;
-        for (RouteStep rteStep : routeSteps) {
-            if (rteStep instanceof RouteStepEnroute) {
-                distanceSum += rteStep.distanceM;
-            }
-        }
-        return distanceSum/1000;
+    public double getRemainingDistanceKM() {
+        return getDistanceUntilStepKM(tail - head);
+    }
+
+    /**
+     * Returns the duration of the remaining route as sum of all RouteSteps
+     * @return Remaining route duration in milliseconds
+     */
+    public long getRemainingDurationMS() {
+        return getDurationUntilStepMS(tail - head);
+    }
+
+    /**
+     * Returns the distance of all RouteStepEnroutes before a RouteStep
+     * @param index Index of the RouteStep in the remaining route
+     * @return Distance until the start of the RouteStep in kilometers
+     */
+    public double getDistanceUntilStepKM(int index) {
+        if (index <= 0) return 0;
+        return (prefixDistanceM[head + index - 1] - removedDistanceM)/1000;
+    }
+
+    /**
+     * Returns the duration of all RouteSteps before a RouteStep, i.e. the estimated time of arrival at the RouteStep
+     * relative to the start of the remaining route
+     * @param index Index of the RouteStep in the remaining route
+     * @return Duration until the start of the RouteStep in milliseconds
+     */
+    public long getDurationUntilStepMS(int index) {
+        if (index <= 0) return 0;
+        return prefixDurationMS[head + index - 1] - removedDurationMS;
     }
 
     /**
@@ -149,7 +238,16 @@ public class Route {
         assert isTimeWithinRoute(time) : "Time not within Route!!";
 
         try {
-            RouteStep currentRouteStep = this.routeSteps.floor(new RouteStepVoid(time));
+            // Binary search for the last RouteStep, which is not greater than the timestamp
+            RouteStep timeStep = new RouteStepVoid(time);
+            int low = head;
+            int high = tail - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (routeSteps[mid].compareTo(timeStep) <= 0) low = mid + 1;
+                else high = mid - 1;
+            }
+            RouteStep currentRouteStep = routeSteps[high];
             return currentRouteStep.getPositionAtTime(time.getTimeMillis());
         } catch (Exception e) {
             throw new RuntimeException("Position on Route can not be determined!");
@@ -157,15 +255,43 @@ public class Route {
     }
 
     /**
-     * Removes a specific RouteStep from the route
-     * @param routeStep RouteStep which should be removed
+     * Removes the first RouteStep of the route. The total route distance and duration are not changed.
+     * @return First RouteStep, or null if the route has no RouteSteps
      */
-    public void removeRouteStep(RouteStep routeStep) {
-        routeSteps.remove(routeStep);
+    public RouteStep pollFirstRouteStep() {
+        if (head == tail) return null;
+
+        RouteStep routeStep = routeSteps[head];
+        removedDistanceM = prefixDistanceM[head];
+        removedDurationMS = prefixDurationMS[head];
+        routeSteps[head] = null;
+        head++;
+        return routeStep;
+    }
 
-        // Update total route distanceM / durationMS
-        this.routeDistanceM -= routeStep.getDistanceM();
-        this.routeDurationMS -= routeStep.getDurationMS();
+    /**
+     * Removes all RouteSteps except the last one from the route in order to free up memory. The last RouteStep is kept,
+     * so that RouteSteps which are appended later are still ordered correctly. The total route distance and duration
+     * are not changed.
+     */
+    public void trimRouteSteps() {
+        while (tail - head > 1) pollFirstRouteStep();
+    }
+
+    /**
+     * Removes all RouteSteps from the route in order to free up memory. The total route distance and duration are not
+     * changed.
+     */
+    public void clearRouteSteps() {
+        if (head < tail) {
+            removedDistanceM = prefixDistanceM[tail - 1];
+            removedDurationMS = prefixDurationMS[tail - 1];
+        }
+        routeSteps = new RouteStep[INITIAL_CAPACITY];
+        prefixDistanceM = new double[INITIAL_CAPACITY];
+        prefixDurationMS = new long[INITIAL_CAPACITY];
+        head = 0;
+        tail = 0;
     }
 
 	// --- GETTER & SETTERS
@@ -178,8 +304,28 @@ public class Route {
     public void setRouteStartTime(SimTime routeStartTime) {
         this.routeStartTime = routeStartTime;
     }
-    public TreeSet<RouteStep> getRouteSteps() {
-        return routeSteps == null ? null : routeSteps;
+    /**
+     * @return Read-only view of the remaining RouteSteps in their order
+     */
+    public List<RouteStep> getRouteSteps() {
+        return new AbstractList<>() {
+            @Override
+            public RouteStep get(int index) {
+                return getRouteStep(index);
+            }
+
+            @Override
+            public int size() {
+                return getRouteStepCount();
+            }
+        };
+    }
+    public RouteStep getRouteStep(int index) {
+        if (index < 0 || index >= tail - head) throw new IndexOutOfBoundsException("Index: " + index);
+        return routeSteps[head + index];
+    }
+    public int getRouteStepCount() {
+        return tail - head;
     }
     public double getRouteDurationMIN() {
         return ((double) routeDurationMS)/1000/60;
@@ -101,6 +101,9 @@ public abstract class RouteStep implements Comparable<RouteStep> {
 		return (timestamp.isGreaterOrEqualThan(startTime) && (timestamp.isLessOrEqualThan(endTime)));
 	}
 
+	public int getRouteStepID() {
+		return routeStepID;
+	}
 	public int getPassengerCount() {
 		return passengerCount;
 	}
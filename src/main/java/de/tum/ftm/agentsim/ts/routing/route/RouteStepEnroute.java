@@ -21,7 +21,6 @@ public class RouteStepEnroute extends RouteStep {
     private Position from;
     private Position to;
     private EnrouteTrack track;
-    private GraphHopperRouter hopper;
 
     /**
      * Create a RouteStepEnroute without specifying a start-time. (Start-time will be 0)
@@ -47,7 +46,7 @@ public class RouteStepEnroute extends RouteStep {
         super(new SimTime(startTime.getTimeMillis()), 0, type);
         assert (type == StepType.ENROUTE || type == StepType.ENROUTE_RELOCATION || type == StepType.VOID): "RouteStepEnroute must be of type ENROUTE/VOID";
 
-        this.hopper = GraphHopperRouter.getInstance();
+        GraphHopperRouter hopper = GraphHopperRouter.getInstance();
         switch (type) {
             case ENROUTE: case ENROUTE_RELOCATION:
                 this.track = hopper.calculateRoute(from, to, SimObjectRoutable.Type.CAR, 0);
@@ -70,6 +69,26 @@ public class RouteStepEnroute extends RouteStep {
         if (startTime.getTimeMillis() != 0) track.updateTrackTimes(startTime.getTimeMillis());
     }
 
+    /**
+     * Create a RouteStepEnroute from an already routed track without specifying a start-time. (Start-time will be 0)
+     * The track is copied, so that updates of the timestamps do not alter the provided track.
+     */
+    public RouteStepEnroute(EnrouteTrack track, StepType type) {
+        super(new SimTime(0), 0, type);
+        assert (type == StepType.ENROUTE || type == StepType.ENROUTE_RELOCATION || type == StepType.VOID): "RouteStepEnroute must be of type ENROUTE/VOID";
+
+        this.track = new EnrouteTrack(track);
+        this.track.updateTrackTimes(0);
+
+        this.from = this.track.getTrack().firstEntry().getValue();
+        this.to = this.track.getTrack().lastEntry().getValue();
+
+        // Update endTime/durationMS & distanceM
+        this.durationMS = this.track.getDurationMS();
+        setDistanceM(this.track.getDistanceM());
+        this.endTime.setTime(durationMS);
+    }
+
 
     /**
      * Updates starttime and stoptime according to new starttime
@@ -106,6 +125,10 @@ public class RouteStepEnroute extends RouteStep {
         return from;
     }
 
+    public EnrouteTrack getTrack() {
+        return track;
+    }
+
     @Override
     public Position getEndPosition() {
         return to;
@@ -170,6 +193,18 @@ public class RouteStepEnroute extends RouteStep {
             this.track = trackPositions;
         }
 
+        /**
+         * Creates a copy of an EnrouteTrack
+         *
+         * @param other Track which is copied
+         */
+        public EnrouteTrack(EnrouteTrack other) {
+            this.distanceM = other.distanceM;
+            this.durationMS = other.durationMS;
+
+            this.track = new TreeMap<>(other.track);
+        }
+
         /**
          * Updates the timestamps of the track according to a given starttime in millis
          * @param newStartTime new start time of track in millis
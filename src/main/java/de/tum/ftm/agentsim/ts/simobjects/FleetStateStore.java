@@ -0,0 +1,164 @@
+package de.tum.ftm.agentsim.ts.simobjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Columnar store of the fleet state. Each vehicle is registered with a dense index and its frequently scanned state
+ * (status, passengers and capacity) is stored in primitive arrays. The Vehicle-objects read and write their state
+ * through the store, so that fleet-wide scans and filters (e.g. candidate search, idle checks of the rebalancing,
+ * logging of the fleet status) iterate over the arrays instead of the Vehicle-objects.
+ * Additionally, the indexes of the vehicles are kept in one set per status, which is updated on every status change,
+ * so that the vehicles with a given status (e.g. the idle vehicles for the rebalancing) are found without a scan.
+ * The position is not part of the store, as it is determined lazily by the vehicles (see SimObjectRoutable).
+ *
+ * @author Manfred Klöppel
+ */
+public class FleetStateStore {
+
+    private static final int INITIAL_SIZE = 1024;
+    private static final SimObjectStatus[] STATUS_VALUES = SimObjectStatus.values();
+
+    private int size = 0;
+    private Vehicle[] vehicles = new Vehicle[INITIAL_SIZE];
+    private int[] status = new int[INITIAL_SIZE];
+    private int[] passengers = new int[INITIAL_SIZE];
+    private int[] capacity = new int[INITIAL_SIZE];
+
+    // Vehicle-indexes per status. Removal swaps the last member into the gap, therefore the position of each vehicle
+    // within the members of its status is stored.
+    private int[][] statusMembers = new int[STATUS_VALUES.length][INITIAL_SIZE];
+    private int[] statusMemberCount = new int[STATUS_VALUES.length];
+    private int[] statusPosition = new int[INITIAL_SIZE];
+
+    // Singleton instance
+    private static FleetStateStore INSTANCE = new FleetStateStore();
+
+    private FleetStateStore() {}
+
+    public static FleetStateStore getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Registers a vehicle in the store
+     *
+     * @param vehicle  Vehicle
+     * @param capacity Passenger capacity of the vehicle
+     * @return Index of the vehicle in the store
+     */
+    synchronized int register(Vehicle vehicle, int capacity) {
+        if (size == vehicles.length) {
+            int newLength = vehicles.length * 2;
+            vehicles = Arrays.copyOf(vehicles, newLength);
+            status = Arrays.copyOf(status, newLength);
+            passengers = Arrays.copyOf(passengers, newLength);
+            this.capacity = Arrays.copyOf(this.capacity, newLength);
+            statusPosition = Arrays.copyOf(statusPosition, newLength);
+        }
+        int index = size++;
+        vehicles[index] = vehicle;
+        status[index] = SimObjectStatus.VEHICLE_IDLE.ordinal();
+        addStatusMember(index, status[index]);
+        passengers[index] = 0;
+        this.capacity[index] = capacity;
+        return index;
+    }
+
+
+    /**
+     * Returns the vehicles, whose state fulfills the filter
+     *
+     * @param filter Filter on the index of the vehicles
+     * @return List of the vehicles in the order of their index
+     */
+    public ArrayList<Vehicle> filterVehicles(IntPredicate filter) {
+        ArrayList<Vehicle> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (filter.test(i)) result.add(vehicles[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the vehicles with the status. Only the vehicles with the status are visited.
+     *
+     * @param vehicleStatus Status
+     * @return List of the vehicles, which is not affected by later status changes
+     */
+    public synchronized ArrayList<Vehicle> getVehicles(SimObjectStatus vehicleStatus) {
+        int ordinal = vehicleStatus.ordinal();
+        ArrayList<Vehicle> result = new ArrayList<>(statusMemberCount[ordinal]);
+        for (int i = 0; i < statusMemberCount[ordinal]; i++) {
+            result.add(vehicles[statusMembers[ordinal][i]]);
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of vehicles with the status
+     */
+    public synchronized int countVehicles(SimObjectStatus vehicleStatus) {
+        return statusMemberCount[vehicleStatus.ordinal()];
+    }
+
+    /**
+     * @return true, if the passengers would fit in the vehicle
+     */
+    public boolean hasVacantSeats(int index, int numberOfPassengers) {
+        return capacity[index] - passengers[index] - numberOfPassengers >= 0;
+    }
+
+    public boolean hasStatus(int index, SimObjectStatus vehicleStatus) {
+        return status[index] == vehicleStatus.ordinal();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Vehicle getVehicle(int index) {
+        return vehicles[index];
+    }
+
+    public SimObjectStatus getStatus(int index) {
+        return STATUS_VALUES[status[index]];
+    }
+
+    synchronized void setStatus(int index, SimObjectStatus vehicleStatus) {
+        int ordinal = vehicleStatus.ordinal();
+        if (status[index] == ordinal) return;
+
+        removeStatusMember(index, status[index]);
+        status[index] = ordinal;
+        addStatusMember(index, ordinal);
+    }
+
+    private void addStatusMember(int index, int ordinal) {
+        if (statusMemberCount[ordinal] == statusMembers[ordinal].length) {
+            statusMembers[ordinal] = Arrays.copyOf(statusMembers[ordinal], statusMembers[ordinal].length * 2);
+        }
+        statusPosition[index] = statusMemberCount[ordinal];
+        statusMembers[ordinal][statusMemberCount[ordinal]++] = index;
+    }
+
+    private void removeStatusMember(int index, int ordinal) {
+        int lastIndex = statusMembers[ordinal][--statusMemberCount[ordinal]];
+        statusMembers[ordinal][statusPosition[index]] = lastIndex;
+        statusPosition[lastIndex] = statusPosition[index];
+    }
+
+    public int getPassengers(int index) {
+        return passengers[index];
+    }
+
+    void addPassengers(int index, int increment) {
+        passengers[index] += increment;
+    }
+
+    public int getCapacity(int index) {
+        return capacity[index];
+    }
+}
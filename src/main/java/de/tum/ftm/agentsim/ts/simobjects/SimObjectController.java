@@ -4,7 +4,6 @@ import de.tum.ftm.agentsim.ts.Config;
 import de.tum.ftm.agentsim.ts.Scenario;
 import de.tum.ftm.agentsim.ts.events.Event_RebalancingManager;
 import de.tum.ftm.agentsim.ts.events.Event_UserRequest;
-import de.tum.ftm.agentsim.ts.events.Event;
 import de.tum.ftm.agentsim.ts.log.DBLog;
 import de.tum.ftm.agentsim.ts.log.DBTableEntry;
 import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
@@ -37,16 +36,15 @@ public class SimObjectController {
 
     private HashMap<Long, Vehicle> fleet;                   // Vehicle agents
     private HashMap<Long, User> users;                      // User agents
-    private HashMap<Long, User.TripRequest> requests;     // Separate list for all requests of all users
+    private HashMap<Long, User.TripRequest> requests;     // Separate list for all active requests of all users
+    private TripRequestStore requestStore;                  // Input data of all requests
     private RebalancingManagerInterface relocationManager;
 
-    // Time when the position of an agent was updated. Here set to 0 for initialisation
-    private SimTime locationTimeStamp = new SimTime(0);
-
     public SimObjectController(Scenario scenario, DBLog dbLog) {
         fleet = new HashMap<>();
         users = new HashMap<>();
         requests = new HashMap<>();
+        requestStore = new TripRequestStore(0);
 
         SimObject.scenario = scenario;
         SimObject.dbLog = dbLog;
@@ -203,10 +201,12 @@ public class SimObjectController {
             ResultSet rs = stmt.executeQuery(sql);
             int requestCount = rs.getInt("cnt");
 
-            sql = "SELECT * FROM requests";
+            // Requests are loaded in the order of their start time, so that the ordinal is the order of activation
+            sql = "SELECT * FROM requests ORDER BY o_time";
             rs = stmt.executeQuery(sql);
 
-            Map<User.TripRequest, String> tempList = new HashMap<>();
+            requestStore = new TripRequestStore(requestCount);
+            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyy-MM-dd HH:mm:ss");
 
             try (ProgressBar pb = new ProgressBar(String.format("%s INFO:\t ",
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"))), requestCount, ProgressBarStyle.ASCII)) {
@@ -217,20 +217,17 @@ public class SimObjectController {
                     if (!users.containsKey(userID)) {
                         users.put(userID, new User(userID));
                     }
-                    User user = users.get(userID);
 
-                    User.TripRequest userRequest = new User.TripRequest(
-                            user,
+                    // Only the input data is stored, the TripRequest is created when the request becomes active
+                    requestStore.add(
                             rs.getLong("booking_id"),
-                            new SimTime(LocalDateTime.parse(rs.getString("o_time"), DateTimeFormatter.ofPattern("yyy-MM-dd HH:mm:ss"))),
-                            new SimTime(LocalDateTime.parse(rs.getString("d_time"), DateTimeFormatter.ofPattern("yyy-MM-dd HH:mm:ss"))),
-                            new Position(rs.getDouble("o_lon"), rs.getDouble("o_lat")),
-                            new Position(rs.getDouble("d_lon"), rs.getDouble("d_lat")),
+                            userID,
+                            new SimTime(LocalDateTime.parse(rs.getString("o_time"), timeFormatter)).getTimeMillis(),
+                            new SimTime(LocalDateTime.parse(rs.getString("d_time"), timeFormatter)).getTimeMillis(),
+                            rs.getDouble("o_lon"), rs.getDouble("o_lat"),
+                            rs.getDouble("d_lon"), rs.getDouble("d_lat"),
                             rs.getInt("additional_persons"),
                             rs.getDouble("dist_km"));
-
-                    user.addRequest(userRequest);
-                    requests.put(userRequest.getRequestID(), userRequest);
                     pb.step();
                 }
             }
@@ -242,28 +239,34 @@ public class SimObjectController {
     }
 
     /**
-     * Iterates over the list of users and returns a list of all requests
-     * @return list of all requests from all users
+     * Returns the event of the first request. Each request-event schedules the event of the next request, so that only
+     * one request-event is in the event-queue at any time.
+     * @return event of the first request, or null if no requests are loaded
      */
-    public PriorityQueue<Event> getRequestsForTaskList() {
-        PriorityQueue<Event> requestPriorityQueue = new PriorityQueue<Event>();
-        for (User user : this.users.values()) {
-            for (User.TripRequest userRequest : user.getUserTripRequestsList()) {
-                requestPriorityQueue.add(new Event_UserRequest(new SimTime(userRequest.getRequestStart()), userRequest));
-            }
-        }
-        return requestPriorityQueue;
+    public Event_UserRequest getFirstRequestEvent() {
+        return getRequestEvent(0);
     }
 
     /**
-     * Updates the position of all vehicles in fleet, if the age of the position is exceeded
-     *
-     * @param forcedUpdate If true, positions are updated even if age of position is not exceeded
+     * @param ordinal Ordinal of the request in the TripRequestStore
+     * @return event of the request, or null if no request with the ordinal exists
      */
-    public void updateFleetPositions(Boolean forcedUpdate) {
-        if ((SimTime.now().getTimeMillis() > locationTimeStamp.getTimeMillis()+Config.MAX_POSITION_AGE_SECONDS*1000) || forcedUpdate) {
-            fleet.values().parallelStream().forEach(Vehicle::updatePosition);
-        }
+    public Event_UserRequest getRequestEvent(int ordinal) {
+        if (ordinal >= requestStore.size()) return null;
+        return new Event_UserRequest(new SimTime(requestStore.getStartMillis(ordinal)), ordinal);
+    }
+
+    /**
+     * Creates the TripRequest of a request, which becomes active, and adds it to the user and the list of requests
+     * @param ordinal Ordinal of the request in the TripRequestStore
+     * @return active TripRequest
+     */
+    public User.TripRequest activateRequest(int ordinal) {
+        User user = users.get(requestStore.getPersonID(ordinal));
+        User.TripRequest userRequest = requestStore.createTripRequest(ordinal, user);
+        user.addRequest(userRequest);
+        requests.put(userRequest.getRequestID(), userRequest);
+        return userRequest;
     }
 
     /**
@@ -300,6 +303,9 @@ public class SimObjectController {
             case "R5":
                 this.relocationManager = RebalancingManagerR5.getInstance();
                 break;
+            case "FLOW":
+                this.relocationManager = RebalancingManagerFlow.getInstance();
+                break;
             default:
                 Logger.error("Rebalancing Strategy not recognized!");
                 throw new RuntimeException("Rebalancing Strategy not recognized!");
@@ -316,6 +322,17 @@ public class SimObjectController {
         return fleet;
     }
 
+    /**
+     * Returns the vehicles with the status. The vehicles are taken from the per-status sets of the FleetStateStore,
+     * which are updated on every status change of a vehicle, so the fleet is not scanned.
+     *
+     * @param status Status of the vehicles
+     * @return List of the vehicles with the status
+     */
+    public ArrayList<Vehicle> getVehiclesWithStatus(SimObjectStatus status) {
+        return FleetStateStore.getInstance().getVehicles(status);
+    }
+
     public HashMap<Long, User> getUsers() {
         return users;
     }
@@ -324,6 +341,10 @@ public class SimObjectController {
         return requests;
     }
 
+    public TripRequestStore getRequestStore() {
+        return requestStore;
+    }
+
     public RebalancingManagerInterface getRelocationManager() {
         return relocationManager;
     }
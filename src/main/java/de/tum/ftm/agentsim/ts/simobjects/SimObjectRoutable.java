@@ -7,7 +7,8 @@ import de.tum.ftm.agentsim.ts.utils.SimTime;
 
 /**
  * Object/Agent which extends SimObject and provides functions for calculating and storing routes
- * and determining the position on a route
+ * and determining the position on a route. The position is determined lazily, when it is requested, and is memoized
+ * for the current simulation-time, so that only objects which are actually queried are interpolated.
  *
  * @author Manfred Klöppel
  */
@@ -16,6 +17,7 @@ public abstract class SimObjectRoutable extends SimObject {
     protected Route route;                  // Current route, the object is following
     protected RouteStep currentRouteStep;   // Current routeStep, the object is travelling on
     Route routeHistory;                     // Historic routeSteps
+    private volatile long positionTimeMillis = Long.MIN_VALUE;    // Simulation-time of the memoized position
 
     //public static RoutingInterface router;  // Routing instance used for routing operations
 
@@ -24,12 +26,28 @@ public abstract class SimObjectRoutable extends SimObject {
     }
 
     /**
-     * Updates current position of object in according to the current simulation-time, if a current routeStep is present.
+     * Returns the position of the object at the current simulation-time. If a current routeStep is present, the
+     * position is interpolated on the routeStep once per simulation-time.
+     *
+     * @return Current position
      */
-    public void updatePosition() {
-        if (currentRouteStep != null) {
-            this.position = currentRouteStep.getPositionAtTime(SimTime.now().getTimeMillis());
+    @Override
+    public Position getPosition() {
+        RouteStep routeStep = currentRouteStep;
+        if (routeStep != null) {
+            long nowMillis = SimTime.now().getTimeMillis();
+            if (positionTimeMillis != nowMillis) {
+                this.position = routeStep.getPositionAtTime(nowMillis);
+                positionTimeMillis = nowMillis;
+            }
         }
+        return position;
+    }
+
+    @Override
+    public void setPosition(Position position) {
+        super.setPosition(position);
+        positionTimeMillis = SimTime.now().getTimeMillis();
     }
 
     /**
@@ -48,7 +66,7 @@ public abstract class SimObjectRoutable extends SimObject {
      */
     public double getRemainingRouteDistanceKM() {
         if (currentRouteStep != null && route != null) {
-            return route.calculateRouteDistanceKM() + currentRouteStep.getRemainingDistanceKM(SimTime.now().getTimeMillis());
+            return route.getRemainingDistanceKM() + currentRouteStep.getRemainingDistanceKM(SimTime.now().getTimeMillis());
         } else {
             return 0;
         }
@@ -58,7 +76,15 @@ public abstract class SimObjectRoutable extends SimObject {
         return currentRouteStep;
     }
 
+    /**
+     * Sets the current routeStep. At the boundary of the routeSteps, the position on the previous routeStep is stored,
+     * so that the position stays valid, if no routeStep follows.
+     */
     public void setCurrentRouteStep(RouteStep currentRouteStep) {
+        if (this.currentRouteStep != null) {
+            this.position = this.currentRouteStep.getPositionAtTime(SimTime.now().getTimeMillis());
+        }
+        positionTimeMillis = Long.MIN_VALUE;
         this.currentRouteStep = currentRouteStep;
     }
 
@@ -0,0 +1,118 @@
+package de.tum.ftm.agentsim.ts.simobjects;
+
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+
+import java.util.Arrays;
+
+/**
+ * Columnar store of the immutable input data of the travel-requests. The requests are stored in primitive arrays,
+ * indexed by the ordinal of the request. The requests are loaded in the order of their start time, so that the
+ * ordinal is also the order of activation. The TripRequest-objects, which hold the mutable state of a trip, are only
+ * created when a request becomes active (see Event_UserRequest).
+ * Per request, 62 bytes are stored: booking- and person-ID (2x 8 bytes), start- and end-time in seconds relative to
+ * the first request (2x 4 bytes), origin and destination (4x 8 bytes), additional persons (2 bytes) and distance
+ * (4 bytes). The duration is derived from the start- and end-time by the TripRequest.
+ *
+ * @author Manfred Klöppel
+ */
+public class TripRequestStore {
+
+    private static final int INITIAL_SIZE = 1024;
+
+    private int size = 0;
+    private long baseTimeMillis = Long.MIN_VALUE;
+    private long[] bookingID;
+    private long[] personID;
+    private int[] startSeconds;
+    private int[] endSeconds;
+    private double[] originLon;
+    private double[] originLat;
+    private double[] destinationLon;
+    private double[] destinationLat;
+    private short[] additionalPersons;
+    private float[] distanceKM;
+
+    public TripRequestStore(int expectedSize) {
+        allocate(Math.max(expectedSize, INITIAL_SIZE));
+    }
+
+
+    /**
+     * Adds a request to the store. Requests have to be added in the order of their start time.
+     *
+     * @return Ordinal of the request
+     */
+    public int add(long bookingID, long personID, long startMillis, long endMillis, double originLon, double originLat,
+                   double destinationLon, double destinationLat, int additionalPersons, double distanceKM) {
+        if (size == this.bookingID.length) allocate(size * 2);
+        if (baseTimeMillis == Long.MIN_VALUE) baseTimeMillis = startMillis;
+
+        int ordinal = size++;
+        this.bookingID[ordinal] = bookingID;
+        this.personID[ordinal] = personID;
+        this.startSeconds[ordinal] = Math.toIntExact((startMillis - baseTimeMillis) / 1000);
+        this.endSeconds[ordinal] = Math.toIntExact((endMillis - baseTimeMillis) / 1000);
+        this.originLon[ordinal] = originLon;
+        this.originLat[ordinal] = originLat;
+        this.destinationLon[ordinal] = destinationLon;
+        this.destinationLat[ordinal] = destinationLat;
+        this.additionalPersons[ordinal] = (short) additionalPersons;
+        this.distanceKM[ordinal] = (float) distanceKM;
+        return ordinal;
+    }
+
+
+    /**
+     * Creates the TripRequest-object of a request, which becomes active
+     *
+     * @param ordinal Ordinal of the request
+     * @param user    User, who made the request
+     * @return New TripRequest
+     */
+    public User.TripRequest createTripRequest(int ordinal, User user) {
+        return new User.TripRequest(
+                user,
+                bookingID[ordinal],
+                new SimTime(getStartMillis(ordinal)),
+                new SimTime(getEndMillis(ordinal)),
+                new Position(originLon[ordinal], originLat[ordinal]),
+                new Position(destinationLon[ordinal], destinationLat[ordinal]),
+                additionalPersons[ordinal],
+                distanceKM[ordinal]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getBookingID(int ordinal) {
+        return bookingID[ordinal];
+    }
+
+    public long getPersonID(int ordinal) {
+        return personID[ordinal];
+    }
+
+    public long getStartMillis(int ordinal) {
+        return baseTimeMillis + startSeconds[ordinal] * 1000L;
+    }
+
+    public long getEndMillis(int ordinal) {
+        return baseTimeMillis + endSeconds[ordinal] * 1000L;
+    }
+
+
+    private void allocate(int length) {
+        bookingID = bookingID == null ? new long[length] : Arrays.copyOf(bookingID, length);
+        personID = personID == null ? new long[length] : Arrays.copyOf(personID, length);
+        startSeconds = startSeconds == null ? new int[length] : Arrays.copyOf(startSeconds, length);
+        endSeconds = endSeconds == null ? new int[length] : Arrays.copyOf(endSeconds, length);
+        originLon = originLon == null ? new double[length] : Arrays.copyOf(originLon, length);
+        originLat = originLat == null ? new double[length] : Arrays.copyOf(originLat, length);
+        destinationLon = destinationLon == null ? new double[length] : Arrays.copyOf(destinationLon, length);
+        destinationLat = destinationLat == null ? new double[length] : Arrays.copyOf(destinationLat, length);
+        additionalPersons = additionalPersons == null ? new short[length] : Arrays.copyOf(additionalPersons, length);
+        distanceKM = distanceKM == null ? new float[length] : Arrays.copyOf(distanceKM, length);
+    }
+}
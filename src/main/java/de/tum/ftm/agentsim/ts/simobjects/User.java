@@ -40,6 +40,21 @@ public class User extends SimObjectRoutable {
         setPosition(new Position(0,0));
     }
 
+    /**
+     * Returns the current position of the user. Users which are in transit are at the position of their vehicle.
+     *
+     * @return Current position
+     */
+    @Override
+    public Position getPosition() {
+        TripRequest request = currentRequest;
+        if (status == SimObjectStatus.USER_IN_TRANSIT && request != null) {
+            Vehicle vehicle = scenario.getSimObjectController().getFleet().get(request.getVehicleID());
+            if (vehicle != null) return vehicle.getPosition();
+        }
+        return super.getPosition();
+    }
+
     @Override
     public int hashCode() {
         return (int) id;
@@ -100,9 +115,6 @@ public class User extends SimObjectRoutable {
         private int assignmentCounter = 0;           // Counter, how many times the request was assigned to a vehicle (Optimised Partition Assignment only)
         private int revokedAssignmentCounter = 0;    // Counter, how many times the assignment of the request to a vehicle was revoked (Optimised Partition Assignment only)
 
-        // Block variable to prevent deletion of route history, before it was saved to the database
-        boolean routeHistoryBlocked = true;
-
         // Default Constructor
         public TripRequest(User user, long requestID, SimTime requestStart, SimTime requestEnd, Position originalRequestOrigin,
                            Position originalRequestDestination, int requestAdditionalPersons,
@@ -150,7 +162,6 @@ public class User extends SimObjectRoutable {
             this.tripWasShared = other.tripWasShared;
             this.assignmentCounter = other.assignmentCounter;
             this.revokedAssignmentCounter = other.revokedAssignmentCounter;
-            this.routeHistoryBlocked = other.routeHistoryBlocked;
             this.tripOrigin = other.tripOrigin;
             this.tripDestination = other.tripDestination;
         }
@@ -202,7 +213,7 @@ public class User extends SimObjectRoutable {
         public void setBookingPickupLatest(Vehicle vehicle, boolean simulationOnly) {
             setTripAssigned(SimTime.now());
             this.vehicleID = vehicle.id;
-            this.tripPickupLatest = new SimTime(this.requestStart, (long) Config.MAX_WAITING_TIME_SECONDS * 1000);
+            this.tripPickupLatest = new SimTime(calcTripPickupLatestMillis());
 
             // Only change the status of the user, if the request is really assigned to a vehicle
             if (!simulationOnly) this.getUser().setStatus(SimObjectStatus.USER_WAITING_FOR_PICKUP);
@@ -252,12 +263,51 @@ public class User extends SimObjectRoutable {
          * @param departureTimeStamp Time, when the the vehicle departs
          */
         private void setTripDropoffLatest(SimTime departureTimeStamp) {
+            this.tripDropoffLatest = new SimTime(calcTripDropoffLatestMillis(departureTimeStamp.getTimeMillis()));
+        }
+
+
+        /**
+         * Calculates the latest time, before a user needs to be picked up, without altering the request
+         *
+         * @return Latest pickup time in milliseconds
+         */
+        public long calcTripPickupLatestMillis() {
+            return this.requestStart.getTimeMillis() + (long) Config.MAX_WAITING_TIME_SECONDS * 1000;
+        }
+
+
+        /**
+         * Calculates the latest time, before a user needs to be dropped-off, without altering the request.
+         * See setTripDropoffLatest() for the two different methods.
+         *
+         * @param departureMillis Time in milliseconds, when the vehicle departs with the user
+         * @return Latest drop-off time in milliseconds
+         */
+        public long calcTripDropoffLatestMillis(long departureMillis) {
             if (Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE) {
-                this.tripDropoffLatest = new SimTime(this.requestStart, (long) ((Config.USER_ALONSO_MAX_DELAY_SECONDS + this.requestDuration * 60) * 1000));
+                return this.requestStart.getTimeMillis() + (long) ((Config.USER_ALONSO_MAX_DELAY_SECONDS + this.requestDuration * 60) * 1000);
             } else {
-                SimTime elongationTime = new SimTime(departureTimeStamp, (long) (Config.MAX_IN_VEH_TIME_ELONGATION_FACTOR * this.requestDuration * 60 * 1000));
-                SimTime acceptableTime = new SimTime(departureTimeStamp, (long) ((Config.ACCEPTABLE_TIME_IN_VEH_SECONDS + this.requestDuration * 60) * 1000));
-                this.tripDropoffLatest = elongationTime.isGreaterThan(acceptableTime) ? elongationTime : acceptableTime;
+                long elongationTime = departureMillis + (long) (Config.MAX_IN_VEH_TIME_ELONGATION_FACTOR * this.requestDuration * 60 * 1000);
+                long acceptableTime = departureMillis + (long) ((Config.ACCEPTABLE_TIME_IN_VEH_SECONDS + this.requestDuration * 60) * 1000);
+                return Math.max(elongationTime, acceptableTime);
+            }
+        }
+
+
+        /**
+         * Helper function to determine the maximum in-vehicle time dependent on the configuration
+         *
+         * @return Maximum duration of the request in the vehicle in milliseconds
+         */
+        public long calcMaxTimeInVehicleMS() {
+            if (Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE) {
+                return (long) (1000 * (this.requestDuration * 60 + Config.USER_ALONSO_MAX_DELAY_SECONDS));
+            } else {
+                long elongationMaxDurationInVehicle = (long) (this.requestDuration * 60 * 1000 * Config.MAX_IN_VEH_TIME_ELONGATION_FACTOR);
+                long acceptableMaxDurationInVehicle = (long) Config.ACCEPTABLE_TIME_IN_VEH_SECONDS * 1000;
+
+                return Math.max(elongationMaxDurationInVehicle, acceptableMaxDurationInVehicle);
             }
         }
 
@@ -319,8 +369,12 @@ public class User extends SimObjectRoutable {
                             .build()
             );
 
-            // RouteHistory is stored to DB, therefore the data can be purged now
-            routeHistoryBlocked = false;
+            // Log the references to the routeSteps of the trip to the DB and purge the routeSteps. The routeSteps
+            // themselves are logged by the vehicle.
+            for (int i = 0; i < routeHistory.getRouteStepCount(); i++) {
+                DBLog.dbTableTripRouteSteps.addTripRouteStepEntry(this, i, routeHistory.getRouteStep(i));
+            }
+            routeHistory.clearRouteSteps();
 
             // Reset user
             this.getUser().resetUser();
@@ -383,9 +437,6 @@ public class User extends SimObjectRoutable {
         public Status getTravelRequestStatus() {
             return travelRequestStatus;
         }
-        public boolean isRouteHistoryBlocked() {
-            return routeHistoryBlocked;
-        }
         public int getAssignmentCounter() {
             return assignmentCounter;
         }
@@ -3,6 +3,7 @@ package de.tum.ftm.agentsim.ts.simobjects;
 import de.tum.ftm.agentsim.ts.Config;
 import de.tum.ftm.agentsim.ts.events.Event;
 import de.tum.ftm.agentsim.ts.events.Event_VehicleNextActivity;
+import de.tum.ftm.agentsim.ts.log.DBLog;
 import de.tum.ftm.agentsim.ts.routing.RoutingException;
 import de.tum.ftm.agentsim.ts.routing.RoutingInterface;
 import de.tum.ftm.agentsim.ts.routing.route.Route;
@@ -16,25 +17,30 @@ import org.pmw.tinylog.Logger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Represents a Vehicle-Agent which extends SimObjectRoutable. Contains the logic for picking-up/dropping-off
  * Users and logging of movement.
  * Energy consumption is calculated based on driven distance and numbers of passengers on board.
+ * Status, passengers and capacity are stored in the FleetStateStore, the vehicle is a view on its entry in the store.
  *
  * @author Manfred Klöppel
  */
 public class Vehicle extends SimObjectRoutable {
 
+    private static FleetStateStore fleetState = FleetStateStore.getInstance();
+
     // Vehicle Parameters
-    private int passengers = 0;                 // Number of passengers on the vehicle
-    private int capacity;                       // Passenger capacity of the vehicle
+    private final int fleetIndex;               // Index of the vehicle in the FleetStateStore
     private double kwhPer100Km = 0;             // Energy consumption in Kwh per 100 km
     private double kwhPer100KmPerPax = 0;       // Energy consumption in Kwh per 100 km per Person on board
     private Event upcomingEvent;                // Upcoming event of the vehicle, which is stored in Master-EventList
     private HashMap<Long, User.TripRequest> userRequestMap;   // Map of User-TravelRequests assigned to vehicle. Key is the request-ID, Value the travelRequest-Object
     private RelocationDistrict currentCityDistrict;     // ID of the current/assigned city district (only used for relocation-purpose)
+    private volatile VehicleSchedule schedule;  // Immutable snapshot of the route and the requests, on which assignments are evaluated
+    private AtomicLong stateVersion = new AtomicLong(0);  // Incremented whenever the route or the requests of the vehicle change, odd while an assignment is committed
 
     // Logging values
     private int maxSimultaneousRequests = 0;    // Max simultaneous requests in vehicle (for logging)
@@ -52,11 +58,12 @@ public class Vehicle extends SimObjectRoutable {
 
     public Vehicle(long id, Position position, int capacity, double kwhPer100Km, double kwhPer100KmPerPax) {
         super(id, position);
-        this.status = SimObjectStatus.VEHICLE_IDLE;
-        this.capacity = capacity;
+        this.fleetIndex = fleetState.register(this, capacity);
+        this.setStatus(SimObjectStatus.VEHICLE_IDLE);
         this.kwhPer100Km = kwhPer100Km;
         this.kwhPer100KmPerPax = kwhPer100KmPerPax;
         userRequestMap = new HashMap<>();
+        updateSchedule();
     }
 
 
@@ -71,6 +78,38 @@ public class Vehicle extends SimObjectRoutable {
         userRequest.setBookingPickupLatest(this, false);
         userRequest.getUser().setStatus(SimObjectStatus.USER_WAITING_FOR_PICKUP);
         userRequestMap.put(userRequest.getRequestID(), userRequest);
+        incrementStateVersion();
+        updateSchedule();
+    }
+
+
+    /**
+     * Commits an assignment, which was calculated without locking the vehicle on the schedule of the vehicle. The
+     * assignment is only committed, if the state of the vehicle did not change since the schedule was created
+     * (compare-and-set on the state version). While the assignment is committed, the state version is odd, so that no
+     * other thread can commit an assignment to the vehicle or read a partially updated schedule at the same time.
+     *
+     * @param expectedStateVersion State version of the schedule, on which the assignment was calculated
+     * @param newRoute             Route including the new request
+     * @param userRequest          TravelRequest which is assigned to the vehicle
+     * @return true, if the assignment was committed, false if the state of the vehicle changed in the meantime
+     */
+    public boolean commitAssignment(long expectedStateVersion, Route newRoute, User.TripRequest userRequest) throws RoutingException {
+        if (isCommitInProgress(expectedStateVersion) ||
+                !stateVersion.compareAndSet(expectedStateVersion, expectedStateVersion + 1)) {
+            return false;
+        }
+
+        try {
+            updateRoute(newRoute);
+            addRequestToVehicle(userRequest);
+        } finally {
+            // Publish the schedule of the committed state before the state version becomes even again
+            long committedStateVersion = stateVersion.get() + 1;
+            schedule = VehicleSchedule.createFromVehicle(this, committedStateVersion);
+            stateVersion.set(committedStateVersion);
+        }
+        return true;
     }
 
 
@@ -106,6 +145,7 @@ public class Vehicle extends SimObjectRoutable {
         if (routeHistory == null) {
             logIdleDuration();
             routeHistory = new Route(rsts);
+            DBLog.dbTableRoutes.addRouteStepEntry(routeHistory, this, rsts);
         }
 
         // Only do the following, if vehicle was not IDLE
@@ -119,14 +159,14 @@ public class Vehicle extends SimObjectRoutable {
 
                 // Update the passenger & request count for rste
                 rste.setRequestsAndPassengerCount(this);
-                this.routeHistory.appendRouteStep(rste, false);
+                appendToRouteHistory(rste);
 
                 // Update vehicle energy consumption & vehicle driving duration
                 updateVehicleDurations(rste, false);
-                energyConsumptionKwh += calculateEnergyConsumption(rste.getDistanceM()/1000, passengers);
+                energyConsumptionKwh += calculateEnergyConsumption(rste.getDistanceM()/1000, getPassengers());
             }
             // Add "ROUTE_CHANGE" routeStep to routeHistory
-            this.routeHistory.appendRouteStep(rsts, false);
+            appendToRouteHistory(rsts);
 
             // Update the routeHistory of all users, which are already in the vehicle
             for (User.TripRequest req : userRequestMap.values()) {
@@ -135,7 +175,7 @@ public class Vehicle extends SimObjectRoutable {
                         req.getRouteHistory().appendRouteStep(rste, false);
 
                         // If more passengers are onboard than persons included in this request, this trip is shared
-                        if (this.passengers > req.getTotalPersons()) {
+                        if (getPassengers() > req.getTotalPersons()) {
                             req.setTripIsShared();
                         }
                     }
@@ -154,8 +194,7 @@ public class Vehicle extends SimObjectRoutable {
                 scenario.removeEvent(upcomingEvent);
 
                 // set next routestep, and add the remaining routesteps to the upcoming route
-                setCurrentRouteStep(newRoute.getRouteSteps().first());
-                newRoute.getRouteSteps().remove(getCurrentRouteStep());
+                setCurrentRouteStep(newRoute.pollFirstRouteStep());
 
                 // create upcoming event from current routestep
                 this.upcomingEvent = new Event_VehicleNextActivity(new SimTime(getCurrentRouteStep().getEndTime()), this);
@@ -182,6 +221,8 @@ public class Vehicle extends SimObjectRoutable {
                 }
             }
         }
+        incrementStateVersion();
+        updateSchedule();
         Logger.trace("New status of Vehicle {}: {}", this.getId(), this.getStatus());
     }
 
@@ -208,8 +249,21 @@ public class Vehicle extends SimObjectRoutable {
         }
     }
 
+    /**
+     * Appends a completed routeStep to the routeHistory of the vehicle and logs it to the DB. Only the last routeStep
+     * is kept in the routeHistory, so that the memory used by the routeHistory stays bounded.
+     *
+     * @param routeStep Completed routeStep
+     */
+    private void appendToRouteHistory(RouteStep routeStep) {
+        if (routeHistory.appendRouteStep(routeStep, false)) {
+            DBLog.dbTableRoutes.addRouteStepEntry(routeHistory, this, routeStep);
+        }
+        routeHistory.trimRouteSteps();
+    }
+
     public void logIdleDuration() {
-        if (status == SimObjectStatus.VEHICLE_IDLE) {
+        if (getStatus() == SimObjectStatus.VEHICLE_IDLE) {
             long idleDurationMS;
             if (routeHistory != null) {
                 idleDurationMS = SimTime.now().getTimeMillis() - this.routeHistory.getRouteEndTime().getTimeMillis();
@@ -234,7 +288,7 @@ public class Vehicle extends SimObjectRoutable {
 
         // Store past routeStep to vehicle and user routeHistory
         currentRouteStep.setRequestsAndPassengerCount(this);
-        this.routeHistory.appendRouteStep(getCurrentRouteStep(), false);
+        appendToRouteHistory(getCurrentRouteStep());
         updateVehicleDurations(getCurrentRouteStep(), false);
 
         for (User.TripRequest req : userRequestMap.values()) {
@@ -242,7 +296,7 @@ public class Vehicle extends SimObjectRoutable {
                 req.getRouteHistory().appendRouteStep(getCurrentRouteStep(), false);
 
                 // If more passengers are onboard than persons included in this request and the routestep was not pickup/dropoff, this trip is shared
-                if ((this.passengers > req.getTotalPersons()) && currentRouteStep.isInterruptible()) {
+                if ((getPassengers() > req.getTotalPersons()) && currentRouteStep.isInterruptible()) {
                     req.setTripIsShared();
                 }
             }
@@ -252,7 +306,7 @@ public class Vehicle extends SimObjectRoutable {
         // Actions on now ending routestep
         if (currentRouteStep instanceof RouteStepEnroute) {
             // Update vehicle energy consumption
-            energyConsumptionKwh += calculateEnergyConsumption(currentRouteStep.getDistanceM()/1000, passengers);
+            energyConsumptionKwh += calculateEnergyConsumption(currentRouteStep.getDistanceM()/1000, getPassengers());
         } else if (currentRouteStep instanceof RouteStepStationary) {
             if (getCurrentRouteStep().getStepType() == RouteStep.StepType.DROPOFF) {
                 // Set trip-completed time and reset User after he alighted
@@ -261,18 +315,18 @@ public class Vehicle extends SimObjectRoutable {
                 // Update vehicle passenger/request counters
                 int alightingPassengers = getUserRequestMap().get(((RouteStepStationary) getCurrentRouteStep())
                         .getRequestID()).getTotalPersons();
-                passengers -= alightingPassengers;
+                fleetState.addPassengers(fleetIndex, -alightingPassengers);
                 servedPassengers += alightingPassengers;
                 servedRequests += 1;
 
                 userRequestMap.remove(((RouteStepStationary) getCurrentRouteStep()).getRequestID());
+                incrementStateVersion();
             }
         }
 
         // Set next routeStep, if available
-        if (route.getRouteSteps().size() > 0) {
-            setCurrentRouteStep(route.getRouteSteps().first());
-            route.getRouteSteps().remove(getCurrentRouteStep());
+        if (route.getRouteStepCount() > 0) {
+            setCurrentRouteStep(route.pollFirstRouteStep());
             upcomingEvent = new Event_VehicleNextActivity(new SimTime(getCurrentRouteStep().getEndTime()), this);
             scenario.addEvent(upcomingEvent);
 
@@ -285,6 +339,7 @@ public class Vehicle extends SimObjectRoutable {
 //                            .getRouteHistory().appendRouteStep(getCurrentRouteStep(), false);
                     getUserRequestMap().get(((RouteStepStationary) getCurrentRouteStep()).getRequestID()).dropoff(getCurrentRouteStep().getStartPosition());
                     Logger.trace("Vehicle {} dropping off request {}", this.getId(), getUserRequestMap().get(((RouteStepStationary) getCurrentRouteStep()).getRequestID()));
+                    incrementStateVersion();
 
                     break;
                 case PICKUP:
@@ -297,14 +352,16 @@ public class Vehicle extends SimObjectRoutable {
                     Logger.trace("Vehicle {} picking up request {}", this.getId(), getUserRequestMap().get(((RouteStepStationary) getCurrentRouteStep()).getRequestID()));
 
                     // Update vehicle passenger/request counters
-                    passengers += getUserRequestMap().get(((RouteStepStationary) getCurrentRouteStep()).getRequestID()).getTotalPersons();
+                    fleetState.addPassengers(fleetIndex, getUserRequestMap().get(((RouteStepStationary) getCurrentRouteStep()).getRequestID()).getTotalPersons());
                     updateMaxSimultaneousRequestsAndUsers();
-                    if (passengers > capacity) {
-                        Logger.error("More persons on-board than seats! Vehicle-ID: {}, Passengers: {}", id, passengers);
+                    if (getPassengers() > getCapacity()) {
+                        Logger.error("More persons on-board than seats! Vehicle-ID: {}, Passengers: {}", id, getPassengers());
                     }
+                    incrementStateVersion();
                     break;
                 default:
                     Logger.trace("Vehicle {} going to next event", this.getId());
+                    incrementStateVersion();
                     break;
             }
         } else {
@@ -313,7 +370,8 @@ public class Vehicle extends SimObjectRoutable {
             route = null;
             setCurrentRouteStep(null);
             upcomingEvent = null;
-            SimObjectStatus oldStatus = this.status;
+            incrementStateVersion();
+            SimObjectStatus oldStatus = getStatus();
             this.setStatus(SimObjectStatus.VEHICLE_IDLE);
 
             if (Config.ENABLE_REBALANCING) {
@@ -322,35 +380,33 @@ public class Vehicle extends SimObjectRoutable {
                 }
             }
         }
+        updateSchedule();
     }
 
 
     /**
-     * Checks the current amount of requests assigned to the vehicle and persons in the vehicle and updates
-     * the corresponding maximum values for logging. This function should be called after each PICKUP.
+     * Recreates the schedule of the vehicle. This function should be called whenever the route or the assigned
+     * requests of the vehicle change. While an assignment is committed, the schedule is only created once the commit
+     * is completed.
      */
-    private void updateMaxSimultaneousRequestsAndUsers() {
-        int requestCount = userRequestMap.size();
-        if (requestCount > maxSimultaneousRequests) maxSimultaneousRequests = requestCount;
-
-        if (passengers > maxSimultaneousPassengers) {
-            maxSimultaneousPassengers = passengers;
+    private void updateSchedule() {
+        long version = stateVersion.get();
+        if (!isCommitInProgress(version)) {
+            schedule = VehicleSchedule.createFromVehicle(this, version);
         }
     }
 
 
     /**
-     * Updates the position of the vehicle and of all users which are on the vehicle.
+     * Checks the current amount of requests assigned to the vehicle and persons in the vehicle and updates
+     * the corresponding maximum values for logging. This function should be called after each PICKUP.
      */
-    @Override
-    public void updatePosition() {
-        super.updatePosition();
+    private void updateMaxSimultaneousRequestsAndUsers() {
+        int requestCount = userRequestMap.size();
+        if (requestCount > maxSimultaneousRequests) maxSimultaneousRequests = requestCount;
 
-        for (User.TripRequest u : userRequestMap.values()) {
-            if (u.getUser().getStatus() == SimObjectStatus.USER_IN_TRANSIT &&
-                    (u.getUser().getCurrentRequest().getVehicleID() == this.id)) {
-                u.getUser().setPosition(this.position);
-            }
+        if (getPassengers() > maxSimultaneousPassengers) {
+            maxSimultaneousPassengers = getPassengers();
         }
     }
 
@@ -377,12 +433,12 @@ public class Vehicle extends SimObjectRoutable {
         long duration = Long.MAX_VALUE;
 
         try {
-            var route = router.calculateRoute(this.position, targetPosition, Type.CAR, 0);
+            var route = router.calculateRoute(getPosition(), targetPosition, Type.CAR, 0);
             duration = route.getDurationMS();
 
         } catch (Exception e) {
             Logger.error(e);
-            Logger.error("Error while trying to route from {},{} to {},{}", this.position.getX(), this.position.getY(), targetPosition.getX(), targetPosition.getY());
+            Logger.error("Error while trying to route from {},{} to {},{}", getPosition().getX(), getPosition().getY(), targetPosition.getX(), targetPosition.getY());
         }
         return duration;
     }
@@ -394,13 +450,13 @@ public class Vehicle extends SimObjectRoutable {
      */
     public void relocate(Position targetPosition, RelocationDistrict targetDistrict) {
 
-        assert (status == SimObjectStatus.VEHICLE_IDLE) || (status == SimObjectStatus.VEHICLE_RELOCATING): "Vehicle is not IDLE or ENROUTE_RELOCATION, cannot relocate";
+        assert (getStatus() == SimObjectStatus.VEHICLE_IDLE) || (getStatus() == SimObjectStatus.VEHICLE_RELOCATING): "Vehicle is not IDLE or ENROUTE_RELOCATION, cannot relocate";
 
         try {
             Route route = new Route(SimTime.now());
 
             // make ENROUTE to new location
-            RouteStepEnroute rste = new RouteStepEnroute(position, targetPosition, RouteStep.StepType.ENROUTE_RELOCATION);
+            RouteStepEnroute rste = new RouteStepEnroute(getPosition(), targetPosition, RouteStep.StepType.ENROUTE_RELOCATION);
             route.appendRouteStep(rste, true);
 
             // make stationary point for destination
@@ -423,7 +479,7 @@ public class Vehicle extends SimObjectRoutable {
      * @return returns true, if the passengers would fit in the vehicle, otherwise returns false
      */
     public boolean hasVacantSeats(int numberOfPassengers) {
-        return (capacity - passengers - numberOfPassengers) >= 0;
+        return fleetState.hasVacantSeats(fleetIndex, numberOfPassengers);
     }
 
 
@@ -431,7 +487,7 @@ public class Vehicle extends SimObjectRoutable {
      * @return true, if the vehicle is currently fully occupied
      */
     public boolean isFullyOccupied() {
-        return capacity - passengers == 0;
+        return getCapacity() - getPassengers() == 0;
     }
 
 
@@ -446,6 +502,30 @@ public class Vehicle extends SimObjectRoutable {
 
 
     // --- GETTER & SETTERS
+    @Override
+    public void setStatus(SimObjectStatus status) {
+        SimObjectStatus oldStatus = fleetState.getStatus(fleetIndex);
+        fleetState.setStatus(fleetIndex, status);
+
+        // Update the idle-count of the district
+        if (currentCityDistrict != null && oldStatus != status) {
+            if (oldStatus == SimObjectStatus.VEHICLE_IDLE) currentCityDistrict.decrementIdleVehiclesInDistrict();
+            if (status == SimObjectStatus.VEHICLE_IDLE) currentCityDistrict.incrementIdleVehiclesInDistrict();
+        }
+    }
+
+    @Override
+    public SimObjectStatus getStatus() {
+        return fleetState.getStatus(fleetIndex);
+    }
+
+    /**
+     * @return Index of the vehicle in the FleetStateStore
+     */
+    public int getFleetIndex() {
+        return fleetIndex;
+    }
+
     @Override
     public void setCurrentRouteStep(RouteStep currentRouteStep) {
         super.setCurrentRouteStep(currentRouteStep);
@@ -484,11 +564,11 @@ public class Vehicle extends SimObjectRoutable {
     }
 
     public int getPassengers() {
-        return passengers;
+        return fleetState.getPassengers(fleetIndex);
     }
 
     public int getCapacity() {
-        return capacity;
+        return fleetState.getCapacity(fleetIndex);
     }
 
     public int getServedPassengers() {
@@ -519,11 +599,55 @@ public class Vehicle extends SimObjectRoutable {
         return userRequestMap;
     }
 
+    /**
+     * Returns the schedule of the current state of the vehicle. If an assignment is committed to the vehicle at the
+     * same time, the function waits until the commit is completed and the schedule of the committed state is
+     * available.
+     *
+     * @return Immutable schedule of the vehicle
+     */
+    public VehicleSchedule getSchedule() {
+        while (true) {
+            long version = stateVersion.get();
+            VehicleSchedule currentSchedule = schedule;
+            if (!isCommitInProgress(version) && currentSchedule.getStateVersion() == version) {
+                return currentSchedule;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return Version of the state of the vehicle. The version is incremented whenever the route, the current
+     * RouteStep or the requests of the vehicle change, but not while the vehicle moves along a RouteStep.
+     */
+    public long getStateVersion() {
+        return stateVersion.get();
+    }
+
+    /**
+     * @return true, if an assignment is committed to the vehicle at the provided state version
+     */
+    public static boolean isCommitInProgress(long stateVersion) {
+        return (stateVersion & 1) == 1;
+    }
+
+    /**
+     * Increments the state version in steps of two, as odd versions mark an assignment which is committed
+     */
+    private void incrementStateVersion() {
+        stateVersion.addAndGet(2);
+    }
+
     public RelocationDistrict getCurrentCityDistrict() {
         return currentCityDistrict;
     }
 
     public void setCurrentCityDistrict(RelocationDistrict currentCityDistrict) {
+        if (getStatus() == SimObjectStatus.VEHICLE_IDLE && this.currentCityDistrict != currentCityDistrict) {
+            if (this.currentCityDistrict != null) this.currentCityDistrict.decrementIdleVehiclesInDistrict();
+            if (currentCityDistrict != null) currentCityDistrict.incrementIdleVehiclesInDistrict();
+        }
         this.currentCityDistrict = currentCityDistrict;
     }
 }
@@ -0,0 +1,268 @@
+package de.tum.ftm.agentsim.ts.simobjects;
+
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepEnroute;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepStationary;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the state of a vehicle, which is used to evaluate assignments without reading the mutable
+ * state of the vehicle. The snapshot contains the requests assigned to the vehicle, the current RouteStep and the
+ * open pickups/drop-offs in the order of the current route. For each stop the planned arrival and departure time,
+ * the forward time slack, the number of persons on-board after the stop and the routed track from the previous stop
+ * are stored. The forward time slack of a stop is the maximum delay of the stop, which does not violate the time
+ * limits of the stop itself and of all following stops.
+ * The schedule is created by the vehicle whenever its route or its assigned requests change and is tagged with the
+ * state version of the vehicle, so that an assignment calculated on the schedule can be committed with a
+ * compare-and-set on the state version.
+ *
+ * @author Manfred Klöppel
+ */
+public class VehicleSchedule {
+
+    private Vehicle vehicle;
+    private long stateVersion;
+    private int capacity;
+    private Position position;                  // Position of the vehicle, if it has no current RouteStep
+    private RouteStep currentRouteStep;
+    private boolean startAfterCurrentStep;      // True, if the current RouteStep cannot be interrupted
+    private long startTimeMillis;               // Earliest time, at which the vehicle can deviate from its route
+    private int startLoad;                      // Number of persons on-board at the start of the schedule
+    private int openStopCount;                  // Number of pickups/drop-offs of the assigned requests
+    private Map<Long, User.TripRequest> requests;
+
+    private Position[] stopPositions;
+    private RouteStep.StepType[] stopTypes;
+    private long[] stopRequestIDs;
+    private RouteStepEnroute.EnrouteTrack[] legTracks;
+    private long[] arrivalMillis;
+    private long[] departureMillis;
+    private long[] forwardSlackMS;
+    private int[] loadAfterStop;
+
+
+    private VehicleSchedule(Vehicle vehicle, long stateVersion, int stopCount) {
+        this.vehicle = vehicle;
+        this.stateVersion = stateVersion;
+        this.stopPositions = new Position[stopCount];
+        this.stopTypes = new RouteStep.StepType[stopCount];
+        this.stopRequestIDs = new long[stopCount];
+        this.legTracks = new RouteStepEnroute.EnrouteTrack[stopCount];
+        this.arrivalMillis = new long[stopCount];
+        this.departureMillis = new long[stopCount];
+        this.forwardSlackMS = new long[stopCount];
+        this.loadAfterStop = new int[stopCount];
+    }
+
+
+    /**
+     * Creates the schedule of the current route of a vehicle. Stops of requests, which are not (yet) assigned to the
+     * vehicle, are not restricted by a latest arrival time. Must only be called while no other thread changes the
+     * state of the vehicle.
+     *
+     * @param vehicle      Vehicle of which the schedule is created
+     * @param stateVersion State version of the vehicle, which the schedule represents
+     * @return Schedule of the vehicle
+     */
+    static VehicleSchedule createFromVehicle(Vehicle vehicle, long stateVersion) {
+        // Collect all open pickups/drop-offs in the order of the current route. The track of a leg between two stops
+        // (or between the vehicle and the first stop, if the vehicle is currently not moving) can be reused, if the
+        // leg consists of a single RouteStepEnroute
+        RouteStep currentRouteStep = vehicle.getCurrentRouteStep();
+        boolean startsAfterCurrentStep = (currentRouteStep != null) && (!currentRouteStep.isInterruptible());
+
+        ArrayList<RouteStepStationary> stops = new ArrayList<>();
+        ArrayList<RouteStepEnroute.EnrouteTrack> tracks = new ArrayList<>();
+        if (vehicle.getRoute() != null) {
+            boolean legStartIsKnown = startsAfterCurrentStep;
+            RouteStepEnroute.EnrouteTrack legTrack = null;
+            int legSteps = 0;
+            for (RouteStep rs : vehicle.getRoute().getRouteSteps()) {
+                if (rs instanceof RouteStepEnroute) {
+                    legTrack = (rs.getStepType() == RouteStep.StepType.ENROUTE) ? ((RouteStepEnroute) rs).getTrack() : null;
+                    legSteps++;
+                    continue;
+                }
+
+                if (rs instanceof RouteStepStationary &&
+                        (rs.getStepType() == RouteStep.StepType.PICKUP || rs.getStepType() == RouteStep.StepType.DROPOFF)) {
+                    stops.add((RouteStepStationary) rs);
+                    tracks.add((legStartIsKnown && legSteps == 1) ? legTrack : null);
+                    legStartIsKnown = true;
+                } else {
+                    legStartIsKnown = false;
+                }
+                legTrack = null;
+                legSteps = 0;
+            }
+        }
+
+        VehicleSchedule schedule = new VehicleSchedule(vehicle, stateVersion, stops.size());
+        schedule.capacity = vehicle.getCapacity();
+        schedule.position = vehicle.getPosition().copyPosition();
+        schedule.currentRouteStep = currentRouteStep;
+        schedule.startAfterCurrentStep = startsAfterCurrentStep;
+
+        // If current RouteStep is not interruptible (e.g. Pickup/Dropoff), the schedule starts after the current
+        // RouteStep finished
+        schedule.startTimeMillis = startsAfterCurrentStep ? currentRouteStep.getEndTime().getTimeMillis() : 0;
+
+        // Copy the assigned requests and determine persons on-board and open pickups/drop-offs
+        LinkedHashMap<Long, User.TripRequest> requests = new LinkedHashMap<>(vehicle.getUserRequestMap());
+        schedule.requests = Collections.unmodifiableMap(requests);
+        for (User.TripRequest request : requests.values()) {
+            if (!request.wasPickedUp()) {
+                schedule.openStopCount += 2;
+            } else if (!request.wasDroppedOff()) {
+                schedule.openStopCount += 1;
+                schedule.startLoad += request.getTotalPersons();
+            }
+        }
+
+        // Forward pass: arrival/departure times, latest arrival times and loads
+        HashMap<Long, Long> pickupDepartures = new HashMap<>();
+        long[] latestArrivalMillis = new long[stops.size()];
+        int load = schedule.startLoad;
+        for (int k = 0; k < stops.size(); k++) {
+            RouteStepStationary rs = stops.get(k);
+            User.TripRequest request = requests.get(rs.getRequestID());
+
+            schedule.stopPositions[k] = rs.getStartPosition();
+            schedule.stopTypes[k] = rs.getStepType();
+            schedule.stopRequestIDs[k] = rs.getRequestID();
+            schedule.legTracks[k] = tracks.get(k);
+            schedule.arrivalMillis[k] = rs.getStartTime().getTimeMillis();
+            schedule.departureMillis[k] = rs.getEndTime().getTimeMillis();
+            latestArrivalMillis[k] = Long.MAX_VALUE;
+
+            if (request != null) {
+                if (rs.getStepType() == RouteStep.StepType.PICKUP) {
+                    latestArrivalMillis[k] = request.calcTripPickupLatestMillis();
+                    pickupDepartures.put(request.getRequestID(), schedule.departureMillis[k]);
+                    load += request.getTotalPersons();
+                } else {
+                    Long departure = pickupDepartures.get(request.getRequestID());
+                    if (departure != null) {
+                        // Request is picked up within this schedule
+                        latestArrivalMillis[k] = Math.min(request.calcTripDropoffLatestMillis(departure),
+                                departure + request.calcMaxTimeInVehicleMS());
+                    } else if (request.getTripDropoffLatest() != null) {
+                        // Request is already on-board of the vehicle
+                        latestArrivalMillis[k] = request.getTripDropoffLatest().getTimeMillis();
+                    }
+                    load -= request.getTotalPersons();
+                }
+            }
+            schedule.loadAfterStop[k] = load;
+        }
+
+        // Backward pass: forward time slack
+        long slack = Long.MAX_VALUE;
+        for (int k = stops.size() - 1; k >= 0; k--) {
+            if (latestArrivalMillis[k] != Long.MAX_VALUE) {
+                slack = Math.min(slack, latestArrivalMillis[k] - schedule.arrivalMillis[k]);
+            }
+            schedule.forwardSlackMS[k] = slack;
+        }
+
+        return schedule;
+    }
+
+
+    /**
+     * @return Position of the vehicle at the current simulation time
+     */
+    public Position getPosition() {
+        return (currentRouteStep != null) ? currentRouteStep.getPositionAtTime(SimTime.now().getTimeMillis()) : position;
+    }
+
+    /**
+     * @return true, if the vehicle is at a pickup/drop-off, which cannot be interrupted
+     */
+    public boolean isStartAfterCurrentStep() {
+        return startAfterCurrentStep;
+    }
+
+    /**
+     * @return Number of open pickups/drop-offs on the current route
+     */
+    public int getStopCount() {
+        return stopPositions.length;
+    }
+
+    /**
+     * @return Number of persons on-board before the stop with the provided index
+     */
+    public int getLoadBeforeStop(int index) {
+        return index == 0 ? startLoad : loadAfterStop[index - 1];
+    }
+
+    /**
+     * @return Request of the stop with the provided index, or null, if the request is not assigned to the vehicle
+     */
+    public User.TripRequest getStopRequest(int index) {
+        return requests.get(stopRequestIDs[index]);
+    }
+
+
+    // --- GETTER & SETTERS
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+    public long getVehicleId() {
+        return vehicle.getId();
+    }
+    public long getStateVersion() {
+        return stateVersion;
+    }
+    public int getCapacity() {
+        return capacity;
+    }
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+    public int getStartLoad() {
+        return startLoad;
+    }
+    public int getOpenStopCount() {
+        return openStopCount;
+    }
+    public Collection<User.TripRequest> getRequests() {
+        return requests.values();
+    }
+    public User.TripRequest getRequest(long requestID) {
+        return requests.get(requestID);
+    }
+    public Position getStopPosition(int index) {
+        return stopPositions[index];
+    }
+    public RouteStep.StepType getStopType(int index) {
+        return stopTypes[index];
+    }
+    public long getStopRequestID(int index) {
+        return stopRequestIDs[index];
+    }
+    public RouteStepEnroute.EnrouteTrack getLegTrack(int index) {
+        return legTracks[index];
+    }
+    public long getArrivalMillis(int index) {
+        return arrivalMillis[index];
+    }
+    public long getDepartureMillis(int index) {
+        return departureMillis[index];
+    }
+    public long getForwardSlackMS(int index) {
+        return forwardSlackMS[index];
+    }
+    public int getLoadAfterStop(int index) {
+        return loadAfterStop[index];
+    }
+}
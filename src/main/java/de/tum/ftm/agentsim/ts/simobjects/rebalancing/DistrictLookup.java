@@ -0,0 +1,144 @@
+package de.tum.ftm.agentsim.ts.simobjects.rebalancing;
+
+import de.tum.ftm.agentsim.ts.utils.Position;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lookup of the relocation district, in which a position is located. The extent of all districts is divided into a
+ * regular grid. For each grid-cell it is determined once, whether the cell lies completely inside a single district,
+ * outside of all districts or on the border of a district:
+ * - Inside/outside: The district of a position is determined by an array-read of the cell
+ * - Border: The district is determined by an exact point-in-polygon test against the prepared geometries of the
+ *   districts, which intersect the cell. The districts are pre-selected via an STRtree.
+ * The result is the same as testing the position with Geometry.within() against the districts in the order of the
+ * district list. The lookup is immutable and can be shared by all threads.
+ *
+ * @author Manfred Klöppel
+ */
+class DistrictLookup {
+
+    private static final int GRID_RESOLUTION = 256;    // Maximum number of cells per axis
+    private static final int NO_DISTRICT = -1;
+    private static final int BORDER_CELL = -2;
+
+    private final RelocationDistrict[] districts;
+    private final PreparedGeometry[] preparedGeometries;
+    private final STRtree districtIndex = new STRtree();
+
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] cellDistricts;
+
+
+    /**
+     * Creates the lookup for the districts
+     *
+     * @param districtList Districts, in the order in which they are tested
+     */
+    DistrictLookup(List<RelocationDistrict> districtList) {
+        districts = districtList.toArray(new RelocationDistrict[0]);
+        preparedGeometries = new PreparedGeometry[districts.length];
+
+        Envelope extent = new Envelope();
+        for (int i = 0; i < districts.length; i++) {
+            Geometry geometry = districts[i].districtGeometry;
+            preparedGeometries[i] = PreparedGeometryFactory.prepare(geometry);
+            districtIndex.insert(geometry.getEnvelopeInternal(), i);
+            extent.expandToInclude(geometry.getEnvelopeInternal());
+        }
+        districtIndex.build();
+
+        minX = extent.isNull() ? 0 : extent.getMinX();
+        minY = extent.isNull() ? 0 : extent.getMinY();
+        columns = extent.isNull() ? 0 : GRID_RESOLUTION;
+        rows = extent.isNull() ? 0 : GRID_RESOLUTION;
+        cellWidth = extent.isNull() ? 1 : Math.max(extent.getWidth() / GRID_RESOLUTION, Double.MIN_NORMAL);
+        cellHeight = extent.isNull() ? 1 : Math.max(extent.getHeight() / GRID_RESOLUTION, Double.MIN_NORMAL);
+
+        cellDistricts = new int[columns * rows];
+        classifyCells();
+    }
+
+
+    /**
+     * Determines for each cell, whether it lies completely inside a single district, outside of all districts or on
+     * the border of a district
+     */
+    private void classifyCells() {
+        GeometryFactory geometryFactory = new GeometryFactory();
+        Arrays.fill(cellDistricts, NO_DISTRICT);
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                Envelope cellEnvelope = new Envelope(
+                        minX + column * cellWidth, minX + (column + 1) * cellWidth,
+                        minY + row * cellHeight, minY + (row + 1) * cellHeight);
+                Geometry cell = geometryFactory.toGeometry(cellEnvelope);
+
+                for (Object item : districtIndex.query(cellEnvelope)) {
+                    int index = (int) item;
+                    if (!preparedGeometries[index].intersects(cell)) continue;
+
+                    if (preparedGeometries[index].containsProperly(cell) && isOnlyIntersectingDistrict(index, cell, cellEnvelope)) {
+                        cellDistricts[row * columns + column] = index;
+                    } else {
+                        cellDistricts[row * columns + column] = BORDER_CELL;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true, if no other district than the district with the index intersects the cell
+     */
+    private boolean isOnlyIntersectingDistrict(int index, Geometry cell, Envelope cellEnvelope) {
+        for (Object item : districtIndex.query(cellEnvelope)) {
+            int otherIndex = (int) item;
+            if (otherIndex != index && preparedGeometries[otherIndex].intersects(cell)) return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the district, in which the position is located
+     *
+     * @param position Position
+     * @return District of the position, or null, if the position is not located within any district
+     */
+    RelocationDistrict getDistrict(Position position) {
+        int column = (int) Math.floor((position.getX() - minX) / cellWidth);
+        int row = (int) Math.floor((position.getY() - minY) / cellHeight);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return null;
+
+        int cellDistrict = cellDistricts[row * columns + column];
+        if (cellDistrict == NO_DISTRICT) return null;
+        if (cellDistrict != BORDER_CELL) return districts[cellDistrict];
+
+        // Border cell: exact test of the districts in the order of the district list
+        RelocationDistrict result = null;
+        int resultIndex = Integer.MAX_VALUE;
+        for (Object item : districtIndex.query(new Envelope(position.getX(), position.getX(), position.getY(), position.getY()))) {
+            int index = (int) item;
+            if (index < resultIndex && preparedGeometries[index].contains(position.geoFunc())) {
+                result = districts[index];
+                resultIndex = index;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package de.tum.ftm.agentsim.ts.simobjects.rebalancing;
+
+import java.util.Arrays;
+
+/**
+ * Solver for min-cost-flow problems with integer capacities and non-negative costs. The maximum flow from the source
+ * to the sink is determined, which has the minimal total cost among all maximum flows. The solver uses successive
+ * shortest paths in the residual graph; the shortest paths are determined with the queue-based Bellman-Ford algorithm,
+ * as the residual graph contains edges with negative costs.
+ *
+ * @author Manfred Klöppel
+ */
+class MinCostFlowSolver {
+
+    private static final int INITIAL_EDGE_CAPACITY = 64;
+
+    private final int nodeCount;
+
+    // Residual edges in primitive arrays. The edges of each node are linked in the order of their insertion, the edge
+    // with index e^1 is the residual edge of the edge with index e.
+    private final int[] firstEdge;
+    private final int[] lastEdge;
+    private int[] nextEdge = new int[INITIAL_EDGE_CAPACITY];
+    private int[] edgeTo = new int[INITIAL_EDGE_CAPACITY];
+    private int[] edgeCapacity = new int[INITIAL_EDGE_CAPACITY];
+    private long[] edgeCost = new long[INITIAL_EDGE_CAPACITY];
+    private int[] edgeFlow = new int[INITIAL_EDGE_CAPACITY];
+    private int edgeCount = 0;
+
+    MinCostFlowSolver(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.firstEdge = new int[nodeCount];
+        this.lastEdge = new int[nodeCount];
+        Arrays.fill(firstEdge, -1);
+        Arrays.fill(lastEdge, -1);
+    }
+
+
+    /**
+     * Adds a directed edge and its residual edge to the graph
+     *
+     * @return Index of the edge
+     */
+    int addEdge(int from, int to, int capacity, long cost) {
+        int index = edgeCount;
+        addResidualEdge(from, to, capacity, cost);
+        addResidualEdge(to, from, 0, -cost);
+        return index;
+    }
+
+    private void addResidualEdge(int from, int to, int capacity, long cost) {
+        if (edgeCount == edgeTo.length) {
+            int newLength = edgeTo.length * 2;
+            nextEdge = Arrays.copyOf(nextEdge, newLength);
+            edgeTo = Arrays.copyOf(edgeTo, newLength);
+            edgeCapacity = Arrays.copyOf(edgeCapacity, newLength);
+            edgeCost = Arrays.copyOf(edgeCost, newLength);
+            edgeFlow = Arrays.copyOf(edgeFlow, newLength);
+        }
+        int edge = edgeCount++;
+        nextEdge[edge] = -1;
+        edgeTo[edge] = to;
+        edgeCapacity[edge] = capacity;
+        edgeCost[edge] = cost;
+        edgeFlow[edge] = 0;
+
+        if (firstEdge[from] == -1) {
+            firstEdge[from] = edge;
+        } else {
+            nextEdge[lastEdge[from]] = edge;
+        }
+        lastEdge[from] = edge;
+    }
+
+
+    /**
+     * Determines the min-cost maximum flow from the source to the sink
+     *
+     * @return Total flow
+     */
+    int solve(int source, int sink) {
+        int totalFlow = 0;
+        long[] distance = new long[nodeCount];
+        int[] predecessorEdge = new int[nodeCount];
+        boolean[] inQueue = new boolean[nodeCount];
+        int[] queue = new int[nodeCount + 1];     // Ring buffer, each node is at most once in the queue
+
+        while (true) {
+            // Shortest path from the source to all nodes in the residual graph
+            Arrays.fill(distance, Long.MAX_VALUE);
+            Arrays.fill(predecessorEdge, -1);
+            int queueHead = 0;
+            int queueTail = 0;
+            distance[source] = 0;
+            queue[queueTail++] = source;
+            inQueue[source] = true;
+
+            while (queueHead != queueTail) {
+                int node = queue[queueHead];
+                queueHead = (queueHead + 1) % queue.length;
+                inQueue[node] = false;
+                for (int edge = firstEdge[node]; edge != -1; edge = nextEdge[edge]) {
+                    if (getResidualCapacity(edge) <= 0) continue;
+                    int next = edgeTo[edge];
+                    long nextDistance = distance[node] + edgeCost[edge];
+                    if (nextDistance < distance[next]) {
+                        distance[next] = nextDistance;
+                        predecessorEdge[next] = edge;
+                        if (!inQueue[next]) {
+                            queue[queueTail] = next;
+                            queueTail = (queueTail + 1) % queue.length;
+                            inQueue[next] = true;
+                        }
+                    }
+                }
+            }
+            if (distance[sink] == Long.MAX_VALUE) break;
+
+            // Augment the flow along the shortest path by its bottleneck capacity
+            int pathFlow = Integer.MAX_VALUE;
+            for (int node = sink; node != source; node = edgeTo[predecessorEdge[node] ^ 1]) {
+                pathFlow = Math.min(pathFlow, getResidualCapacity(predecessorEdge[node]));
+            }
+            for (int node = sink; node != source; node = edgeTo[predecessorEdge[node] ^ 1]) {
+                int edge = predecessorEdge[node];
+                edgeFlow[edge] += pathFlow;
+                edgeFlow[edge ^ 1] -= pathFlow;
+            }
+            totalFlow += pathFlow;
+        }
+        return totalFlow;
+    }
+
+    /**
+     * @return Flow on the edge with the index returned by addEdge()
+     */
+    int getFlow(int edge) {
+        return edgeFlow[edge];
+    }
+
+    private int getResidualCapacity(int edge) {
+        return edgeCapacity[edge] - edgeFlow[edge];
+    }
+}
@@ -0,0 +1,217 @@
+package de.tum.ftm.agentsim.ts.simobjects.rebalancing;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectRoutable;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectStatus;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.ItemBoundable;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.pmw.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relocation manager, which uses the same relocation data and target distribution over the city districts as the
+ * RebalancingManagerR5. Instead of relocating one vehicle after another to the district with the highest shortage,
+ * the relocation of the fleet is planned in a single pass:
+ * 1. District level: The vehicles in surplus districts are assigned to the deficit districts by solving a min-cost-flow
+ *    problem. The costs are the travel durations between the district centers, which are determined only once.
+ * 2. Vehicle level: For each pair of districts, the vehicles in the surplus district which are closest to the
+ *    relocation targets in the deficit district are relocated. The closest vehicles are found via an STRtree of the
+ *    available vehicles of each surplus district.
+ * The relocation of single idle vehicles is the same as in the RebalancingManagerR5.
+ *
+ * @author Manfred Klöppel
+ */
+public class RebalancingManagerFlow extends RebalancingManagerR5 {
+
+    private Map<Integer, Integer> durationIndexes;  // Index of the districts in the duration matrix by district-ID
+    private long[][] districtDurationsS;            // Travel durations between the district centers in seconds, -1 if not routable
+
+    // Singleton, created on first use, as the relocation data is loaded by the constructor
+    private static RebalancingManagerFlow INSTANCE;
+
+    private RebalancingManagerFlow() {
+        super();
+    }
+
+    /**
+     * Get the singleton instance.
+     * @return RelocationManager Instance
+     */
+    public static synchronized RebalancingManagerFlow getInstance() {
+        if (INSTANCE == null) INSTANCE = new RebalancingManagerFlow();
+        return INSTANCE;
+    }
+
+
+    /**
+     * Main relocation function. Checks the current distribution of vehicles over all city-districts and compares
+     * it with the target-distribution. The surplus vehicles are assigned to the districts with too few vehicles in a
+     * single min-cost-flow pass.
+     */
+    @Override
+    public void relocateFleet() {
+        List<Vehicle> fleet = new ArrayList<>(scenario.getSimObjectController().getFleet().values());
+        updateVehicleBalance(fleet);
+
+        if (Config.LOG_REBALANCING) logRelocationTarget(false);
+        if (districtDurationsS == null) districtDurationsS = calculateDistrictDurations();
+
+        // Available vehicles per district (idle or relocating)
+        Map<RelocationDistrict, List<Vehicle>> availableVehicles = new HashMap<>();
+        for (Vehicle v : fleet) {
+            if ((v.getStatus() == SimObjectStatus.VEHICLE_RELOCATING || v.getStatus() == SimObjectStatus.VEHICLE_IDLE)
+                    && v.getCurrentCityDistrict() != null) {
+                availableVehicles.computeIfAbsent(v.getCurrentCityDistrict(), d -> new ArrayList<>()).add(v);
+            }
+        }
+
+        // Flow network: source -> surplus district -> deficit district -> sink
+        int districtCount = districtList.size();
+        int source = 2 * districtCount;
+        int sink = source + 1;
+        MinCostFlowSolver solver = new MinCostFlowSolver(sink + 1);
+        int[][] pairEdges = new int[districtCount][districtCount];
+        int[] surplus = new int[districtCount];
+        int[] deficit = new int[districtCount];
+
+        for (int s = 0; s < districtCount; s++) {
+            surplus[s] = calcSurplus(districtList.get(s), availableVehicles);
+            deficit[s] = calcDeficit(districtList.get(s));
+            if (surplus[s] > 0) solver.addEdge(source, s, surplus[s], 0);
+            if (deficit[s] > 0) solver.addEdge(districtCount + s, sink, deficit[s], 0);
+        }
+        for (int s = 0; s < districtCount; s++) {
+            int sourceIndex = durationIndexes.get(districtList.get(s).getCityDistrictID());
+            for (int d = 0; d < districtCount; d++) {
+                pairEdges[s][d] = -1;
+                if (s == d || surplus[s] == 0 || deficit[d] == 0) continue;
+
+                long durationS = districtDurationsS[sourceIndex][durationIndexes.get(districtList.get(d).getCityDistrictID())];
+                if (durationS >= 0) pairEdges[s][d] = solver.addEdge(s, districtCount + d, surplus[s], durationS);
+            }
+        }
+        solver.solve(source, sink);
+
+        // Relocate the vehicles per pair of districts
+        int relocationCounter = 0;
+        for (int s = 0; s < districtCount; s++) {
+            RelocationDistrict sourceDistrict = districtList.get(s);
+            STRtree vehicleIndex = null;
+
+            for (int d = 0; d < districtCount; d++) {
+                if (pairEdges[s][d] < 0 || solver.getFlow(pairEdges[s][d]) == 0) continue;
+                if (vehicleIndex == null) vehicleIndex = buildVehicleIndex(availableVehicles.get(sourceDistrict));
+
+                RelocationDistrict destinationDistrict = districtList.get(d);
+                for (int i = 0; i < solver.getFlow(pairEdges[s][d]); i++) {
+                    Position relocationTarget = generateRelocationTarget(destinationDistrict);
+                    Vehicle relocationVehicle = pollClosestVehicle(vehicleIndex, relocationTarget);
+
+                    // update deviation numbers
+                    destinationDistrict.incrementVehiclesInDistrict();
+                    sourceDistrict.decrementVehiclesInDistrict();
+
+                    // relocate vehicle
+                    Logger.trace("Vehicle {} is relocated from district {} to district {}",
+                            relocationVehicle.getId(), sourceDistrict.getCityDistrictID(), destinationDistrict.getCityDistrictID());
+                    relocationVehicle.relocate(relocationTarget, destinationDistrict);
+                    relocationCounter += 1;
+                }
+            }
+        }
+
+        if (Config.LOG_REBALANCING) logRelocationResult();
+        Logger.trace(String.format("%s Vehicles relocated", relocationCounter));
+    }
+
+
+    /**
+     * Number of vehicles, which can leave a district. As in the RebalancingManagerR5, vehicles are only taken from
+     * districts with more vehicles than targeted, and only idle or relocating vehicles can be relocated.
+     */
+    private int calcSurplus(RelocationDistrict district, Map<RelocationDistrict, List<Vehicle>> availableVehicles) {
+        int excess = district.targetVehiclesInDistrictCount == 0 ?
+                district.currentVehiclesInDistrictCount :
+                district.currentVehiclesInDistrictCount - district.targetVehiclesInDistrictCount;
+        return Math.max(0, Math.min(excess, availableVehicles.getOrDefault(district, List.of()).size()));
+    }
+
+    /**
+     * Number of vehicles, which are missing in a district
+     */
+    private int calcDeficit(RelocationDistrict district) {
+        return Math.max(0, district.targetVehiclesInDistrictCount - district.currentVehiclesInDistrictCount);
+    }
+
+
+    /**
+     * Calculates the travel durations between the centers of all districts
+     *
+     * @return Travel durations in seconds, indexed by the durationIndexes of the districts; -1, if no route was found
+     */
+    private long[][] calculateDistrictDurations() {
+        durationIndexes = new HashMap<>();
+        for (RelocationDistrict district : districtList) {
+            durationIndexes.put(district.getCityDistrictID(), durationIndexes.size());
+        }
+        long[][] durations = new long[districtList.size()][districtList.size()];
+
+        for (RelocationDistrict from : districtList) {
+            Position fromPosition = from.getDistrictCenterPosition();
+            int fromIndex = durationIndexes.get(from.getCityDistrictID());
+            for (RelocationDistrict to : districtList) {
+                int toIndex = durationIndexes.get(to.getCityDistrictID());
+                try {
+                    durations[fromIndex][toIndex] = CityGridRouter.getInstance()
+                            .calculateRoute(fromPosition, to.getDistrictCenterPosition(), SimObjectRoutable.Type.CAR, 0)
+                            .getDurationMS() / 1000;
+                } catch (Exception e) {
+                    Logger.warn("No route between the centers of district {} and {}", from.getCityDistrictID(), to.getCityDistrictID());
+                    durations[fromIndex][toIndex] = -1;
+                }
+            }
+        }
+        return durations;
+    }
+
+
+    /**
+     * Builds a spatial index of the vehicles
+     */
+    private STRtree buildVehicleIndex(List<Vehicle> vehicles) {
+        STRtree vehicleIndex = new STRtree();
+        for (Vehicle v : vehicles) {
+            Position position = v.getPosition();
+            vehicleIndex.insert(new Envelope(position.getX(), position.getX(), position.getY(), position.getY()), v);
+        }
+        vehicleIndex.build();
+        return vehicleIndex;
+    }
+
+    /**
+     * Returns the vehicle which is closest to the position and removes it from the spatial index. The planar distance
+     * in degrees is used, as the STRtree prunes the search with the distances between the envelopes in degrees.
+     */
+    private Vehicle pollClosestVehicle(STRtree vehicleIndex, Position position) {
+        Envelope envelope = new Envelope(position.getX(), position.getX(), position.getY(), position.getY());
+        Vehicle vehicle = (Vehicle) vehicleIndex.nearestNeighbour(envelope, position,
+                (ItemBoundable item1, ItemBoundable item2) ->
+                        ((Envelope) item1.getBounds()).distance((Envelope) item2.getBounds()));
+        Position vehiclePosition = vehicle.getPosition();
+        vehicleIndex.remove(new Envelope(vehiclePosition.getX(), vehiclePosition.getX(), vehiclePosition.getY(), vehiclePosition.getY()), vehicle);
+        return vehicle;
+    }
+
+    @Override
+    public String getRelocationManagerType() {
+        return "Flow RebalancingManager";
+    }
+}
@@ -41,14 +41,17 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
 
     TreeMap<SimTime, RelocationTimeData> rebalancingDataMap = new TreeMap<>();   // Vehicle Distribution data over time for each city district
     List<RelocationDistrict> districtList = new ArrayList<>();                            // List of city districts
+    DistrictLookup districtLookup;                                                       // Lookup of the district of a position
     Event_RebalancingManager lastRebalancingEvent;
 
-    // Singleton
-    private static RebalancingManagerR5 INSTANCE = new RebalancingManagerR5();
+    // Singleton, created on first use, as the relocation data is loaded by the constructor
+    private static RebalancingManagerR5 INSTANCE;
 
-    private RebalancingManagerR5() {
+    RebalancingManagerR5() {
         super(0, null);
         importRelocationData(Config.REBALANCING_MAP_PATH);
+        districtLookup = new DistrictLookup(districtList);
+        createRelocationTargetPools();
 
         // Delete log file, if it already exits
         if (Config.LOG_REBALANCING) {
@@ -65,7 +68,8 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
      * Get the singleton instance.
      * @return RelocationManager Instance
      */
-    public static RebalancingManagerR5 getInstance() {
+    public static synchronized RebalancingManagerR5 getInstance() {
+        if (INSTANCE == null) INSTANCE = new RebalancingManagerR5();
         return INSTANCE;
     }
 
@@ -108,11 +112,7 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
         } else {
             // Logger.info("Relocating IDLE Fleet");
 
-            List<Vehicle> fleet = new ArrayList<>(scenario.getSimObjectController().getFleet().values());
-
-            fleet.stream()
-                    .filter(v -> (v.getStatus().equals(SimObjectStatus.VEHICLE_IDLE)))
-                    .forEach(this::relocateSingleVehicle);
+            relocateIdleVehicles();
 
             // Logger.info("Completed Relocating IDLE Fleet");
 
@@ -125,17 +125,7 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
      */
     public void relocateFleet() {
         List<Vehicle> fleet = new ArrayList<>(scenario.getSimObjectController().getFleet().values());
-
-        // Update vehicle position
-        scenario.getSimObjectController().updateFleetPositions(true);
-
-        // Update district info of all vehicles, except relocating vehicles; then update district data about vehicle count; re-enable all vehicles for relocation
-        districtList.parallelStream().forEach(district -> {
-            fleet.stream()
-                    .filter(v -> (v.getStatus() != SimObjectStatus.VEHICLE_RELOCATING && v.getPosition().geoFunc().within(district.districtGeometry)))
-                    .forEach(v -> v.setCurrentCityDistrict(district));
-        });
-        districtList.forEach(district -> district.calculateVehicleBalance(fleet, rebalancingDataMap));
+        updateVehicleBalance(fleet);
 
         if (Config.LOG_REBALANCING) logRelocationTarget(false);
 
@@ -180,6 +170,18 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
         Logger.trace(String.format("%s Vehicles relocated", relocationCounter));
     }
 
+    /**
+     * Updates the district info of all vehicles, except relocating vehicles. The district of a vehicle outside of all
+     * districts is cleared. Then updates the current and target vehicle count of all districts.
+     * @param fleet All vehicles of the fleet
+     */
+    void updateVehicleBalance(List<Vehicle> fleet) {
+        fleet.parallelStream()
+                .filter(v -> v.getStatus() != SimObjectStatus.VEHICLE_RELOCATING)
+                .forEach(v -> v.setCurrentCityDistrict(districtLookup.getDistrict(v.getPosition())));
+        districtList.forEach(district -> district.calculateVehicleBalance(fleet, rebalancingDataMap));
+    }
+
     private Vehicle getClosestVehicle(List<Vehicle> fleet, Position relocationTarget) {
         long minDistance = Long.MAX_VALUE;
         Vehicle returnVehicle = fleet.get(0);
@@ -197,6 +199,7 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
         return fleet.parallelStream()
                 .filter(v ->
                         (v.getStatus() == SimObjectStatus.VEHICLE_RELOCATING || v.getStatus() == SimObjectStatus.VEHICLE_IDLE)
+                                && v.getCurrentCityDistrict() != null
                                 && v.getCurrentCityDistrict() != destinationDistrict
                                 && v.getCurrentCityDistrict().getVehicleBalanceDeviation()>1) // has more vehicles than target
                 .collect(Collectors.toCollection(ArrayList::new));
@@ -206,7 +209,7 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
      * Logs the current and target vehicle amount within a relocation district at the current relocation-event
      * @param idleMode Records, which relocation-mode is present
      */
-    private void logRelocationTarget(boolean idleMode) {
+    void logRelocationTarget(boolean idleMode) {
         File logFile = new File(Config.REBALANCING_LOG_PATH);
 
         // Sort district list according to district-ID for correct printout
@@ -248,7 +251,7 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
     /**
      * Logs the result after the processing of an relocation-event
      */
-    private void logRelocationResult() {
+    void logRelocationResult() {
         File logFile = new File(Config.REBALANCING_LOG_PATH);
 
         // Sort district list according to district-ID for correct printout
@@ -280,58 +283,119 @@ public class RebalancingManagerR5 extends SimObject implements RebalancingManage
      * @param vehicle The vehicle which should be relocated
      */
     public void relocateSingleVehicle(Vehicle vehicle) {
-        if (vehicle.getCurrentCityDistrict() != null) {
-            // Determine which district the vehicle is in currently
-            for (var district : districtList) {
-                if (vehicle.getPosition().geoFunc().within(district.districtGeometry)) {
-                    var currentDistrictID = district.cityDistrictID;
-
-                    // Update the number of vehicles in the district where the vehicle was allocated, in case the
-                    // vehicle has changed the district since the last execution of the relocation manager
-                    if (currentDistrictID != vehicle.getCurrentCityDistrict().cityDistrictID) {
-                        vehicle.getCurrentCityDistrict().decrementVehiclesInDistrict();
-                        district.incrementVehiclesInDistrict();
-                        vehicle.setCurrentCityDistrict(district);
-                    }
-
-                    ArrayList<RelocationDistrict> minusList = districtList.stream()
-                            .filter(d -> d.getVehicleBalanceDeviation() < 0.8 && !vehicle.getCurrentCityDistrict().equals(d))
-                            .collect(Collectors.toCollection(ArrayList::new));
-
-                    if (minusList.size() > 0) {
-                        long min_duration = Long.MAX_VALUE;
-                        RelocationDistrict relocationTargetDistrict = minusList.get(0);
-
-                        for (RelocationDistrict district1 : minusList) {
-                            long durationToDistrict = vehicle.calculateDurationToPosition(district1.getDistrictCenterPosition(), CityGridRouter.getInstance());
-                            if (durationToDistrict < min_duration) {
-                                relocationTargetDistrict = district1;
-                                min_duration = durationToDistrict;
-                            }
-                        }
-                        // update deviation numbers
-                        relocationTargetDistrict.incrementVehiclesInDistrict();
-                        vehicle.getCurrentCityDistrict().decrementVehiclesInDistrict();
-
-                        // relocate vehicle
-                        Logger.trace("Single Vehicle {} is relocated from district {} to district {}",
-                                vehicle.getId(), vehicle.getCurrentCityDistrict().getCityDistrictID(), relocationTargetDistrict.getCityDistrictID());
-                        vehicle.relocate(generateRelocationTarget(relocationTargetDistrict), relocationTargetDistrict);
-                    }
-                    return;
+        if (vehicle.getCurrentCityDistrict() != null && updateVehicleDistrict(vehicle) != null) {
+            relocateToDeficitDistrict(vehicle);
+        }
+    }
+
+    /**
+     * Relocates the idle vehicles to relocation-districts with too few vehicles. Only the idle vehicles of the fleet
+     * are visited. As the stored district of a vehicle can be outdated, the district of each idle vehicle is
+     * determined again before the vehicle counts of the districts are checked.
+     */
+    private void relocateIdleVehicles() {
+        List<Vehicle> idleFleet = scenario.getSimObjectController().getVehiclesWithStatus(SimObjectStatus.VEHICLE_IDLE);
+        for (Vehicle vehicle : idleFleet) {
+            if (vehicle.getCurrentCityDistrict() != null) updateVehicleDistrict(vehicle);
+        }
+
+        // Nothing to do, if no district with a deficit could receive any of the idle vehicles
+        int idleVehicles = 0;
+        int deficitDistricts = 0;
+        RelocationDistrict deficitDistrict = null;
+        for (RelocationDistrict district : districtList) {
+            idleVehicles += district.getIdleVehiclesInDistrictCount();
+            if (district.getVehicleBalanceDeviation() < 0.8) {
+                deficitDistricts++;
+                deficitDistrict = district;
+            }
+        }
+        if (deficitDistricts == 0 || (deficitDistricts == 1 && idleVehicles == deficitDistrict.getIdleVehiclesInDistrictCount())) return;
+
+        for (Vehicle vehicle : idleFleet) {
+            if (vehicle.getCurrentCityDistrict() != null) relocateToDeficitDistrict(vehicle);
+        }
+    }
+
+    /**
+     * Determines the district the vehicle is in currently and updates the number of vehicles in the districts, in
+     * case the vehicle has changed the district since it was last determined. If the vehicle is outside of all
+     * districts, its district is cleared and it is counted again at the next relocation of the fleet.
+     * @param vehicle Vehicle with a known district
+     * @return Current district of the vehicle, null if the vehicle is outside of all districts
+     */
+    private RelocationDistrict updateVehicleDistrict(Vehicle vehicle) {
+        RelocationDistrict district = districtLookup.getDistrict(vehicle.getPosition());
+        if (district != vehicle.getCurrentCityDistrict()) {
+            vehicle.getCurrentCityDistrict().decrementVehiclesInDistrict();
+            if (district != null) district.incrementVehiclesInDistrict();
+            vehicle.setCurrentCityDistrict(district);
+        }
+        return district;
+    }
+
+    /**
+     * Relocates the vehicle to the closest district with too few vehicles, if there is any
+     * @param vehicle Idle vehicle with a known current district
+     */
+    private void relocateToDeficitDistrict(Vehicle vehicle) {
+        ArrayList<RelocationDistrict> minusList = districtList.stream()
+                .filter(d -> d.getVehicleBalanceDeviation() < 0.8 && !vehicle.getCurrentCityDistrict().equals(d))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        if (minusList.size() > 0) {
+            long min_duration = Long.MAX_VALUE;
+            RelocationDistrict relocationTargetDistrict = minusList.get(0);
+
+            for (RelocationDistrict district1 : minusList) {
+                long durationToDistrict = vehicle.calculateDurationToPosition(district1.getDistrictCenterPosition(), CityGridRouter.getInstance());
+                if (durationToDistrict < min_duration) {
+                    relocationTargetDistrict = district1;
+                    min_duration = durationToDistrict;
                 }
             }
+            // update deviation numbers
+            relocationTargetDistrict.incrementVehiclesInDistrict();
+            vehicle.getCurrentCityDistrict().decrementVehiclesInDistrict();
+
+            // relocate vehicle
+            Logger.trace("Single Vehicle {} is relocated from district {} to district {}",
+                    vehicle.getId(), vehicle.getCurrentCityDistrict().getCityDistrictID(), relocationTargetDistrict.getCityDistrictID());
+            vehicle.relocate(generateRelocationTarget(relocationTargetDistrict), relocationTargetDistrict);
         }
     }
 
 
     /**
-     * Generate random point for relocation in a given district
+     * Creates the pools of road-snapped relocation targets of all districts and checks their coverage. Districts,
+     * for which not all targets could be found on roads within the district (and within valid CityGrid-cells, if the
+     * CityGrid is used), are reported.
+     */
+    private void createRelocationTargetPools() {
+        Logger.info("Creating relocation target pools...");
+        districtList.parallelStream().forEach(district -> {
+            int attempts = district.createRelocationTargetPool(Config.REBALANCING_TARGET_POOL_SIZE);
+            if (district.getRelocationTargetCount() < Config.REBALANCING_TARGET_POOL_SIZE) {
+                Logger.warn("Relocation district {}: {} of {} targets found ({} sampled points)",
+                        district.getCityDistrictID(), district.getRelocationTargetCount(),
+                        Config.REBALANCING_TARGET_POOL_SIZE, attempts);
+            }
+        });
+        int targetCount = districtList.stream().mapToInt(RelocationDistrict::getRelocationTargetCount).sum();
+        Logger.info("Relocation target pools created: {} targets in {} districts", targetCount, districtList.size());
+    }
+
+    /**
+     * Draws a relocation target of a given district from its pool of road-snapped targets. If the pool of the district
+     * is empty, a random point within the district is generated.
      *
-     * @param district The district within which the random point should be generated
-     * @return New random Position within given district
+     * @param district The district within which the relocation target should be located
+     * @return New Position within given district
      */
-    private Position generateRelocationTarget(RelocationDistrict district) {
+    Position generateRelocationTarget(RelocationDistrict district) {
+        Position relocationTarget = district.drawRelocationTarget();
+        if (relocationTarget != null) return relocationTarget;
+
         RandomPointsBuilder rndPointBuilder = new RandomPointsBuilder();
         rndPointBuilder.setNumPoints(1);
         rndPointBuilder.setExtent(district.districtGeometry);
@@ -1,12 +1,20 @@
 package de.tum.ftm.agentsim.ts.simobjects.rebalancing;
 
 import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.routing.CityGridRouter;
+import de.tum.ftm.agentsim.ts.routing.GraphHopperRouter;
 import de.tum.ftm.agentsim.ts.simobjects.SimObjectStatus;
 import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
 import de.tum.ftm.agentsim.ts.utils.Position;
 import de.tum.ftm.agentsim.ts.utils.SimTime;
+import de.tum.ftm.agentsim.ts.utils.UtilRandomNumber;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.shape.random.RandomPointsBuilder;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -14,14 +22,18 @@ import java.util.TreeMap;
  * Inner class to store the information for a city district
  */
 public class RelocationDistrict implements Comparable<RelocationDistrict> {
+    private static final int TARGET_SAMPLING_ATTEMPTS = 10;    // Max. sampled points per target of the pool
+
     int cityDistrictID;
     Geometry districtGeometry;
+    Position[] relocationTargets = new Position[0];    // Pool of road-snapped relocation targets within the district
     int fleetSize;
     int currentDistrictRequestDemand = 0;
 
     double currentTimeRequestShare = 0;
     int targetVehiclesInDistrictCount = 0;
     int currentVehiclesInDistrictCount = 0;
+    int idleVehiclesInDistrictCount = 0;    // Updated by the vehicles on every change of their status or district
     int vehicleBalance = 0;  // + if too many vehicles, - if too less vehicles
     double vehicleBalanceDeviation = 0;
 
@@ -30,6 +42,50 @@ public class RelocationDistrict implements Comparable<RelocationDistrict> {
         this.districtGeometry = districtGeometry;
     }
 
+    /**
+     * Creates the pool of relocation targets of the district. Random points within the district are snapped to the
+     * road network. A snapped point is accepted, if it still lies within the district and, if the CityGrid is used,
+     * within a valid cell of the CityGrid. If not enough points are accepted after a limited number of attempts, the
+     * pool remains smaller than requested.
+     *
+     * @param poolSize Number of targets in the pool
+     * @return Number of sampled points
+     */
+    int createRelocationTargetPool(int poolSize) {
+        PreparedGeometry preparedGeometry = PreparedGeometryFactory.prepare(districtGeometry);
+        List<Position> targets = new ArrayList<>(poolSize);
+        int attempts = 0;
+
+        while (targets.size() < poolSize && attempts < poolSize * TARGET_SAMPLING_ATTEMPTS) {
+            RandomPointsBuilder rndPointBuilder = new RandomPointsBuilder();
+            rndPointBuilder.setNumPoints(poolSize - targets.size());
+            rndPointBuilder.setExtent(districtGeometry);
+
+            for (Coordinate coordinate : rndPointBuilder.getGeometry().getCoordinates()) {
+                attempts++;
+                Position snappedPoint = GraphHopperRouter.getInstance().getClosestPointOnStreet(new Position(coordinate.x, coordinate.y));
+                if (snappedPoint == null || !preparedGeometry.contains(snappedPoint.geoFunc())) continue;
+                if (Config.USE_GRID_ROUTER && !CityGridRouter.getInstance().isPositionCovered(snappedPoint)) continue;
+                targets.add(snappedPoint);
+            }
+        }
+        relocationTargets = targets.toArray(new Position[0]);
+        return attempts;
+    }
+
+    /**
+     * @return Random target from the pool of relocation targets, or null, if the pool is empty
+     */
+    Position drawRelocationTarget() {
+        if (relocationTargets.length == 0) return null;
+        return relocationTargets[UtilRandomNumber.randInt(0, relocationTargets.length - 1)].copyPosition();
+    }
+
+    public int getRelocationTargetCount() {
+        return relocationTargets.length;
+    }
+
+
     /**
      * Calculate the current distribution of vehicles in the city districts
      *
@@ -120,6 +176,18 @@ public class RelocationDistrict implements Comparable<RelocationDistrict> {
         this.currentVehiclesInDistrictCount = currentVehiclesInDistrictCount;
     }
 
+    public synchronized void decrementIdleVehiclesInDistrict() {
+        this.idleVehiclesInDistrictCount--;
+    }
+
+    public synchronized void incrementIdleVehiclesInDistrict() {
+        this.idleVehiclesInDistrictCount++;
+    }
+
+    public int getIdleVehiclesInDistrictCount() {
+        return idleVehiclesInDistrictCount;
+    }
+
     public Position getDistrictCenterPosition() {
         return new Position(districtGeometry.getCentroid().getX(), districtGeometry.getCentroid().getY());
     }
@@ -165,6 +165,21 @@ public class UtilCityGridRouter implements Serializable {
     }
 
 
+    /**
+     * Checks, whether a position lies within a valid cell of the grid, i.e. whether routes from/to the position can
+     * be answered by the grid
+     *
+     * @param p Position (containing longitude/latitude)
+     * @return true, if the cell of the position is within the grid and valid
+     */
+    public boolean isPositionCovered(Position p) {
+        int x = getLonIndex(p.getX());
+        int y = getLatIndex(p.getY());
+        if (x < 0 || x >= gridWidthCells || y < 0 || y >= gridHeightCells) return false;
+        return grid[x][y].isCellValid();
+    }
+
+
     /**
      * Returns the duration between two locations
      *
@@ -350,6 +365,16 @@ public class UtilCityGridRouter implements Serializable {
         return gridHeightCells;
     }
 
+    /**
+     * @return Length of the diagonal of the widest cell of the grid (the cell closest to the equator) in meters
+     */
+    public double getMaxCellDiagonal() {
+        double minAbsLat = (gridTopLat * gridBottomLat <= 0) ? 0 : Math.min(Math.abs(gridTopLat), Math.abs(gridBottomLat));
+        double cellHeight = Math.toRadians(deltaLat) * EARTH_RADIUS * 1000;
+        double cellWidth = Math.toRadians(deltaLon) * Math.cos(Math.toRadians(minAbsLat)) * EARTH_RADIUS * 1000;
+        return Math.hypot(cellHeight, cellWidth);
+    }
+
 
     /**
      * CityRoutingGrid consist of this CityRoutingGridCell, which contains the duration/distance information
@@ -0,0 +1,118 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.insertionSolver.SingleRequestInsertionSolver;
+import de.tum.ftm.agentsim.ts.routing.RoutingInterface;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepEnroute;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectRoutable;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks, that the EvaluationMemo delays stored plans to the current simulation time as long as the latest pickup
+ * time is kept, and that infeasible results are reused.
+ *
+ * @author Manfred Klöppel
+ */
+public class EvaluationMemoTest {
+
+    @BeforeClass
+    public static void setUpConfig() {
+        Config.USE_GRID_ROUTER = true;
+        Config.TRAVEL_TIME_FACTOR_CAR = 1;
+        Config.VEHICLE_PICKUP_DROPOFF_DELAY_SECONDS = 30;
+        Config.PICKUP_DROPOFF_DURATION_PER_PERSON_SECONDS = 5;
+        Config.MAX_WAITING_TIME_SECONDS = 600;
+        Config.MAX_IN_VEH_TIME_ELONGATION_FACTOR = 2;
+        Config.ACCEPTABLE_TIME_IN_VEH_SECONDS = 1800;
+        Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE = false;
+
+        if (SimTime.now().getTimeMillis() < 3_600_000) SimTime.updateSimulationTime(new SimTime(3_600_000));
+    }
+
+
+    @Test
+    public void feasiblePlanIsDelayedWithinTimeSlack() {
+        Vehicle vehicle = new Vehicle(11, new Position(11.50, 48.10), 4, 0, 0);
+        VehicleSchedule schedule = vehicle.getSchedule();
+
+        // The pickup is reached after 200 s, the latest pickup is after 600 s
+        User.TripRequest request = makeRequest(1101, new Position(11.52, 48.10), new Position(11.55, 48.10));
+        RoutePlan plan = new SingleRequestInsertionSolver(new StraightLineRouter()).solve(schedule, request);
+        assertNotNull(plan);
+        assertEquals(400_000, plan.getTimeSlackMS(), 1);
+
+        EvaluationMemo memo = new EvaluationMemo();
+        memo.store(request, schedule, plan);
+        assertSame(plan, memo.lookup(request, schedule).getPlan());
+
+        // After 100 s, the plan is delayed together with its stops
+        long startTimeMillis = plan.getStartTimeMillis();
+        SimTime.updateSimulationTime(new SimTime(SimTime.now(), 100_000));
+        RoutePlan delayedPlan = memo.lookup(request, schedule).getPlan();
+        assertEquals(startTimeMillis + 100_000, delayedPlan.getStartTimeMillis());
+        assertEquals(plan.getTimeSlackMS() - 100_000, delayedPlan.getTimeSlackMS());
+        assertEquals(plan.getExtraDistanceKM(), delayedPlan.getExtraDistanceKM(), 1e-9);
+
+        // After further 400 s, the latest pickup time would be exceeded and the pair has to be evaluated again
+        SimTime.updateSimulationTime(new SimTime(SimTime.now(), 400_000));
+        assertNull(memo.lookup(request, schedule));
+    }
+
+    @Test
+    public void infeasibleResultIsReused() {
+        Vehicle vehicle = new Vehicle(12, new Position(11.50, 48.10), 4, 0, 0);
+        VehicleSchedule schedule = vehicle.getSchedule();
+        User.TripRequest request = makeRequest(1201, new Position(11.80, 48.30), new Position(11.82, 48.31));
+
+        EvaluationMemo memo = new EvaluationMemo();
+        assertNull(memo.lookup(request, schedule));
+
+        memo.store(request, schedule, null);
+        EvaluationMemo.MemoEntry entry = memo.lookup(request, schedule);
+        assertNotNull(entry);
+        assertNull(entry.getPlan());
+
+        // Results of requests, which are not processed again, are removed
+        memo.retainRequests(Collections.emptyList());
+        assertNull(memo.lookup(request, schedule));
+    }
+
+
+    private static User.TripRequest makeRequest(long id, Position origin, Position destination) {
+        SimTime requestStart = SimTime.now();
+        return new User.TripRequest(new User(id), id, requestStart, new SimTime(requestStart, 600_000),
+                origin, destination, 0, 0);
+    }
+
+    /**
+     * Router with distances along the longitude (1 degree = 100 km) and a constant speed of 10 m/s
+     */
+    private static class StraightLineRouter implements RoutingInterface {
+        @Override
+        public long getRoutingCallCounter() {
+            return 0;
+        }
+
+        @Override
+        public RouteStepEnroute.EnrouteTrack calculateRoute(Position from, Position to, SimObjectRoutable.Type type, long time) {
+            double distanceM = Math.hypot(to.getX() - from.getX(), to.getY() - from.getY()) * 100_000;
+            long durationMS = (long) (distanceM * 100);
+
+            TreeMap<Long, Position> track = new TreeMap<>();
+            track.put(time, from);
+            track.put(time + durationMS, to);
+            return new RouteStepEnroute.EnrouteTrack(distanceM, durationMS, track);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.tum.ftm.agentsim.ts.assignmentStrategy;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import de.tum.ftm.agentsim.ts.Config;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.insertionSolver.SingleRequestInsertionSolver;
+import de.tum.ftm.agentsim.ts.assignmentStrategy.jspritSolver.SingleRequestJSpritSolver;
+import de.tum.ftm.agentsim.ts.routing.RoutingInterface;
+import de.tum.ftm.agentsim.ts.routing.route.Route;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStep;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepEnroute;
+import de.tum.ftm.agentsim.ts.routing.route.RouteStepStationary;
+import de.tum.ftm.agentsim.ts.simobjects.SimObjectRoutable;
+import de.tum.ftm.agentsim.ts.simobjects.User;
+import de.tum.ftm.agentsim.ts.simobjects.Vehicle;
+import de.tum.ftm.agentsim.ts.simobjects.VehicleSchedule;
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks, that the insertion heuristic and the jSprit-solver find the same best extra VMT and agree on the
+ * feasibility for small fixed instances. Both solvers use a router with straight-line distances.
+ *
+ * @author Manfred Klöppel
+ */
+public class InsertionJspritEquivalenceTest {
+
+    private static final double DELTA_KM = 1e-6;
+    private static final RoutingInterface router = new StraightLineRouter();
+
+    @BeforeClass
+    public static void setUpConfig() {
+        Config.USE_GRID_ROUTER = true;
+        Config.TRAVEL_TIME_FACTOR_CAR = 1;
+        Config.VEHICLE_PICKUP_DROPOFF_DELAY_SECONDS = 30;
+        Config.PICKUP_DROPOFF_DURATION_PER_PERSON_SECONDS = 5;
+        Config.MAX_WAITING_TIME_SECONDS = 600;
+        Config.MAX_IN_VEH_TIME_ELONGATION_FACTOR = 2;
+        Config.ACCEPTABLE_TIME_IN_VEH_SECONDS = 1800;
+        Config.ENABLE_ALONSO_TRAVEL_DELAY_MODE = false;
+        Config.ENABLE_JSPRIT_WARM_START = false;
+        Config.ENABLE_JSPRIT_REDUCED_STRATEGIES = true;
+        Config.JSPRIT_MAX_ITERATIONS = 200;
+        Config.JSPRIT_TERMINATION_ITERATIONS = 0;
+
+        if (SimTime.now().getTimeMillis() < 3_600_000) SimTime.updateSimulationTime(new SimTime(3_600_000));
+    }
+
+
+    @Test
+    public void emptyVehicle() {
+        TestVehicle vehicle = new TestVehicle(1, new Position(11.50, 48.10));
+        User.TripRequest request = makeRequest(101, new Position(11.52, 48.10), new Position(11.55, 48.12), 0);
+
+        assertEquivalent(vehicle.getSchedule(), request);
+    }
+
+    @Test
+    public void vehicleWithOnboardPassenger() throws Exception {
+        TestVehicle vehicle = new TestVehicle(2, new Position(11.50, 48.10));
+        User.TripRequest onboardRequest = makeRequest(201, new Position(11.49, 48.10), new Position(11.56, 48.11), -120);
+        onboardRequest.pickup(vehicle.getId(), new SimTime(SimTime.now(), -60_000),
+                onboardRequest.getOriginalRequestOrigin(), true);
+
+        // The route only contains the drop-off, so that the solvers route the leg to the drop-off themselves
+        long arrivalMillis = SimTime.now().getTimeMillis() + router.calculateRoute(vehicle.getPosition(),
+                onboardRequest.getOriginalRequestDestination(), SimObjectRoutable.Type.CAR, 0).getDurationMS();
+        Route route = new Route(new RouteStepStationary(new SimTime(arrivalMillis), 35_000,
+                RouteStep.StepType.DROPOFF, onboardRequest.getOriginalRequestDestination(),
+                onboardRequest.getRequestID()));
+        vehicle.setTestRoute(route);
+        vehicle.addRequestToVehicle(onboardRequest);
+
+        User.TripRequest request = makeRequest(202, new Position(11.51, 48.11), new Position(11.54, 48.10), 0);
+
+        VehicleSchedule schedule = vehicle.getSchedule();
+        assertEquals(1, schedule.getStopCount());
+        assertEquals(1, schedule.getStartLoad());
+        assertEquivalent(schedule, request);
+    }
+
+    @Test
+    public void infeasibleTimeWindow() {
+        // The pickup location cannot be reached within the maximum waiting time
+        TestVehicle vehicle = new TestVehicle(3, new Position(11.50, 48.10));
+        User.TripRequest request = makeRequest(301, new Position(11.80, 48.30), new Position(11.82, 48.31), 0);
+
+        VehicleSchedule schedule = vehicle.getSchedule();
+        assertNull(new SingleRequestInsertionSolver(router).solve(schedule, request));
+        assertNull(solveWithJsprit(schedule, request));
+    }
+
+
+    /**
+     * Asserts, that both solvers find a plan with the same extra VMT
+     */
+    private static void assertEquivalent(VehicleSchedule schedule, User.TripRequest request) {
+        RoutePlan insertionPlan = new SingleRequestInsertionSolver(router).solve(schedule, request);
+        RoutePlan jspritPlan = solveWithJsprit(schedule, request);
+
+        assertNotNull(insertionPlan);
+        assertNotNull(jspritPlan);
+        assertEquals(insertionPlan.getExtraDistanceKM(), jspritPlan.getExtraDistanceKM(), DELTA_KM);
+        assertEquals(insertionPlan.getStops().size(), jspritPlan.getStops().size());
+    }
+
+    private static RoutePlan solveWithJsprit(VehicleSchedule schedule, User.TripRequest request) {
+        SingleRequestJSpritSolver solver = new SingleRequestJSpritSolver(router);
+        VehicleRoutingProblem vrp = solver.buildVRP(schedule, request);
+        VehicleRoutingProblemSolution solution = solver.solveVRP(vrp);
+        return (solution != null) ? solver.makeRoutePlanFromSolution(solution, schedule, request) : null;
+    }
+
+    /**
+     * Creates a request with a direct trip duration of 10 minutes
+     *
+     * @param requestOffsetSeconds Offset of the request time to the current simulation time
+     */
+    private static User.TripRequest makeRequest(long id, Position origin, Position destination, long requestOffsetSeconds) {
+        SimTime requestStart = new SimTime(SimTime.now(), requestOffsetSeconds * 1000);
+        return new User.TripRequest(new User(id), id, requestStart, new SimTime(requestStart, 600_000),
+                origin, destination, 0, 0);
+    }
+
+
+    /**
+     * Vehicle, whose route can be set without scheduling simulation events
+     */
+    private static class TestVehicle extends Vehicle {
+        TestVehicle(long id, Position position) {
+            super(id, position, 4, 0, 0);
+        }
+
+        void setTestRoute(Route route) {
+            this.route = route;
+        }
+    }
+
+    /**
+     * Router with straight-line distances (1 degree = 100 km) and a constant speed of 10 m/s
+     */
+    private static class StraightLineRouter implements RoutingInterface {
+        @Override
+        public long getRoutingCallCounter() {
+            return 0;
+        }
+
+        @Override
+        public RouteStepEnroute.EnrouteTrack calculateRoute(Position from, Position to, SimObjectRoutable.Type type, long time) {
+            double distanceM = Math.hypot(to.getX() - from.getX(), to.getY() - from.getY()) * 100_000;
+            long durationMS = (long) (distanceM * 100);
+
+            TreeMap<Long, Position> track = new TreeMap<>();
+            track.put(time, from);
+            track.put(time + durationMS, to);
+            return new RouteStepEnroute.EnrouteTrack(distanceM, durationMS, track);
+        }
+    }
+}
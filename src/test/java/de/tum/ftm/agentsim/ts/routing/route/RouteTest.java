@@ -0,0 +1,115 @@
+package de.tum.ftm.agentsim.ts.routing.route;
+
+import de.tum.ftm.agentsim.ts.utils.Position;
+import de.tum.ftm.agentsim.ts.utils.SimTime;
+import org.junit.Test;
+
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the prefix sums of the distance and duration of a route, while RouteSteps are appended, inserted and removed.
+ *
+ * @author Manfred Klöppel
+ */
+public class RouteTest {
+
+    private static final double DELTA_KM = 1e-9;
+
+    /**
+     * Creates a route of alternating enroute (1 km, 60 s) and pickup (30 s) RouteSteps
+     */
+    private static Route makeRoute(int legCount) {
+        Route route = new Route(new SimTime(0));
+        for (int i = 0; i < legCount; i++) {
+            route.appendRouteStep(makeEnroute(1000, 60_000), true);
+            route.appendRouteStep(new RouteStepStationary(new SimTime(0), 30_000, RouteStep.StepType.PICKUP,
+                    new Position(i, 0), i), true);
+        }
+        return route;
+    }
+
+    private static RouteStepEnroute makeEnroute(double distanceM, long durationMS) {
+        TreeMap<Long, Position> track = new TreeMap<>();
+        track.put(0L, new Position(0, 0));
+        track.put(durationMS, new Position(0, 1));
+        return new RouteStepEnroute(new RouteStepEnroute.EnrouteTrack(distanceM, durationMS, track),
+                RouteStep.StepType.ENROUTE);
+    }
+
+
+    @Test
+    public void prefixSumsOfAppendedSteps() {
+        // 12 legs exceed the initial capacity of the RouteStep-array
+        Route route = makeRoute(12);
+
+        assertEquals(24, route.getRouteStepCount());
+        assertEquals(12, route.getRemainingDistanceKM(), DELTA_KM);
+        assertEquals(12 * 90_000, route.getRemainingDurationMS());
+        for (int i = 0; i <= 24; i++) {
+            assertEquals((i + 1) / 2, route.getDistanceUntilStepKM(i), DELTA_KM);
+            assertEquals((i / 2) * 90_000 + (i % 2) * 60_000, route.getDurationUntilStepMS(i));
+        }
+        assertEquals(route.getRouteStep(5).getStartTime().getTimeMillis(), route.getDurationUntilStepMS(5));
+    }
+
+    @Test
+    public void prefixSumsAfterPollingSteps() {
+        Route route = makeRoute(12);
+        for (int i = 0; i < 5; i++) route.pollFirstRouteStep();
+
+        // Remaining route starts with a pickup
+        assertEquals(19, route.getRouteStepCount());
+        assertEquals(12 - 3, route.getRemainingDistanceKM(), DELTA_KM);
+        assertEquals(12 * 90_000 - 2 * 90_000 - 60_000, route.getRemainingDurationMS());
+        assertEquals(0, route.getDistanceUntilStepKM(1), DELTA_KM);
+        assertEquals(30_000, route.getDurationUntilStepMS(1));
+        assertEquals(1, route.getDistanceUntilStepKM(2), DELTA_KM);
+        assertEquals(90_000, route.getDurationUntilStepMS(2));
+
+        // Appending after polling reuses the space before head
+        for (int i = 0; i < 8; i++) route.appendRouteStep(makeEnroute(500, 30_000), true);
+        assertEquals(27, route.getRouteStepCount());
+        assertEquals(9 + 4, route.getRemainingDistanceKM(), DELTA_KM);
+        assertEquals(12 * 90_000 - 2 * 90_000 - 60_000 + 8 * 30_000, route.getRemainingDurationMS());
+    }
+
+    @Test
+    public void prefixSumsAfterInsertingStep() {
+        Route route = makeRoute(3);
+
+        // Insert a stationary step between the first enroute step and the first pickup
+        RouteStepStationary update = new RouteStepStationary(new SimTime(10_000), 0,
+                RouteStep.StepType.ROUTE_UPDATE, new Position(0, 0));
+        assertTrue(route.appendRouteStep(update, false));
+        assertFalse(route.appendRouteStep(update, false));
+
+        assertEquals(7, route.getRouteStepCount());
+        assertSame(update, route.getRouteStep(1));
+        assertEquals(3, route.getRemainingDistanceKM(), DELTA_KM);
+        assertEquals(1, route.getDistanceUntilStepKM(2), DELTA_KM);
+        assertEquals(2, route.getDistanceUntilStepKM(4), DELTA_KM);
+        assertEquals(3 * 90_000, route.getRemainingDurationMS());
+    }
+
+    @Test
+    public void trimAndClearKeepTotals() {
+        Route route = makeRoute(4);
+        double totalDistanceKM = route.getRouteDistanceKM();
+
+        route.trimRouteSteps();
+        assertEquals(1, route.getRouteStepCount());
+        assertEquals(0, route.getRemainingDistanceKM(), DELTA_KM);
+        assertEquals(30_000, route.getRemainingDurationMS());
+
+        route.clearRouteSteps();
+        assertEquals(0, route.getRouteStepCount());
+        assertEquals(0, route.getRemainingDurationMS());
+        assertEquals(totalDistanceKM, route.getRouteDistanceKM(), DELTA_KM);
+
+        route.appendRouteStep(makeEnroute(2000, 120_000), true);
+        assertEquals(2, route.getRemainingDistanceKM(), DELTA_KM);
+        assertEquals(120_000, route.getRemainingDurationMS());
+    }
+}
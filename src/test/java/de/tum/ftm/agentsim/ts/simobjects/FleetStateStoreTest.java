@@ -0,0 +1,93 @@
+package de.tum.ftm.agentsim.ts.simobjects;
+
+import de.tum.ftm.agentsim.ts.utils.Position;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks, that the per-status sets of the FleetStateStore match the status of the vehicles after registrations and
+ * status changes. The store is a singleton, therefore the checks consider all registered vehicles.
+ *
+ * @author Manfred Klöppel
+ */
+public class FleetStateStoreTest {
+
+    private static final SimObjectStatus[] VEHICLE_STATUS = {SimObjectStatus.VEHICLE_IDLE,
+            SimObjectStatus.VEHICLE_IN_SERVICE, SimObjectStatus.VEHICLE_RELOCATING};
+
+    private static void assertStatusSetsMatchStatus(FleetStateStore store) {
+        int total = 0;
+        for (SimObjectStatus status : SimObjectStatus.values()) {
+            List<Vehicle> members = store.getVehicles(status);
+            Set<Vehicle> expected = new HashSet<>(store.filterVehicles(i -> store.hasStatus(i, status)));
+
+            assertEquals(status.toString(), expected.size(), members.size());
+            assertEquals(status.toString(), expected, new HashSet<>(members));
+            assertEquals(members.size(), store.countVehicles(status));
+            total += members.size();
+        }
+        assertEquals(store.size(), total);
+    }
+
+
+    @Test
+    public void registeredVehiclesAreIdle() {
+        FleetStateStore store = FleetStateStore.getInstance();
+        int idleCount = store.countVehicles(SimObjectStatus.VEHICLE_IDLE);
+
+        // More vehicles than the initial size of the store
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) vehicles.add(new Vehicle(10_000 + i, new Position(11.5, 48.1), 4, 0, 0));
+
+        assertEquals(idleCount + 1500, store.countVehicles(SimObjectStatus.VEHICLE_IDLE));
+        assertTrue(store.getVehicles(SimObjectStatus.VEHICLE_IDLE).containsAll(vehicles));
+        for (Vehicle vehicle : vehicles) assertSame(vehicle, store.getVehicle(vehicle.getFleetIndex()));
+        assertStatusSetsMatchStatus(store);
+    }
+
+    @Test
+    public void statusSetsFollowStatusChanges() {
+        FleetStateStore store = FleetStateStore.getInstance();
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 200; i++) vehicles.add(new Vehicle(20_000 + i, new Position(11.5, 48.1), 4, 0, 0));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            Vehicle vehicle = vehicles.get(random.nextInt(vehicles.size()));
+            vehicle.setStatus(VEHICLE_STATUS[random.nextInt(VEHICLE_STATUS.length)]);
+        }
+        assertStatusSetsMatchStatus(store);
+
+        for (SimObjectStatus status : VEHICLE_STATUS) {
+            List<Vehicle> members = store.getVehicles(status);
+            for (Vehicle vehicle : vehicles) {
+                assertEquals(vehicle.getStatus() == status, members.contains(vehicle));
+            }
+        }
+    }
+
+    @Test
+    public void settingSameStatusKeepsSets() {
+        FleetStateStore store = FleetStateStore.getInstance();
+        Vehicle vehicle = new Vehicle(30_000, new Position(11.5, 48.1), 4, 0, 0);
+        int inServiceCount = store.countVehicles(SimObjectStatus.VEHICLE_IN_SERVICE);
+
+        vehicle.setStatus(SimObjectStatus.VEHICLE_IN_SERVICE);
+        vehicle.setStatus(SimObjectStatus.VEHICLE_IN_SERVICE);
+        assertEquals(inServiceCount + 1, store.countVehicles(SimObjectStatus.VEHICLE_IN_SERVICE));
+
+        // The returned list is not affected by later status changes
+        List<Vehicle> inService = store.getVehicles(SimObjectStatus.VEHICLE_IN_SERVICE);
+        vehicle.setStatus(SimObjectStatus.VEHICLE_IDLE);
+        assertTrue(inService.contains(vehicle));
+        assertFalse(store.getVehicles(SimObjectStatus.VEHICLE_IN_SERVICE).contains(vehicle));
+        assertStatusSetsMatchStatus(store);
+    }
+}
@@ -0,0 +1,91 @@
+package de.tum.ftm.agentsim.ts.simobjects.rebalancing;
+
+import de.tum.ftm.agentsim.ts.utils.Position;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks, that the DistrictLookup returns the same district as testing the position with Geometry.within() against
+ * the districts in the order of the district list.
+ *
+ * @author Manfred Klöppel
+ */
+public class DistrictLookupTest {
+
+    private static final GeometryFactory geometryFactory = new GeometryFactory();
+
+    private static Geometry polygon(double... xy) {
+        Coordinate[] coordinates = new Coordinate[xy.length / 2 + 1];
+        for (int i = 0; i < xy.length / 2; i++) coordinates[i] = new Coordinate(xy[2 * i], xy[2 * i + 1]);
+        coordinates[coordinates.length - 1] = coordinates[0];
+        return geometryFactory.createPolygon(coordinates);
+    }
+
+    /**
+     * Two adjacent squares, a triangle overlapping both squares and a square with a hole
+     */
+    private static List<RelocationDistrict> makeDistricts() {
+        List<RelocationDistrict> districts = new ArrayList<>();
+        districts.add(new RelocationDistrict(1, polygon(11.50, 48.10, 11.55, 48.10, 11.55, 48.15, 11.50, 48.15)));
+        districts.add(new RelocationDistrict(2, polygon(11.55, 48.10, 11.60, 48.10, 11.60, 48.15, 11.55, 48.15)));
+        districts.add(new RelocationDistrict(3, polygon(11.52, 48.12, 11.58, 48.12, 11.55, 48.17)));
+        districts.add(new RelocationDistrict(4, polygon(11.61, 48.10, 11.65, 48.10, 11.65, 48.14, 11.61, 48.14)
+                .difference(polygon(11.62, 48.11, 11.64, 48.11, 11.64, 48.13, 11.62, 48.13))));
+        return districts;
+    }
+
+    private static RelocationDistrict findByWithin(List<RelocationDistrict> districts, Position position) {
+        for (RelocationDistrict district : districts) {
+            if (position.geoFunc().within(district.districtGeometry)) return district;
+        }
+        return null;
+    }
+
+
+    @Test
+    public void sameDistrictAsWithinTest() {
+        List<RelocationDistrict> districts = makeDistricts();
+        DistrictLookup lookup = new DistrictLookup(districts);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            Position position = new Position(11.48 + random.nextDouble() * 0.19, 48.08 + random.nextDouble() * 0.11);
+            assertSame(position.toString(), findByWithin(districts, position), lookup.getDistrict(position));
+        }
+    }
+
+    @Test
+    public void positionsOutsideOfDistricts() {
+        DistrictLookup lookup = new DistrictLookup(makeDistricts());
+
+        assertNull(lookup.getDistrict(new Position(11.40, 48.12)));     // Outside of the extent
+        assertNull(lookup.getDistrict(new Position(11.63, 48.12)));     // Within the hole
+        assertNull(lookup.getDistrict(new Position(11.605, 48.12)));    // Between two districts
+        assertEquals(4, lookup.getDistrict(new Position(11.615, 48.12)).cityDistrictID);
+    }
+
+    @Test
+    public void overlappingDistrictsInListOrder() {
+        DistrictLookup lookup = new DistrictLookup(makeDistricts());
+        assertEquals(1, lookup.getDistrict(new Position(11.54, 48.13)).cityDistrictID);
+        assertEquals(3, lookup.getDistrict(new Position(11.55, 48.16)).cityDistrictID);
+
+        List<RelocationDistrict> reversed = makeDistricts();
+        Collections.reverse(reversed);
+        assertEquals(3, new DistrictLookup(reversed).getDistrict(new Position(11.54, 48.13)).cityDistrictID);
+    }
+
+    @Test
+    public void emptyDistrictList() {
+        assertNull(new DistrictLookup(new ArrayList<>()).getDistrict(new Position(11.5, 48.1)));
+    }
+}
@@ -0,0 +1,100 @@
+package de.tum.ftm.agentsim.ts.simobjects.rebalancing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the min-cost maximum flow of the MinCostFlowSolver on small instances with known solutions and on random
+ * assignment problems, which are compared with the solution of a complete enumeration.
+ *
+ * @author Manfred Klöppel
+ */
+public class MinCostFlowSolverTest {
+
+    @Test
+    public void transportationProblem() {
+        // Source 0, surplus districts 1 (3 vehicles) and 2 (2 vehicles), deficit districts 3 (2) and 4 (2), sink 5
+        MinCostFlowSolver solver = new MinCostFlowSolver(6);
+        solver.addEdge(0, 1, 3, 0);
+        solver.addEdge(0, 2, 2, 0);
+        int e13 = solver.addEdge(1, 3, 10, 4);
+        int e14 = solver.addEdge(1, 4, 10, 6);
+        int e23 = solver.addEdge(2, 3, 10, 5);
+        int e24 = solver.addEdge(2, 4, 10, 9);
+        solver.addEdge(3, 5, 2, 0);
+        solver.addEdge(4, 5, 2, 0);
+
+        assertEquals(4, solver.solve(0, 5));
+        long cost = 4L * solver.getFlow(e13) + 6L * solver.getFlow(e14) + 5L * solver.getFlow(e23) + 9L * solver.getFlow(e24);
+        assertEquals(4 + 6 + 6 + 5, cost);
+        assertEquals(2, solver.getFlow(e14));
+        assertEquals(0, solver.getFlow(e24));
+    }
+
+    @Test
+    public void flowIsReroutedOverResidualEdges() {
+        // The first shortest path 0-1-2-3 blocks both other paths, the maximum flow of 2 requires to cancel the
+        // flow on the edge 1-2
+        MinCostFlowSolver solver = new MinCostFlowSolver(4);
+        solver.addEdge(0, 1, 1, 1);
+        solver.addEdge(0, 2, 1, 5);
+        int e12 = solver.addEdge(1, 2, 1, 1);
+        solver.addEdge(1, 3, 1, 5);
+        solver.addEdge(2, 3, 1, 1);
+
+        assertEquals(2, solver.solve(0, 3));
+        assertEquals(0, solver.getFlow(e12));
+    }
+
+    @Test
+    public void noPathToSink() {
+        MinCostFlowSolver solver = new MinCostFlowSolver(3);
+        int edge = solver.addEdge(0, 1, 5, 1);
+        assertEquals(0, solver.solve(0, 2));
+        assertEquals(0, solver.getFlow(edge));
+    }
+
+    @Test
+    public void randomAssignmentProblems() {
+        Random random = new Random(3);
+        for (int instance = 0; instance < 200; instance++) {
+            int n = 2 + random.nextInt(4);
+            long[][] costs = new long[n][n];
+            for (long[] row : costs) for (int j = 0; j < n; j++) row[j] = random.nextInt(100);
+
+            // Nodes: source, n workers, n jobs, sink (more edges than the initial edge capacity for n = 5)
+            int source = 0;
+            int sink = 2 * n + 1;
+            MinCostFlowSolver solver = new MinCostFlowSolver(2 * n + 2);
+            int[][] edges = new int[n][n];
+            for (int i = 0; i < n; i++) {
+                solver.addEdge(source, 1 + i, 1, 0);
+                solver.addEdge(1 + n + i, sink, 1, 0);
+                for (int j = 0; j < n; j++) edges[i][j] = solver.addEdge(1 + i, 1 + n + j, 1, costs[i][j]);
+            }
+
+            assertEquals(n, solver.solve(source, sink));
+            long cost = 0;
+            for (int i = 0; i < n; i++) for (int j = 0; j < n; j++) cost += solver.getFlow(edges[i][j]) * costs[i][j];
+            assertEquals(minAssignmentCost(costs, 0, new boolean[n]), cost);
+        }
+    }
+
+    /**
+     * @return Minimal cost of the assignment of the rows from the row index on to the unused columns by enumeration
+     */
+    private static long minAssignmentCost(long[][] costs, int row, boolean[] usedColumns) {
+        if (row == costs.length) return 0;
+        long minCost = Long.MAX_VALUE;
+        for (int column = 0; column < costs.length; column++) {
+            if (usedColumns[column]) continue;
+            usedColumns[column] = true;
+            minCost = Math.min(minCost, costs[row][column] + minAssignmentCost(costs, row + 1, usedColumns));
+            usedColumns[column] = false;
+        }
+        return minCost;
+    }
+}